@@ -0,0 +1,169 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 B e n c h m a r k I m a g e s                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code BenchmarkImages} provides the binary images used by benchmarks, either
+ * synthetic (staves, heads and stems drawn on a blank page) or read from the bundled examples.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class BenchmarkImages
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Name of synthetic image. */
+    public static final String SYNTHETIC = "synthetic";
+
+    /** Folder of bundled example images. */
+    public static final Path EXAMPLES = Paths.get("data", "examples");
+
+    /** Gray threshold for binarization of example images. */
+    private static final int THRESHOLD = 140;
+
+    /** Synthetic interline, in pixels. */
+    public static final int INTERLINE = 20;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private BenchmarkImages ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // image //
+    //-------//
+    /**
+     * Report the binary image for the provided name.
+     *
+     * @param name {@link #SYNTHETIC} or the name of a file in data/examples
+     * @return the binary image (foreground pixels are 0)
+     * @throws IOException if file cannot be read
+     */
+    public static ByteProcessor image (String name)
+            throws IOException
+    {
+        if (SYNTHETIC.equals(name)) {
+            return synthetic(2500, 3500, 0);
+        }
+
+        return sample(EXAMPLES.resolve(name));
+    }
+
+    //--------//
+    // sample //
+    //--------//
+    /**
+     * Read and binarize an image file.
+     *
+     * @param path path to image file
+     * @return the binary image
+     * @throws IOException if file cannot be read
+     */
+    public static ByteProcessor sample (Path path)
+            throws IOException
+    {
+        final BufferedImage img = ImageIO.read(path.toFile());
+
+        if (img == null) {
+            throw new IOException("Cannot read image " + path);
+        }
+
+        final ByteProcessor gray = (img.getType() == BufferedImage.TYPE_BYTE_GRAY)
+                ? new ByteProcessor(img) : new ColorProcessor(img).convertToByteProcessor();
+
+        return new GlobalFilter(gray, THRESHOLD).filteredImage();
+    }
+
+    //-----------//
+    // synthetic //
+    //-----------//
+    /**
+     * Draw a synthetic music page, with staves, heads and stems.
+     *
+     * @param width  page width
+     * @param height page height
+     * @param seed   random seed, for reproducible content
+     * @return the binary image
+     */
+    public static ByteProcessor synthetic (int width,
+                                           int height,
+                                           long seed)
+    {
+        final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+
+        final Random random = new Random(seed);
+        final int margin = 100;
+        final int staffHeight = 4 * INTERLINE;
+
+        for (int top = margin; (top + staffHeight + margin) < height; top += (6 * INTERLINE)) {
+            // Staff lines
+            g.setStroke(new BasicStroke(3));
+
+            for (int i = 0; i < 5; i++) {
+                final int y = top + (i * INTERLINE);
+                g.draw(new Line2D.Double(margin, y, width - margin, y));
+            }
+
+            // Heads & stems
+            g.setStroke(new BasicStroke(2));
+
+            for (int x = margin + (2 * INTERLINE); x < (width - margin - (2 * INTERLINE));
+                    x += (2 * INTERLINE)) {
+                final int pitch = random.nextInt(9);
+                final double yc = top + ((pitch * INTERLINE) / 2.0);
+                final double w = 1.2 * INTERLINE;
+                g.fill(new Ellipse2D.Double(x, yc - (INTERLINE / 2.0), w, INTERLINE));
+
+                if (random.nextBoolean()) {
+                    g.draw(new Line2D.Double(x + w, yc, x + w, yc - (3.5 * INTERLINE)));
+                }
+            }
+        }
+
+        g.dispose();
+
+        return new GlobalFilter(new ByteProcessor(img), THRESHOLD).filteredImage();
+    }
+}
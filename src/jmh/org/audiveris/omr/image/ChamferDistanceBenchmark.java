@@ -0,0 +1,91 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                        C h a m f e r D i s t a n c e B e n c h m a r k                         //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ChamferDistanceBenchmark} measures the distance transform of a whole
+ * binary image, as done for template matching.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChamferDistanceBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Image to process. */
+    @Param({BenchmarkImages.SYNTHETIC, "chula.png"})
+    public String image;
+
+    private ByteProcessor buffer;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp ()
+            throws IOException
+    {
+        buffer = BenchmarkImages.image(image);
+    }
+
+    //-------------//
+    // toForeShort //
+    //-------------//
+    @Benchmark
+    public DistanceTable toForeShort ()
+    {
+        return new ChamferDistance.Short().computeToFore(buffer);
+    }
+
+    //---------------//
+    // toForeInteger //
+    //---------------//
+    @Benchmark
+    public DistanceTable toForeInteger ()
+    {
+        return new ChamferDistance.Integer().computeToFore(buffer);
+    }
+}
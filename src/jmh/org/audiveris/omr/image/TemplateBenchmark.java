@@ -0,0 +1,103 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               T e m p l a t e B e n c h m a r k                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.image.Anchored.Anchor;
+import org.audiveris.omr.ui.symbol.MusicFont;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code TemplateBenchmark} measures the evaluation of a head template, at every
+ * location of a synthetic staff area.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplateBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Template shape. */
+    @Param({"NOTEHEAD_BLACK", "NOTEHEAD_VOID", "WHOLE_NOTE"})
+    public Shape shape;
+
+    private Template template;
+
+    private DistanceTable distances;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp ()
+    {
+        final int pointSize = MusicFont.getPointSize(BenchmarkImages.INTERLINE);
+        template = TemplateFactory.getInstance().getCatalog(pointSize).getTemplate(shape);
+        distances = new ChamferDistance.Short().computeToFore(
+                BenchmarkImages.synthetic(1000, 400, 0));
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Evaluate the template at every location of the first staff.
+     *
+     * @return the sum of evaluations
+     */
+    @Benchmark
+    public double evaluate ()
+    {
+        final int width = distances.getWidth() - template.getWidth();
+        final int top = 100 - BenchmarkImages.INTERLINE;
+        final int bottom = 100 + (5 * BenchmarkImages.INTERLINE);
+        double sum = 0;
+
+        for (int y = top; y < bottom; y++) {
+            for (int x = 0; x < width; x++) {
+                sum += template.evaluate(x, y, Anchor.MIDDLE_LEFT, distances);
+            }
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,103 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                          N e u r a l N e t w o r k B e n c h m a r k                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code NeuralNetworkBenchmark} measures the forward run of a network sized like
+ * the glyph shape classifier.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NeuralNetworkBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Number of input cells. */
+    @Param({"105"})
+    public int inputSize;
+
+    /** Number of hidden cells. */
+    @Param({"50", "150"})
+    public int hiddenSize;
+
+    /** Number of output cells. */
+    @Param({"120"})
+    public int outputSize;
+
+    private NeuralNetwork network;
+
+    private double[] inputs;
+
+    private double[] hiddens;
+
+    private double[] outputs;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp ()
+    {
+        network = new NeuralNetwork(inputSize, hiddenSize, outputSize, 0.5, null, null);
+
+        final Random random = new Random(0);
+        inputs = new double[inputSize];
+
+        for (int i = 0; i < inputSize; i++) {
+            inputs[i] = random.nextDouble();
+        }
+
+        hiddens = new double[hiddenSize];
+        outputs = new double[outputSize];
+    }
+
+    //-----//
+    // run //
+    //-----//
+    @Benchmark
+    public double[] run ()
+    {
+        return network.run(inputs, hiddens, outputs);
+    }
+}
@@ -0,0 +1,164 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                S I G r a p h B e n c h m a r k                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.BasicSheet;
+import org.audiveris.omr.sheet.BasicStub;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.Staff;
+import org.audiveris.omr.sheet.StaffLine;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sheet.grid.LineInfo;
+import org.audiveris.omr.sig.inter.BreathMarkInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Exclusion;
+import org.audiveris.omr.sig.relation.Exclusion.Cause;
+import org.audiveris.omr.sig.relation.HeadHeadRelation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.geom.Point2D;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code SIGraphBenchmark} measures the reduction of exclusions in a synthetic SIG,
+ * where inters of random grades are linked by random exclusions and supports.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(1)
+public class SIGraphBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Number of inters in sig. */
+    @Param({"500", "2000"})
+    public int inters;
+
+    /** Number of exclusions per inter. */
+    @Param({"4"})
+    public int exclusions;
+
+    private Sheet sheet;
+
+    private SIGraph sig;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // setUpSheet //
+    //------------//
+    @Setup(Level.Trial)
+    public void setUpSheet ()
+    {
+        final Book book = new BasicBook(Paths.get("synthetic.png"));
+        sheet = new BasicSheet(new BasicStub(book, 1), (RunTable) null);
+    }
+
+    //----------//
+    // setUpSig //
+    //----------//
+    @Setup(Level.Invocation)
+    public void setUpSig ()
+    {
+        final List<LineInfo> lines = new ArrayList<LineInfo>();
+
+        for (int i = 0; i < 5; i++) {
+            final double y = 100 + (20 * i);
+            lines.add(
+                    new StaffLine(
+                            Arrays.asList(
+                                    (Point2D) new Point2D.Double(100, y),
+                                    new Point2D.Double(2400, y)),
+                            3));
+        }
+
+        final List<Staff> staves = new ArrayList<Staff>();
+        staves.add(new Staff(1, 100, 2400, 20, lines));
+
+        final SystemInfo system = new SystemInfo(1, sheet, staves);
+        sig = system.getSig();
+
+        final Random random = new Random(inters);
+        final List<Inter> list = new ArrayList<Inter>(inters);
+
+        for (int i = 0; i < inters; i++) {
+            final Inter inter = new BreathMarkInter(null, 0.1 + (0.8 * random.nextDouble()));
+            sig.addVertex(inter);
+            list.add(inter);
+        }
+
+        for (int i = 0; i < inters; i++) {
+            final Inter inter = list.get(i);
+
+            for (int k = 0; k < exclusions; k++) {
+                final Inter other = list.get(random.nextInt(inters));
+
+                if (other != inter) {
+                    sig.insertExclusion(inter, other, Cause.OVERLAP);
+                }
+            }
+
+            final Inter partner = list.get(random.nextInt(inters));
+
+            if ((partner != inter) && (sig.getRelation(inter, partner, Exclusion.class) == null)
+                    && (sig.getRelation(partner, inter, Exclusion.class) == null)) {
+                final HeadHeadRelation rel = new HeadHeadRelation();
+                rel.setGrade(random.nextDouble());
+                sig.addEdge(inter, partner, rel);
+            }
+        }
+    }
+
+    //------------------//
+    // reduceExclusions //
+    //------------------//
+    @Benchmark
+    public Set<Inter> reduceExclusions ()
+    {
+        return sig.reduceExclusions();
+    }
+}
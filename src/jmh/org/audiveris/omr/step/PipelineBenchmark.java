@@ -0,0 +1,202 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               P i p e l i n e B e n c h m a r k                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.image.BenchmarkImages;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.ui.symbol.MusicFont;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code PipelineBenchmark} measures the transcription of a bundled sample sheet,
+ * as a whole from LOAD to PAGE, and step by step.
+ * <p>
+ * For the step by step measurement, the sheet is brought to the step just before the measured
+ * step, out of measured time.
+ * <p>
+ * As in batch mode, the book is saved in the default output folder.
+ *
+ * @author Hervé Bitteur
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx2g"})
+public class PipelineBenchmark
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    //------//
+    // page //
+    //------//
+    /**
+     * Transcribe a fresh sheet from LOAD to PAGE.
+     *
+     * @param state the fresh sheet
+     * @return true if OK
+     */
+    @Benchmark
+    public boolean page (SheetState state)
+    {
+        return state.stub.reachStep(Step.PAGE, false);
+    }
+
+    //------//
+    // step //
+    //------//
+    /**
+     * Perform the measured step on a sheet already processed until the previous step.
+     *
+     * @param state the prepared sheet
+     * @return true if OK
+     */
+    @Benchmark
+    public boolean step (StepState state)
+    {
+        return state.stub.reachStep(state.step, false);
+    }
+
+    //----------//
+    // setUpOmr //
+    //----------//
+    private static void setUpOmr ()
+    {
+        if (OMR.engine == null) {
+            OMR.engine = BookManager.getInstance();
+        }
+
+        MusicFont.checkMusicFont();
+    }
+
+    //---------//
+    // newStub //
+    //---------//
+    /**
+     * Create a brand new book on the provided example image, and report its first sheet.
+     *
+     * @param image name of example image
+     * @return the sheet stub
+     */
+    private static SheetStub newStub (String image)
+    {
+        final Book book = new BasicBook(BenchmarkImages.EXAMPLES.resolve(image));
+        book.createStubs(null);
+
+        // Save book to disk, as done in batch
+        book.store(BookManager.getDefaultSavePath(book), false);
+
+        return book.getStubs().get(0);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------------//
+    // SheetState //
+    //------------//
+    /**
+     * A brand new sheet, created for each invocation.
+     */
+    @State(Scope.Thread)
+    public static class SheetState
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Image to transcribe. */
+        @Param({"chula.png", "allegretto.png"})
+        public String image;
+
+        SheetStub stub;
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Setup(Level.Trial)
+        public void setUpTrial ()
+        {
+            setUpOmr();
+        }
+
+        @Setup(Level.Invocation)
+        public void setUpInvocation ()
+        {
+            stub = newStub(image);
+        }
+    }
+
+    //-----------//
+    // StepState //
+    //-----------//
+    /**
+     * A brand new sheet, processed until the step before the measured step, for each invocation.
+     */
+    @State(Scope.Thread)
+    public static class StepState
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Image to transcribe. */
+        @Param({"chula.png"})
+        public String image;
+
+        /** Step to measure. */
+        @Param({
+            "LOAD", "BINARY", "SCALE", "GRID", "HEADERS", "STEM_SEEDS", "BEAMS", "LEDGERS", "HEADS",
+            "STEMS", "REDUCTION", "CUE_BEAMS", "TEXTS", "MEASURES", "CHORDS", "CURVES", "SYMBOLS",
+            "LINKS", "RHYTHMS", "PAGE"
+        })
+        public Step step;
+
+        SheetStub stub;
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Setup(Level.Trial)
+        public void setUpTrial ()
+        {
+            setUpOmr();
+        }
+
+        @Setup(Level.Invocation)
+        public void setUpInvocation ()
+        {
+            stub = newStub(image);
+
+            if (step != Step.first()) {
+                stub.reachStep(Step.values()[step.ordinal() - 1], false);
+            }
+        }
+    }
+}
@@ -0,0 +1,611 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  B a t c h S c h e d u l e r                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.CLI.CliTask;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.image.ImageLoading;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.util.FileUtil;
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Dimension;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Class {@code BatchScheduler} processes a batch of CLI tasks, admitting books according
+ * to available CPU and heap.
+ * <p>
+ * Before being admitted, each task is estimated: count of sheets and heap needed by the sheets
+ * processed concurrently, based on the dimension of the input images.
+ * A book is admitted only when the sheet workers are not yet saturated and the estimated heap
+ * fits into the remaining budget (the first book is always admitted).
+ * <p>
+ * The sheets of all admitted books are interleaved on the shared
+ * {@link OmrExecutors#getSheetExecutor() sheet pool}.
+ * Each sheet step remains guarded by {@link Main#getSheetStepTimeOut()}, so a blocked sheet is
+ * cancelled without holding the other sheets.
+ * <p>
+ * When a book is completed, a summary with its timings is written as an XML file in the book
+ * folder.
+ *
+ * @author Hervé Bitteur
+ */
+public class BatchScheduler
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchScheduler.class);
+
+    /** One mega byte. */
+    private static final long MB = 1024 * 1024;
+
+    /** Suffix for book summary file. */
+    public static final String SUMMARY_SUFFIX = "-batch.xml";
+
+    /** The scheduler currently running, if any. */
+    private static volatile BatchScheduler running;
+
+    /** Context for JAXB marshalling of summaries. */
+    private static volatile JAXBContext jaxbContext;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Tasks to process. */
+    private final List<CliTask> tasks;
+
+    /** Count of sheet workers. */
+    private final int workers;
+
+    /** Heap available for books, in bytes. */
+    private final long heapBudget;
+
+    /** Jobs currently admitted. */
+    private final List<BookJob> admitted = Collections.synchronizedList(
+            new ArrayList<BookJob>());
+
+    /** Tasks that failed. */
+    private final List<CliTask> failedTasks = Collections.synchronizedList(
+            new ArrayList<CliTask>());
+
+    /** Sum of sheet slots used by admitted jobs. */
+    private int usedSlots;
+
+    /** Sum of heap bytes used by admitted jobs. */
+    private long usedHeap;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code BatchScheduler} object.
+     *
+     * @param tasks the CLI tasks to process
+     */
+    public BatchScheduler (List<CliTask> tasks)
+    {
+        this.tasks = tasks;
+
+        final Runtime runtime = Runtime.getRuntime();
+        final long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        workers = OmrExecutors.getSheetThreadCount();
+        heapBudget = (long) ((runtime.maxMemory() - usedMemory) * constants.heapRatio.getValue());
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------------//
+    // getFailedTasks //
+    //----------------//
+    /**
+     * Report the tasks that failed, once {@link #process()} has completed.
+     *
+     * @return the failed tasks
+     */
+    public List<CliTask> getFailedTasks ()
+    {
+        return failedTasks;
+    }
+
+    //------------//
+    // getRunning //
+    //------------//
+    /**
+     * Report the scheduler currently running, if any.
+     *
+     * @return the running scheduler or null
+     */
+    public static BatchScheduler getRunning ()
+    {
+        return running;
+    }
+
+    //--------------//
+    // invokeSheets //
+    //--------------//
+    /**
+     * Run the provided sheet tasks of a book on the shared sheet pool, and wait for their
+     * completion.
+     * <p>
+     * This method is called by the book thread, while sheets of other books may be processed
+     * concurrently by the same pool.
+     *
+     * @param book   the containing book
+     * @param stubs  the sheet stubs, parallel to tasks
+     * @param sheets the sheet tasks
+     * @return the list of futures, in tasks order
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<Future<Boolean>> invokeSheets (Book book,
+                                               List<SheetStub> stubs,
+                                               List<Callable<Boolean>> sheets)
+            throws InterruptedException
+    {
+        final BookJob job = getJob(book);
+        final List<Callable<Boolean>> timed = new ArrayList<Callable<Boolean>>(sheets.size());
+
+        for (int i = 0; i < sheets.size(); i++) {
+            final Callable<Boolean> sheet = sheets.get(i);
+            final int number = stubs.get(i).getNumber();
+            timed.add(
+                    new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call ()
+                        throws Exception
+                {
+                    final long start = System.currentTimeMillis();
+                    boolean ok = false;
+
+                    try {
+                        ok = sheet.call();
+
+                        return ok;
+                    } finally {
+                        if (job != null) {
+                            job.addSheet(number, start, System.currentTimeMillis(), ok);
+                        }
+                    }
+                }
+            });
+        }
+
+        return OmrExecutors.getSheetExecutor().invokeAll(timed);
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Process all tasks, admitting them one after the other as resources permit.
+     *
+     * @return true if all tasks succeeded
+     */
+    public boolean process ()
+    {
+        boolean failure = false;
+        final LinkedList<BookJob> pending = new LinkedList<BookJob>();
+
+        for (CliTask task : tasks) {
+            pending.add(new BookJob(task));
+        }
+
+        logger.info(
+                "BatchScheduler. tasks:{} sheet workers:{} heap budget:{} MB",
+                tasks.size(),
+                workers,
+                heapBudget / MB);
+
+        final CompletionService<Void> completion = new ExecutorCompletionService<Void>(
+                OmrExecutors.getCachedLowExecutor());
+        final Map<Future<Void>, BookJob> futures = new HashMap<Future<Void>, BookJob>();
+        running = this;
+
+        try {
+            while (!pending.isEmpty() || !futures.isEmpty()) {
+                // Admit as many pending jobs as possible, in order
+                for (Iterator<BookJob> it = pending.iterator(); it.hasNext();) {
+                    final BookJob job = it.next();
+
+                    if (!admit(job)) {
+                        break;
+                    }
+
+                    it.remove();
+                    futures.put(completion.submit(job), job);
+                }
+
+                // Wait for completion of one job
+                final Future<Void> future = completion.take();
+                final BookJob job = futures.remove(future);
+
+                try {
+                    future.get();
+                } catch (Exception ex) {
+                    logger.warn("Exception on {}, {}", job.task.getRadix(), ex.toString(), ex);
+                    job.failed = true;
+                    failure = true;
+                }
+
+                if (job.failed) {
+                    failedTasks.add(job.task);
+                }
+
+                release(job);
+                job.writeSummary();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("BatchScheduler interrupted", ex);
+            failure = true;
+        } finally {
+            running = null;
+        }
+
+        return !failure;
+    }
+
+    //-------//
+    // admit //
+    //-------//
+    private synchronized boolean admit (BookJob job)
+    {
+        if (!admitted.isEmpty()) {
+            if (usedSlots >= workers) {
+                return false; // All sheet workers are already fed
+            }
+
+            if ((usedHeap + job.heap) > heapBudget) {
+                return false; // Not enough memory left
+            }
+        }
+
+        admitted.add(job);
+        usedSlots += job.slots;
+        usedHeap += job.heap;
+        job.admitTime = System.currentTimeMillis();
+        logger.info(
+                "Admitting {} sheets:{} estimated:{} MB",
+                job.task,
+                job.sheetCount,
+                job.heap / MB);
+
+        return true;
+    }
+
+    //----------------//
+    // getJaxbContext //
+    //----------------//
+    private static JAXBContext getJaxbContext ()
+            throws Exception
+    {
+        // Lazy creation
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(BookSummary.class);
+        }
+
+        return jaxbContext;
+    }
+
+    //--------//
+    // getJob //
+    //--------//
+    private BookJob getJob (Book book)
+    {
+        synchronized (admitted) {
+            for (BookJob job : admitted) {
+                if (job.task.getBook() == book) {
+                    return job;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    //---------//
+    // release //
+    //---------//
+    private synchronized void release (BookJob job)
+    {
+        admitted.remove(job);
+        usedSlots -= job.slots;
+        usedHeap -= job.heap;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------------//
+    // BookSummary //
+    //-------------//
+    /**
+     * Machine-readable summary of the batch processing of one book.
+     */
+    @XmlAccessorType(XmlAccessType.NONE)
+    @XmlRootElement(name = "batch-summary")
+    public static class BookSummary
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Input file. */
+        @XmlAttribute(name = "input")
+        public String input;
+
+        /** Book radix. */
+        @XmlAttribute(name = "radix")
+        public String radix;
+
+        /** Status: ok or failed. */
+        @XmlAttribute(name = "status")
+        public String status;
+
+        /** Count of sheets, as estimated before admission. */
+        @XmlAttribute(name = "sheet-count")
+        public int sheetCount;
+
+        /** Estimated heap, in MB. */
+        @XmlAttribute(name = "estimated-mb")
+        public long estimatedMb;
+
+        /** Time spent waiting for admission, in ms. */
+        @XmlAttribute(name = "wait-ms")
+        public long waitMs;
+
+        /** Time spent processing the book, in ms. */
+        @XmlAttribute(name = "duration-ms")
+        public long durationMs;
+
+        /** Sheets processed. */
+        @XmlElement(name = "sheet")
+        public final List<SheetSummary> sheets = new ArrayList<SheetSummary>();
+    }
+
+    //--------------//
+    // SheetSummary //
+    //--------------//
+    /**
+     * Summary of the batch processing of one sheet.
+     */
+    @XmlAccessorType(XmlAccessType.NONE)
+    public static class SheetSummary
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Sheet number within book. */
+        @XmlAttribute(name = "number")
+        public int number;
+
+        /** Start time, relative to book admission, in ms. */
+        @XmlAttribute(name = "start-ms")
+        public long startMs;
+
+        /** Processing time, in ms. */
+        @XmlAttribute(name = "duration-ms")
+        public long durationMs;
+
+        /** Did sheet reach its target step?. */
+        @XmlAttribute(name = "ok")
+        public boolean ok;
+    }
+
+    //---------//
+    // BookJob //
+    //---------//
+    /**
+     * Wrapper around a CLI task, with its estimation and timings.
+     */
+    private class BookJob
+            implements Callable<Void>
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final CliTask task;
+
+        /** Estimated count of sheets. */
+        int sheetCount;
+
+        /** Sheet slots needed. */
+        final int slots;
+
+        /** Estimated heap needed, in bytes. */
+        final long heap;
+
+        /** When job was created. */
+        final long createTime = System.currentTimeMillis();
+
+        /** When job was admitted. */
+        long admitTime;
+
+        /** When job was completed. */
+        long stopTime;
+
+        /** Any failure?. */
+        volatile boolean failed;
+
+        /** Timings of processed sheets. */
+        final List<SheetSummary> sheets = new ArrayList<SheetSummary>();
+
+        //~ Constructors ---------------------------------------------------------------------------
+        BookJob (CliTask task)
+        {
+            this.task = task;
+
+            final long sheetBytes = estimateSheetBytes();
+            slots = Math.max(1, Math.min(sheetCount, workers));
+            heap = slots * sheetBytes;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public Void call ()
+                throws Exception
+        {
+            try {
+                task.call();
+            } finally {
+                stopTime = System.currentTimeMillis();
+            }
+
+            return null;
+        }
+
+        synchronized void addSheet (int number,
+                                    long start,
+                                    long stop,
+                                    boolean ok)
+        {
+            SheetSummary sheet = new SheetSummary();
+            sheet.number = number;
+            sheet.startMs = start - admitTime;
+            sheet.durationMs = stop - start;
+            sheet.ok = ok;
+            sheets.add(sheet);
+
+            if (!ok) {
+                failed = true;
+            }
+        }
+
+        /**
+         * Estimate the heap needed by one sheet, using the largest image of the input file.
+         * This also sets the count of sheets.
+         *
+         * @return the estimated heap per sheet, in bytes
+         */
+        private long estimateSheetBytes ()
+        {
+            final long defaultBytes = constants.defaultSheetHeap.getValue() * MB;
+            final String str = task.path.toString();
+            sheetCount = 1;
+
+            if (str.endsWith(OMR.BOOK_EXTENSION) || !Files.exists(task.path)) {
+                return defaultBytes;
+            }
+
+            final ImageLoading.Loader loader = ImageLoading.getLoader(task.path);
+
+            if (loader == null) {
+                return defaultBytes;
+            }
+
+            try {
+                long maxPixels = 0;
+                sheetCount = loader.getImageCount();
+
+                for (int id = 1; id <= sheetCount; id++) {
+                    Dimension dim = loader.getImageDimension(id);
+                    maxPixels = Math.max(maxPixels, (long) dim.width * dim.height);
+                }
+
+                return maxPixels * constants.heapPerPixel.getValue();
+            } catch (Exception ex) {
+                logger.warn("Could not estimate {} {}", task.path, ex.toString(), ex);
+
+                return defaultBytes;
+            } finally {
+                loader.dispose();
+            }
+        }
+
+        private void writeSummary ()
+        {
+            final BookSummary summary = new BookSummary();
+            summary.input = task.path.toString();
+            summary.radix = task.getRadix();
+            summary.status = failed ? "failed" : "ok";
+            summary.sheetCount = sheetCount;
+            summary.estimatedMb = heap / MB;
+            summary.waitMs = admitTime - createTime;
+            summary.durationMs = stopTime - admitTime;
+
+            synchronized (this) {
+                summary.sheets.addAll(sheets);
+            }
+
+            final Book book = task.getBook();
+            final Path folder = (book != null) ? BookManager.getDefaultBookFolder(book)
+                    : BookManager.getBaseFolder();
+
+            if (folder == null) {
+                return;
+            }
+
+            final String radix = (book != null) ? book.getRadix()
+                    : FileUtil.getNameSansExtension(task.path);
+            final Path path = folder.resolve(radix + SUMMARY_SUFFIX);
+
+            try {
+                Files.createDirectories(folder);
+                Files.deleteIfExists(path);
+                Jaxb.marshal(summary, path, getJaxbContext());
+                logger.info("Batch summary written to {}", path);
+            } catch (Exception ex) {
+                logger.warn("Error writing batch summary {} {}", path, ex.toString(), ex);
+            }
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Ratio heapRatio = new Constant.Ratio(
+                0.8,
+                "Ratio of free heap that can be allocated to admitted books");
+
+        private final Constant.Integer heapPerPixel = new Constant.Integer(
+                "Bytes",
+                12,
+                "Estimated heap needed per image pixel while a sheet is processed");
+
+        private final Constant.Integer defaultSheetHeap = new Constant.Integer(
+                "MB",
+                200,
+                "Estimated heap per sheet when image dimension is not known");
+    }
+}
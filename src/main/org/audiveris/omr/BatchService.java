@@ -0,0 +1,451 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    B a t c h S e r v i c e                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.CLI.CliTask;
+import org.audiveris.omr.classifier.ShapeClassifier;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.image.TemplateFactory;
+import org.audiveris.omr.step.StepMetrics;
+import org.audiveris.omr.text.Language;
+import org.audiveris.omr.text.tesseract.TesseractOCR;
+import org.audiveris.omr.ui.symbol.MusicFont;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code BatchService} runs Audiveris as a long-running service, which processes
+ * the files dropped into a watched input folder.
+ * <p>
+ * The costly elements (constants, shape classifier, template catalogs, OCR engines) are loaded
+ * once at service start, and then reused by all the following jobs.
+ * <p>
+ * A file is processed once its size is stable between two polls, using the options provided on
+ * the command line (such as -transcribe, -export, -output).
+ * When processed, the input file is moved to the "done" or "failed" sub-folder of the watched
+ * folder.
+ * <p>
+ * The service stops when a file named "STOP" is dropped into the watched folder.
+ * <p>
+ * If a metrics port is defined, step metrics are recorded and published in Prometheus text format
+ * at {@code http://host:port/metrics} while the service is running.
+ *
+ * @author Hervé Bitteur
+ */
+public class BatchService
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+
+    /** Name of sub-folder for inputs successfully processed. */
+    public static final String DONE_FOLDER = "done";
+
+    /** Name of sub-folder for inputs that failed. */
+    public static final String FAILED_FOLDER = "failed";
+
+    /** Name of file that stops the service. */
+    public static final String STOP_FILE = "STOP";
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The CLI that defines processing options. */
+    private final CLI cli;
+
+    /** The watched input folder. */
+    private final Path folder;
+
+    /** Candidate files, with their size at last poll. */
+    private final Map<Path, Long> candidates = new LinkedHashMap<Path, Long>();
+
+    /** Metrics HTTP server, if any. */
+    private HttpServer metricsServer;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code BatchService} object.
+     *
+     * @param cli the command line interface
+     */
+    public BatchService (CLI cli)
+    {
+        this.cli = cli;
+        this.folder = cli.getWatchFolder();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Run the service, until a stop file is found in the watched folder.
+     *
+     * @return true if all jobs succeeded
+     */
+    public boolean process ()
+    {
+        boolean failure = false;
+
+        try {
+            Files.createDirectories(folder.resolve(DONE_FOLDER));
+            Files.createDirectories(folder.resolve(FAILED_FOLDER));
+        } catch (IOException ex) {
+            logger.warn("Cannot use watch folder {} {}", folder, ex.toString(), ex);
+
+            return false;
+        }
+
+        warmUp();
+        startMetrics();
+
+        WatchService watcher = null;
+
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            folder.register(
+                    watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            logger.info("Service watching {}", folder);
+
+            // Files already present
+            scanFolder();
+
+            final int period = constants.pollPeriod.getValue();
+
+            while (!Files.exists(folder.resolve(STOP_FILE))) {
+                final WatchKey key = watcher.poll(period, TimeUnit.SECONDS);
+
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scanFolder();
+                        } else {
+                            addCandidate(folder.resolve((Path) event.context()));
+                        }
+                    }
+
+                    key.reset();
+                }
+
+                final List<Path> ready = getReadyFiles();
+
+                if (!ready.isEmpty() && !processFiles(ready)) {
+                    failure = true;
+                }
+            }
+
+            Files.delete(folder.resolve(STOP_FILE));
+            logger.info("Service stopped");
+        } catch (InterruptedException ex) {
+            logger.info("Service interrupted");
+        } catch (IOException ex) {
+            logger.warn("Service error {}", ex.toString(), ex);
+            failure = true;
+        } finally {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException ignored) {
+                }
+            }
+
+            stopMetrics();
+        }
+
+        return !failure;
+    }
+
+    //--------------//
+    // addCandidate //
+    //--------------//
+    private void addCandidate (Path path)
+    {
+        final String name = path.getFileName().toString();
+
+        if (name.startsWith(".") || name.equals(STOP_FILE) || Files.isDirectory(path)) {
+            return;
+        }
+
+        if (!candidates.containsKey(path)) {
+            candidates.put(path, -1L);
+        }
+    }
+
+    //---------------//
+    // getReadyFiles //
+    //---------------//
+    /**
+     * Report the candidate files whose size has not changed since the previous poll.
+     *
+     * @return the files ready for processing
+     */
+    private List<Path> getReadyFiles ()
+    {
+        final List<Path> ready = new ArrayList<Path>();
+
+        for (Iterator<Map.Entry<Path, Long>> it = candidates.entrySet().iterator();
+                it.hasNext();) {
+            final Map.Entry<Path, Long> entry = it.next();
+            final Path path = entry.getKey();
+
+            try {
+                if (!Files.exists(path)) {
+                    it.remove();
+
+                    continue;
+                }
+
+                final long size = Files.size(path);
+
+                if ((size > 0) && (size == entry.getValue())) {
+                    ready.add(path);
+                    it.remove();
+                } else {
+                    entry.setValue(size);
+                }
+            } catch (IOException ex) {
+                logger.warn("Cannot check {} {}", path, ex.toString());
+                it.remove();
+            }
+        }
+
+        return ready;
+    }
+
+    //------//
+    // move //
+    //------//
+    private void move (Path path,
+                       String subFolder)
+    {
+        try {
+            Files.move(
+                    path,
+                    folder.resolve(subFolder).resolve(path.getFileName()),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            logger.warn("Cannot move {} to {} {}", path, subFolder, ex.toString());
+        }
+    }
+
+    //--------------//
+    // processFiles //
+    //--------------//
+    /**
+     * Process the provided input files, through the batch scheduler if so desired.
+     *
+     * @param paths the input files
+     * @return true if all succeeded
+     */
+    private boolean processFiles (List<Path> paths)
+    {
+        final List<CliTask> tasks = cli.getCliTasks(paths);
+        final List<CliTask> failed = new ArrayList<CliTask>();
+        logger.info("Service processing {} file(s)", tasks.size());
+
+        if (Main.useBatchScheduler()) {
+            final BatchScheduler scheduler = new BatchScheduler(tasks);
+            scheduler.process();
+            failed.addAll(scheduler.getFailedTasks());
+        } else {
+            for (CliTask task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception ex) {
+                    logger.warn("Exception on {}, {}", task.getRadix(), ex.toString(), ex);
+                    failed.add(task);
+                }
+            }
+        }
+
+        for (CliTask task : tasks) {
+            move(task.path, failed.contains(task) ? FAILED_FOLDER : DONE_FOLDER);
+        }
+
+        return failed.isEmpty();
+    }
+
+    //------------//
+    // scanFolder //
+    //------------//
+    private void scanFolder ()
+            throws IOException
+    {
+        final DirectoryStream<Path> stream = Files.newDirectoryStream(folder);
+
+        try {
+            for (Path path : stream) {
+                addCandidate(path);
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    //--------------//
+    // startMetrics //
+    //--------------//
+    /**
+     * If a metrics port is defined, force metrics recording and publish them over HTTP.
+     */
+    private void startMetrics ()
+    {
+        final int port = constants.metricsPort.getValue();
+
+        if (port <= 0) {
+            return;
+        }
+
+        StepMetrics.setForced(true);
+
+        try {
+            metricsServer = HttpServer.create(new InetSocketAddress(port), 0);
+            metricsServer.createContext(
+                    "/metrics",
+                    new HttpHandler()
+            {
+                @Override
+                public void handle (HttpExchange exchange)
+                        throws IOException
+                {
+                    final byte[] bytes = StepMetrics.toPrometheus().getBytes(
+                            StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set(
+                            "Content-Type",
+                            "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, bytes.length);
+
+                    final OutputStream os = exchange.getResponseBody();
+
+                    try {
+                        os.write(bytes);
+                    } finally {
+                        os.close();
+                    }
+                }
+            });
+            metricsServer.start();
+            logger.info("Service metrics published on port {}", port);
+        } catch (IOException ex) {
+            logger.warn("Cannot publish metrics on port {} {}", port, ex.toString());
+            metricsServer = null;
+        }
+    }
+
+    //-------------//
+    // stopMetrics //
+    //-------------//
+    private void stopMetrics ()
+    {
+        if (metricsServer != null) {
+            metricsServer.stop(0);
+            metricsServer = null;
+        }
+
+        StepMetrics.setForced(false);
+    }
+
+    //--------//
+    // warmUp //
+    //--------//
+    /**
+     * Load once for all the material shared by all jobs.
+     */
+    private void warmUp ()
+    {
+        final long start = System.currentTimeMillis();
+
+        // Shape classifier
+        ShapeClassifier.getInstance();
+
+        // Template catalogs for usual interline values
+        final TemplateFactory factory = TemplateFactory.getInstance();
+
+        for (int interline = constants.minWarmInterline.getValue();
+                interline <= constants.maxWarmInterline.getValue(); interline++) {
+            factory.getCatalog(MusicFont.getPointSize(interline));
+        }
+
+        // OCR engine for default languages
+        TesseractOCR.getInstance().warmUp(Language.ocrDefaultLanguages.getValue());
+
+        logger.info("Service warmed up in {} ms", System.currentTimeMillis() - start);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer pollPeriod = new Constant.Integer(
+                "Seconds",
+                2,
+                "Period for polling the watched folder");
+
+        private final Constant.Integer minWarmInterline = new Constant.Integer(
+                "Pixels",
+                16,
+                "Minimum interline for template catalogs built at service start");
+
+        private final Constant.Integer maxWarmInterline = new Constant.Integer(
+                "Pixels",
+                24,
+                "Maximum interline for template catalogs built at service start");
+
+        private final Constant.Integer metricsPort = new Constant.Integer(
+                "Port",
+                0,
+                "HTTP port for Prometheus metrics (0 for no metrics)");
+    }
+}
@@ -110,11 +110,26 @@ public class CLI
      * @return the collection of tasks
      */
     public List<CliTask> getCliTasks ()
+    {
+        return getCliTasks(params.arguments);
+    }
+
+    //-------------//
+    // getCliTasks //
+    //-------------//
+    /**
+     * Prepare the collection of CLI tasks for the provided paths, using the options
+     * of this CLI.
+     *
+     * @param paths the paths to inputs, books or samples
+     * @return the collection of tasks
+     */
+    public List<CliTask> getCliTasks (List<Path> paths)
     {
         List<CliTask> tasks = new ArrayList<CliTask>();
 
         // Task kind is fully determined by argument extension
-        for (Path argument : params.arguments) {
+        for (Path argument : paths) {
             String str = argument.toString().trim().replace('\\', '/');
 
             if (!str.isEmpty()) {
@@ -164,17 +179,31 @@ public class CLI
         return params.outputFolder;
     }
 
+    //----------------//
+    // getWatchFolder //
+    //----------------//
+    /**
+     * Report the input folder to watch, if present on the CLI.
+     *
+     * @return the watched folder, or null
+     */
+    public Path getWatchFolder ()
+    {
+        return params.watchFolder;
+    }
+
     //-------------//
     // isBatchMode //
     //-------------//
     /**
      * Report whether we are running in batch (that is with no UI).
+     * Service mode (watching an input folder) implies batch.
      *
      * @return true for batch mode
      */
     public boolean isBatchMode ()
     {
-        return params.batchMode;
+        return params.batchMode || (params.watchFolder != null);
     }
 
     //------------//
@@ -321,6 +350,9 @@ public class CLI
         /** Radix. */
         private final String radix;
 
+        /** Book instance, once loaded. */
+        private volatile Book book;
+
         //~ Constructors ---------------------------------------------------------------------------
         public CliTask (Path path)
         {
@@ -344,7 +376,7 @@ public class CLI
             }
 
             // Obtain the book instance
-            final Book book = loadBook(path);
+            book = loadBook(path);
 
             if (book != null) {
                 processBook(book); // Process the book instance
@@ -353,6 +385,16 @@ public class CLI
             return null;
         }
 
+        /**
+         * Report the book instance, once it has been loaded by this task.
+         *
+         * @return the loaded book, or null
+         */
+        public Book getBook ()
+        {
+            return book;
+        }
+
         /**
          * @return the radix
          */
@@ -556,6 +598,10 @@ public class CLI
         @Option(name = "-transcribe", usage = "Transcribe whole book")
         boolean transcribe;
 
+        /** Input folder to watch, in service mode. */
+        @Option(name = "-watch", usage = "Run as a service on files dropped in input folder", metaVar = "<input-folder>")
+        Path watchFolder;
+
         /** Optional "--" separator. */
         @Argument
         @Option(name = "--", handler = StopOptionHandler.class)
@@ -152,7 +152,9 @@ public class Main
             MusicFont.checkMusicFont();
 
             // Run the required tasks, if any (and remember if at least one task failed)
-            boolean failure = runBatchTasks();
+            // Service on a watched folder, or plain tasks from CLI?
+            boolean failure = (cli.getWatchFolder() != null) ? !new BatchService(cli).process()
+                    : runBatchTasks();
 
             // At this point all tasks have completed (except timeout...)
             // So shutdown gracefully the executors
@@ -201,6 +203,19 @@ public class Main
         return constants.processSystemsInParallel.isSet();
     }
 
+    //-------------------//
+    // useBatchScheduler //
+    //-------------------//
+    /**
+     * Report whether batch tasks are driven by the resource-aware {@link BatchScheduler}.
+     *
+     * @return true if so
+     */
+    public static boolean useBatchScheduler ()
+    {
+        return constants.useBatchScheduler.isSet();
+    }
+
     //----------------------//
     // saveSheetOnEveryStep //
     //----------------------//
@@ -283,8 +298,12 @@ public class Main
         final List<CliTask> tasks = cli.getCliTasks();
 
         if (!tasks.isEmpty()) {
-            // Run all tasks in parallel? (or one task at a time)
-            if (constants.runBatchTasksInParallel.isSet()) {
+            // Run tasks through resource-aware scheduler?
+            // Or run all tasks in parallel? (or one task at a time)
+            if (useBatchScheduler()) {
+                logTasks(tasks, true);
+                failure = !new BatchScheduler(tasks).process();
+            } else if (constants.runBatchTasksInParallel.isSet()) {
                 try {
                     logTasks(tasks, true);
 
@@ -373,6 +392,10 @@ public class Main
                 false,
                 "Should we process all tasks in parallel when running in batch?");
 
+        private final Constant.Boolean useBatchScheduler = new Constant.Boolean(
+                false,
+                "Should we admit batch tasks according to CPU & heap, with sheets interleaved?");
+
         private final Constant.Boolean processSystemsInParallel = new Constant.Boolean(
                 false,
                 "Should we process all systems in parallel in a sheet?");
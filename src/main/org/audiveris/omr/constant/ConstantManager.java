@@ -41,7 +41,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -192,6 +194,53 @@ public class ConstantManager
         return userHolder.getProperty(qName);
     }
 
+    //------------------//
+    // getAlteredValues //
+    //------------------//
+    /**
+     * Report the constant values that may differ from their source default.
+     * <p>
+     * These are the values defined at CLI level or in USER properties, plus the values of the
+     * constants modified at run time.
+     * The result does not depend on which constants have already been registered.
+     *
+     * @return the sorted map of qualified names and string values
+     */
+    public SortedMap<String, String> getAlteredValues ()
+    {
+        final SortedMap<String, String> map = new TreeMap<String, String>();
+
+        for (String key : userHolder.getKeys()) {
+            map.put(key, userHolder.getProperty(key));
+        }
+
+        final CLI cli = Main.getCli();
+
+        if (cli != null) {
+            final Properties cliConstants = cli.getOptions();
+
+            if (cliConstants != null) {
+                for (String key : cliConstants.stringPropertyNames()) {
+                    map.put(key, cliConstants.getProperty(key));
+                }
+            }
+        }
+
+        // Modifications at run time
+        for (Constant constant : constants.values()) {
+            final String qName = constant.getQualifiedName();
+            final String value = constant.getStringValue();
+            final String initial = map.containsKey(qName) ? map.get(qName)
+                    : constant.getSourceString();
+
+            if (!value.equals(initial)) {
+                map.put(qName, value);
+            }
+        }
+
+        return map;
+    }
+
     //-------------//
     // getInstance //
     //-------------//
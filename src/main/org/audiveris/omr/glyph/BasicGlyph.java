@@ -29,6 +29,7 @@ import org.audiveris.omr.math.LineUtil;
 import org.audiveris.omr.math.PointsCollector;
 import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.GeometricSums;
 import org.audiveris.omr.run.Orientation;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.run.Run;
@@ -47,6 +48,7 @@ import java.awt.geom.Point2D;
 import java.util.Iterator;
 import java.util.Objects;
 
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -100,6 +102,9 @@ public class BasicGlyph
     /** Computed geometric Moments. */
     protected GeometricMoments geoMoments;
 
+    /** Computed (or provided) geometric sums. */
+    protected GeometricSums geoSums;
+
     /** Mass center coordinates. */
     protected Point centroid;
 
@@ -132,7 +137,7 @@ public class BasicGlyph
 
         ///Objects.requireNonNull(runTable, "BasicGlyph created with null runTable");
         // NOTA: We must accept null RunTable for the Sample no-arg constructor
-        this.runTable = runTable;
+        this.runTable = (runTable != null) ? runTable.intern() : null;
     }
 
     /**
@@ -276,12 +281,22 @@ public class BasicGlyph
     public GeometricMoments getGeometricMoments (int interline)
     {
         if (geoMoments == null) {
-            geoMoments = runTable.computeGeometricMoments(left, top, interline);
+            geoMoments = new GeometricMoments(getGeometricSums(), interline);
         }
 
         return geoMoments;
     }
 
+    @Override
+    public GeometricSums getGeometricSums ()
+    {
+        if (geoSums == null) {
+            geoSums = runTable.computeGeometricSums(left, top);
+        }
+
+        return geoSums;
+    }
+
     @Override
     public int getHeight ()
     {
@@ -550,6 +565,21 @@ public class BasicGlyph
         return sb.toString();
     }
 
+    //------------------//
+    // setGeometricSums //
+    //------------------//
+    /**
+     * (package private) Assign the geometric sums, when they are known in advance.
+     * <p>
+     * This is meant for a compound glyph, whose sums are the sum of its parts sums.
+     *
+     * @param geoSums the glyph geometric sums
+     */
+    void setGeometricSums (GeometricSums geoSums)
+    {
+        this.geoSums = geoSums;
+    }
+
     //-----------//
     // internals //
     //-----------//
@@ -570,6 +600,23 @@ public class BasicGlyph
         return sb.toString();
     }
 
+    //----------------//
+    // afterUnmarshal //
+    //----------------//
+    /**
+     * Called after all the properties (except IDREF) are unmarshalled for this object,
+     * but before this object is set to the parent object.
+     * We share the small run sequences, as for a newly created glyph.
+     */
+    @SuppressWarnings("unused")
+    private void afterUnmarshal (Unmarshaller um,
+                                 Object parent)
+    {
+        if (runTable != null) {
+            runTable.intern();
+        }
+    }
+
     //-----------//
     // checkLine //
     //-----------//
@@ -22,6 +22,7 @@
 package org.audiveris.omr.glyph;
 
 import org.audiveris.omr.glyph.GlyphGroup;
+import org.audiveris.omr.moments.GeometricSums;
 
 import org.jgrapht.Graphs;
 import org.jgrapht.graph.SimpleGraph;
@@ -31,10 +32,14 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -63,6 +68,12 @@ public class GlyphCluster
     /** Group, if any, to be assigned to created glyphs. */
     private final GlyphGroup group;
 
+    /** Bit index assigned to each part. */
+    private final Map<Glyph, Integer> partIndices = new HashMap<Glyph, Integer>();
+
+    /** Combinations of parts already visited. */
+    private final Set<BitSet> visited = new HashSet<BitSet>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new Cluster object, with an adapter to the environment.
@@ -138,7 +149,7 @@ public class GlyphCluster
         ///logger.debug("Decomposing {}", Glyphs.ids("cluster", seeds));
         for (Glyph seed : seeds) {
             considered.add(seed);
-            process(Collections.singleton(seed), considered);
+            process(new Subset(seed, indexOf(seed)), considered);
         }
     }
 
@@ -163,18 +174,39 @@ public class GlyphCluster
     }
 
     /**
-     * Process the provided set of parts.
+     * Report the bit index assigned to the provided part.
+     *
+     * @param part the provided part
+     * @return the part index
+     */
+    private int indexOf (Glyph part)
+    {
+        Integer index = partIndices.get(part);
+
+        if (index == null) {
+            partIndices.put(part, index = partIndices.size());
+        }
+
+        return index;
+    }
+
+    /**
+     * Process the provided subset of parts.
+     * <p>
+     * The compound glyph is built only when the subset aggregates pass the cheap checks on weight
+     * and bounds, and only once per distinct combination of parts.
      *
-     * @param parts (read only) the set of current parts
-     * @param seen  (read only) all parts considered so far (current parts plus discarded ones)
+     * @param subset (read only) the subset of current parts
+     * @param seen   (read only) all parts considered so far (current parts plus discarded ones)
      */
-    private void process (Set<Glyph> parts,
+    private void process (Subset subset,
                           Set<Glyph> seen)
     {
+        final Set<Glyph> parts = subset.parts;
         ///logger.debug(" {} {} {}", set.size(), Glyphs.ids("set", set), Glyphs.ids("seen", seen));
 
         // Check what we have got
-        final int weight = Glyphs.weightOf(parts);
+        final int weight = subset.weight;
 
         if (adapter.isTooHeavy(weight)) {
             logger.debug("Too high weight {} for {}", weight, parts);
@@ -182,18 +214,31 @@ public class GlyphCluster
             return;
         }
 
-        Rectangle box = Glyphs.getBounds(parts);
+        final Rectangle setBox = subset.bounds;
 
-        if (adapter.isTooLarge(box)) {
-            logger.debug("Too large  {} for {}", box, parts);
+        if (adapter.isTooLarge(setBox)) {
+            logger.debug("Too large  {} for {}", setBox, parts);
 
             return;
         }
 
-        if (!adapter.isTooLight(weight)) {
+        if (!visited.add(subset.members)) {
+            logger.debug("Already visited {}", parts);
+        } else if (!adapter.isTooLight(weight)) {
             // Build compound and get acceptable evaluations for the compound
-            Glyph compound = (parts.size() > 1) ? GlyphFactory.buildGlyph(parts)
-                    : parts.iterator().next();
+            final Glyph compound;
+
+            if (parts.size() > 1) {
+                compound = GlyphFactory.buildGlyph(parts);
+
+                if (compound instanceof BasicGlyph) {
+                    // Compound moments are derived from parts sums, no need to collect points
+                    ((BasicGlyph) compound).setGeometricSums(subset.sums);
+                }
+            } else {
+                compound = parts.iterator().next();
+            }
+
             compound.addGroup(group);
 
             // Create all acceptable inters, if any, for the compound
@@ -211,7 +256,6 @@ public class GlyphCluster
         }
 
         ///logger.debug("      {}", Glyphs.ids("outliers", outliers));
-        Rectangle setBox = Glyphs.getBounds(parts);
         Set<Glyph> newConsidered = new LinkedHashSet<Glyph>(seen);
 
         for (Glyph outlier : outliers) {
@@ -221,9 +265,7 @@ public class GlyphCluster
             Rectangle symBox = outlier.getBounds().union(setBox);
 
             if (!adapter.isTooLarge(symBox)) {
-                Set<Glyph> largerSet = new LinkedHashSet<Glyph>(parts);
-                largerSet.add(outlier);
-                process(largerSet, newConsidered);
+                process(subset.grow(outlier, indexOf(outlier)), newConsidered);
             }
         }
     }
@@ -373,4 +415,72 @@ public class GlyphCluster
             return false;
         }
     }
+
+    //--------//
+    // Subset //
+    //--------//
+    /**
+     * A subset of parts, with its aggregated weight, bounds and geometric sums.
+     * <p>
+     * Aggregates are computed incrementally when the subset grows by one part.
+     */
+    private static class Subset
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Parts in subset. */
+        final Set<Glyph> parts;
+
+        /** Index of each member part. */
+        final BitSet members;
+
+        /** Total weight. */
+        final int weight;
+
+        /** Union of parts bounds. */
+        final Rectangle bounds;
+
+        /** Sums of parts pixel coordinates. */
+        final GeometricSums sums;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Subset (Glyph part,
+                int index)
+        {
+            parts = Collections.singleton(part);
+            members = new BitSet();
+            members.set(index);
+            weight = part.getWeight();
+            bounds = part.getBounds();
+            sums = part.getGeometricSums();
+        }
+
+        private Subset (Subset base,
+                        Glyph part,
+                        int index)
+        {
+            parts = new LinkedHashSet<Glyph>(base.parts);
+            parts.add(part);
+            members = (BitSet) base.members.clone();
+            members.set(index);
+            weight = base.weight + part.getWeight();
+            bounds = base.bounds.union(part.getBounds());
+            sums = new GeometricSums(base.sums);
+            sums.include(part.getGeometricSums());
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report a new subset made of this subset plus the provided part.
+         *
+         * @param part  the additional part
+         * @param index bit index of additional part
+         * @return the larger subset
+         */
+        Subset grow (Glyph part,
+                     int index)
+        {
+            return new Subset(this, part, index);
+        }
+    }
 }
@@ -31,7 +31,9 @@ import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.run.RunTableFactory;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.ByteUtil;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +47,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code GlyphFactory} builds a collection of glyphs out of a provided {@link
@@ -55,6 +59,11 @@ import java.util.Map.Entry;
  * <p>
  * Comments refer to 'sequences', which are synonymous of columns for vertical runs, and of rows
  * for horizontal runs.
+ * <p>
+ * A large table is labeled by bands of consecutive sequences, processed in parallel, each band
+ * using its own range of marks.
+ * Marks of runs connected across a band boundary are then merged, to end up with the same glyphs,
+ * in the same order, as a single scan of the whole table.
  *
  * @author Hervé Bitteur
  */
@@ -64,6 +73,9 @@ public class GlyphFactory
 
     private static final Logger logger = LoggerFactory.getLogger(GlyphFactory.class);
 
+    /** Minimum number of sequences in a band labeled in parallel. */
+    private static final int MIN_BAND_SIZE = 128;
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Source runs. */
     private final RunTable runTable;
@@ -80,6 +92,9 @@ public class GlyphFactory
     /** Global id to assign glyph marks. */
     private int globalMark;
 
+    /** Bands of sequences, labeled separately. */
+    private final List<Band> bands = new ArrayList<Band>();
+
     /** Specific run table implementation, meant for marking runs. */
     private final List<List<MarkedRun>> markedTable;
 
@@ -92,7 +107,8 @@ public class GlyphFactory
     //~ Constructors -------------------------------------------------------------------------------
     private GlyphFactory (RunTable runTable,
                           Point offset,
-                          GlyphGroup group)
+                          GlyphGroup group,
+                          int bandCount)
     {
         this.runTable = runTable;
         this.offset = (offset != null) ? offset : new Point(0, 0);
@@ -104,6 +120,11 @@ public class GlyphFactory
         for (int iseq = 0, size = runTable.getSize(); iseq < size; iseq++) {
             markedTable.add(new ArrayList<MarkedRun>());
         }
+
+        // Split sequences into bands
+        for (int b = 0, size = runTable.getSize(); b < bandCount; b++) {
+            bands.add(new Band((b * size) / bandCount, ((b + 1) * size) / bandCount));
+        }
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -144,7 +165,7 @@ public class GlyphFactory
     public static List<Glyph> buildGlyphs (RunTable runTable,
                                            Point offset)
     {
-        return new GlyphFactory(runTable, offset, null).process();
+        return buildGlyphs(runTable, offset, null);
     }
 
     //-------------//
@@ -162,7 +183,34 @@ public class GlyphFactory
                                            Point offset,
                                            GlyphGroup group)
     {
-        return new GlyphFactory(runTable, offset, group).process();
+        final int bandCount = OmrExecutors.defaultParallelism.getValue()
+                ? Math.max(
+                        1,
+                        Math.min(OmrExecutors.getNumberOfCpus(), runTable.getSize() / MIN_BAND_SIZE))
+                : 1;
+
+        return buildGlyphs(runTable, offset, group, bandCount);
+    }
+
+    //-------------//
+    // buildGlyphs //
+    //-------------//
+    /**
+     * Create a collection of glyphs out of the provided RunTable, using the specified number
+     * of bands.
+     *
+     * @param runTable  the source table of runs
+     * @param offset    offset of runTable WRT absolute origin
+     * @param group     targeted group, if any
+     * @param bandCount number of bands of sequences
+     * @return the list of glyphs created
+     */
+    static List<Glyph> buildGlyphs (RunTable runTable,
+                                    Point offset,
+                                    GlyphGroup group,
+                                    int bandCount)
+    {
+        return new GlyphFactory(runTable, offset, group, bandCount).process();
     }
 
     /**
@@ -183,20 +231,22 @@ public class GlyphFactory
             }
         }
 
-        // Dispatch each run to its proper glyph buffer
-        for (int iSeq = 0, size = runTable.getSize(); iSeq < size; iSeq++) {
-            final List<MarkedRun> seq = markedTable.get(iSeq);
+        // Dispatch each run to its proper glyph buffer (run marks are relative to their band)
+        for (Band band : bands) {
+            for (int iSeq = band.start; iSeq < band.stop; iSeq++) {
+                final List<MarkedRun> seq = markedTable.get(iSeq);
 
-            for (MarkedRun run : seq) {
-                final int ancestor = lut[run.getMark()];
-                final List<Sequence> buf = bufs.get(ancestor);
+                for (MarkedRun run : seq) {
+                    final int ancestor = lut[band.offset + run.getMark()];
+                    final List<Sequence> buf = bufs.get(ancestor);
 
-                if (buf.isEmpty() || (buf.get(buf.size() - 1).iSeq != iSeq)) {
-                    buf.add(new Sequence(iSeq));
-                }
+                    if (buf.isEmpty() || (buf.get(buf.size() - 1).iSeq != iSeq)) {
+                        buf.add(new Sequence(iSeq));
+                    }
 
-                final Sequence bufSeq = buf.get(buf.size() - 1);
-                bufSeq.runs.add(run);
+                    final Sequence bufSeq = buf.get(buf.size() - 1);
+                    bufSeq.runs.add(run);
+                }
             }
         }
 
@@ -286,21 +336,57 @@ public class GlyphFactory
      * Remember that runs marked with 'max' or 'min' values belong to the same glyph.
      * This equivalence is recorded only in the max => min direction.
      *
-     * @param max the larger mark value
-     * @param min the smaller mark value
+     * @param merges the merges to update
+     * @param max    the larger mark value
+     * @param min    the smaller mark value
      */
-    private void merge (int max,
-                        int min)
+    private static void merge (Map<Integer, Integer> merges,
+                               int max,
+                               int min)
     {
         Integer old = merges.get(max);
 
         if (old == null) {
             merges.put(max, min); // Target is max=>min
         } else if (min > old) { // Target is max=>min---old
-            merge(min, old);
+            merge(merges, min, old);
             merges.put(max, min);
         } else if (old != min) {
-            merge(old, min); // Target is max=>old---min
+            merge(merges, old, min); // Target is max=>old---min
+        }
+    }
+
+    /**
+     * Merge the marks of runs connected across the boundary between two consecutive bands.
+     *
+     * @param prevBand the band above the boundary
+     * @param band     the band below the boundary
+     */
+    private void link (Band prevBand,
+                       Band band)
+    {
+        final List<MarkedRun> prevSeq = markedTable.get(band.start - 1);
+        final List<MarkedRun> nextSeq = markedTable.get(band.start);
+        final int maxPIdx = prevSeq.size() - 1;
+        int pIdxActive = 0; // Active run index in prev sequence
+
+        for (MarkedRun nextRun : nextSeq) {
+            for (int pIdx = pIdxActive; pIdx <= maxPIdx; pIdx++) {
+                final MarkedRun prevRun = prevSeq.get(pIdx);
+
+                if (prevRun.getStart() > nextRun.getStop()) {
+                    break;
+                }
+
+                if (prevRun.getStop() >= nextRun.getStart()) {
+                    // Any mark of band is larger than any mark of prevBand
+                    merge(
+                            merges,
+                            band.offset + nextRun.getMark(),
+                            prevBand.offset + prevRun.getMark());
+                    pIdxActive = pIdx;
+                }
+            }
         }
     }
 
@@ -335,62 +421,155 @@ public class GlyphFactory
      * Populate the 'markedTable', a temporary representation of runs with their
      * connectivity recorded in 'merges'.
      * <p>
-     * Browse the sequences of the input run table, detect run overlap from one sequence to the
-     * next, and flag each run with proper glyph mark.
+     * Bands are scanned independently, in parallel if there are several bands.
+     * Each band is then assigned an offset for its marks, and band boundaries are linked.
      */
     private void scanTable ()
     {
-        // Scan each pair of consecutive sequences
-        for (int iSeq = 0, size = runTable.getSize(); iSeq < size; iSeq++) {
-            final List<MarkedRun> prevSeq = (iSeq > 0) ? markedTable.get(iSeq - 1) : null;
-            final List<MarkedRun> nextSeq = markedTable.get(iSeq);
-            final int maxPIdx = (iSeq > 0) ? (prevSeq.size() - 1) : (-1);
-            int pIdxActive = 0; // Active run index in prev sequence
-
-            for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext();) {
-                // Allocate the MarkedRun that corresponds to current Run
-                final Run run = it.next();
-                final int nextStart = run.getStart();
-                final int nextStop = run.getStop();
-                final MarkedRun nextRun = new MarkedRun(nextStart, run.getLength(), 0);
-                nextSeq.add(nextRun);
-
-                // Browse marked runs from previous sequence
-                for (int pIdx = pIdxActive; pIdx <= maxPIdx; pIdx++) {
-                    final MarkedRun prevRun = prevSeq.get(pIdx);
-
-                    if (prevRun.getStart() > nextStop) {
-                        break;
-                    }
+        if (bands.size() > 1) {
+            try {
+                final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(bands.size());
+
+                for (final Band band : bands) {
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            band.scan();
+
+                            return null;
+                        }
+                    });
+                }
+
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Glyph labeling got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in glyph labeling", ex);
+                throw new RuntimeException(ex);
+            }
+        } else {
+            bands.get(0).scan();
+        }
 
-                    if (prevRun.getStop() >= nextStart) {
-                        final int prevMark = prevRun.getMark();
-                        final int nextMark = nextRun.getMark();
+        // Make band marks global
+        Band prevBand = null;
 
-                        if (nextMark == 0) {
-                            nextRun.setMark(prevMark);
-                        } else {
-                            final int min = Math.min(prevMark, nextMark);
-                            final int max = Math.max(prevMark, nextMark);
+        for (Band band : bands) {
+            band.offset = globalMark;
+            globalMark += band.markCount;
 
-                            if (min != max) {
-                                merge(max, min); // Record equivalence between these 2 marks
-                            }
+            for (Entry<Integer, Integer> entry : band.merges.entrySet()) {
+                merges.put(band.offset + entry.getKey(), band.offset + entry.getValue());
+            }
+
+            if (band.start < band.stop) {
+                if (prevBand != null) {
+                    link(prevBand, band);
+                }
+
+                prevBand = band;
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------//
+    // Band //
+    //------//
+    /**
+     * A range of consecutive sequences, labeled independently of the other bands.
+     * Marks of this band start from 1, they are made global by adding the band offset.
+     */
+    private class Band
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int start; // Index of first sequence in band
+
+        final int stop; // Index past last sequence in band
+
+        final Map<Integer, Integer> merges = new HashMap<Integer, Integer>(); // Band merges
+
+        int markCount; // Number of marks used in band
+
+        int offset; // Offset of band marks in global marks
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Band (int start,
+                     int stop)
+        {
+            this.start = start;
+            this.stop = stop;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Browse the sequences of the band, detect run overlap from one sequence to the
+         * next, and flag each run with proper glyph mark.
+         */
+        void scan ()
+        {
+            // Scan each pair of consecutive sequences
+            for (int iSeq = start; iSeq < stop; iSeq++) {
+                final List<MarkedRun> prevSeq = (iSeq > start) ? markedTable.get(iSeq - 1) : null;
+                final List<MarkedRun> nextSeq = markedTable.get(iSeq);
+                final int maxPIdx = (iSeq > start) ? (prevSeq.size() - 1) : (-1);
+                int pIdxActive = 0; // Active run index in prev sequence
+
+                for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext();) {
+                    // Allocate the MarkedRun that corresponds to current Run
+                    final Run run = it.next();
+                    final int nextStart = run.getStart();
+                    final int nextStop = run.getStop();
+                    final MarkedRun nextRun = new MarkedRun(nextStart, run.getLength(), 0);
+                    nextSeq.add(nextRun);
+
+                    // Browse marked runs from previous sequence
+                    for (int pIdx = pIdxActive; pIdx <= maxPIdx; pIdx++) {
+                        final MarkedRun prevRun = prevSeq.get(pIdx);
+
+                        if (prevRun.getStart() > nextStop) {
+                            break;
                         }
 
-                        pIdxActive = pIdx;
+                        if (prevRun.getStop() >= nextStart) {
+                            final int prevMark = prevRun.getMark();
+                            final int nextMark = nextRun.getMark();
+
+                            if (nextMark == 0) {
+                                nextRun.setMark(prevMark);
+                            } else {
+                                final int min = Math.min(prevMark, nextMark);
+                                final int max = Math.max(prevMark, nextMark);
+
+                                if (min != max) {
+                                    merge(merges, max, min); // Record equivalence of 2 marks
+                                }
+                            }
+
+                            pIdxActive = pIdx;
+                        }
                     }
-                }
 
-                // No overlap found, hence use a new mark
-                if (nextRun.getMark() == 0) {
-                    nextRun.setMark(++globalMark);
+                    // No overlap found, hence use a new mark
+                    if (nextRun.getMark() == 0) {
+                        nextRun.setMark(++markCount);
+                    }
                 }
             }
         }
     }
 
-    //~ Inner Classes ------------------------------------------------------------------------------
     //----------//
     // Sequence //
     //----------//
@@ -44,9 +44,11 @@ import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -57,6 +59,16 @@ import javax.xml.bind.annotation.XmlRootElement;
 
 /**
  * Class {@code GlyphIndex} implements an index of (weak references to) Glyph instances.
+ * <p>
+ * Registration of original glyphs is thread-safe without a global lock: glyphs are dispatched on
+ * a set of lock stripes according to their hash code, so that equal glyphs are always checked
+ * under the same lock while unrelated glyphs can be registered concurrently.
+ * <p>
+ * When systems are processed in parallel, each system can draw glyph ids from its own reserved
+ * block (see {@link #reserveIdBlocks(int)}), so that ids do not depend on thread scheduling.
+ * <p>
+ * Glyphs no longer referenced by sheet structure are explicitly swept out of the index (see
+ * {@link #sweep(Collection)}), at the end of each step and before the sheet is stored.
  *
  * @author Hervé Bitteur
  */
@@ -72,6 +84,9 @@ public class GlyphIndex
     private static final Logger logger = LoggerFactory.getLogger(
             GlyphIndex.class);
 
+    /** Number of lock stripes for registration (a power of 2). */
+    private static final int STRIPE_COUNT = 64;
+
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -94,12 +109,24 @@ public class GlyphIndex
     /** Selection service, if any. */
     private EntityService<Glyph> glyphService;
 
+    /** Count of registrations that found an original glyph. */
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    /** Count of registrations of brand new glyphs. */
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    /** Lock stripes for registration. */
+    private final Object[] stripes = new Object[STRIPE_COUNT];
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code GlyphIndex} object.
      */
     public GlyphIndex ()
     {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Object();
+        }
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -177,6 +204,32 @@ public class GlyphIndex
         return weakIndex.getLastId();
     }
 
+    //-------------//
+    // getHitCount //
+    //-------------//
+    /**
+     * Report how many registrations have reused an original glyph.
+     *
+     * @return count of hits
+     */
+    public int getHitCount ()
+    {
+        return hitCount.get();
+    }
+
+    //--------------//
+    // getMissCount //
+    //--------------//
+    /**
+     * Report how many registrations have created a brand new glyph.
+     *
+     * @return count of misses
+     */
+    public int getMissCount ()
+    {
+        return missCount.get();
+    }
+
     //---------//
     // getName //
     //---------//
@@ -331,23 +384,47 @@ public class GlyphIndex
      * @param glyph the glyph to check
      * @return the original one if any, otherwise this glyph
      */
-    public synchronized Glyph registerOriginal (Glyph glyph)
+    public Glyph registerOriginal (Glyph glyph)
     {
-        WeakGlyph weak = new WeakGlyph(glyph);
-        WeakGlyph orgWeak = originals.putIfAbsent(weak, weak);
-        Glyph orgGlyph = (orgWeak != null) ? orgWeak.get() : null;
+        final WeakGlyph weak = new WeakGlyph(glyph);
+        final int hash = weak.hashCode();
 
-        if (orgGlyph == null) {
-            privateRegister(glyph);
+        synchronized (stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)]) {
+            final WeakGlyph orgWeak = originals.get(weak);
+            final Glyph orgGlyph = (orgWeak != null) ? orgWeak.get() : null;
 
-            return glyph;
-        } else {
-            logger.debug("Reuse original {}", orgGlyph);
+            if (orgGlyph == null) {
+                missCount.incrementAndGet();
+                originals.put(weak, weak);
+                privateRegister(glyph);
 
-            return orgGlyph;
+                return glyph;
+            } else {
+                hitCount.incrementAndGet();
+                logger.debug("Reuse original {}", orgGlyph);
+
+                return orgGlyph;
+            }
         }
     }
 
+    //-----------------//
+    // reserveIdBlocks //
+    //-----------------//
+    /**
+     * Reserve a sequence of id blocks, typically one per system processed in parallel.
+     * <p>
+     * A thread that has entered a block gets its glyph ids from this block, in sequence.
+     * If the block gets exhausted, ids are taken from the common generator.
+     *
+     * @param count number of blocks
+     * @return the reserved blocks
+     */
+    public IdBlocks reserveIdBlocks (int count)
+    {
+        return new IdBlocks(count, constants.idBlockSize.getValue());
+    }
+
     //--------//
     // remove //
     //--------//
@@ -401,6 +478,45 @@ public class GlyphIndex
         weakIndex.setLastId(lastId);
     }
 
+    //-------//
+    // sweep //
+    //-------//
+    /**
+     * Remove from this index the glyphs which are no longer referenced.
+     * <p>
+     * The provided glyphs are the ones still referred to by sheet structure. Any other index entry
+     * is removed, and any provided glyph missing from index (such as the glyph of an inter
+     * re-inserted by an undo) is put back.
+     * Index content thus no longer depends on when garbage collection clears weak references.
+     *
+     * @param referenced the glyphs still referenced, compared by identity
+     * @return the number of glyphs removed
+     */
+    public int sweep (Collection<Glyph> referenced)
+    {
+        final Set<Glyph> kept = Collections.newSetFromMap(new IdentityHashMap<Glyph, Boolean>());
+        kept.addAll(referenced);
+
+        final int removed = weakIndex.retain(kept);
+
+        for (Glyph glyph : kept) {
+            if ((glyph.getId() != 0) && (weakIndex.getEntity(glyph.getId()) == null)) {
+                weakIndex.insert(new WeakGlyph(glyph));
+                glyph.setIndex(this);
+            }
+        }
+
+        originals.clear();
+
+        for (WeakGlyph weak : weakIndex.getEntities()) {
+            originals.putIfAbsent(weak, weak);
+        }
+
+        logger.debug("Glyph sweep removed:{} kept:{}", removed, kept.size());
+
+        return removed;
+    }
+
     //-----------------//
     // privateRegister //
     //-----------------//
@@ -439,6 +555,110 @@ public class GlyphIndex
         private final Constant.String vipGlyphs = new Constant.String(
                 "",
                 "(Debug) Comma-separated values of VIP glyphs IDs");
+
+        private final Constant.Integer idBlockSize = new Constant.Integer(
+                "ids",
+                20000,
+                "Number of glyph ids reserved per system processed in parallel");
+    }
+
+    //----------//
+    // IdBlocks //
+    //----------//
+    /**
+     * A sequence of reserved id blocks.
+     */
+    public class IdBlocks
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Last id before the blocks. */
+        private final int base;
+
+        /** Last id of the blocks. */
+        private final int end;
+
+        /** The blocks, in sequence. */
+        private final IdBlock[] blocks;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        private IdBlocks (int count,
+                          int size)
+        {
+            blocks = new IdBlock[count];
+            base = weakIndex.reserve(count * size);
+            end = base + (count * size);
+
+            for (int i = 0; i < count; i++) {
+                blocks[i] = new IdBlock(base + (i * size) + 1, base + ((i + 1) * size));
+            }
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Release the blocks.
+         * If no id has been taken from the common generator meanwhile, the generator is set back
+         * to the last id actually used in the blocks.
+         */
+        public void close ()
+        {
+            int lastUsed = base;
+
+            for (IdBlock block : blocks) {
+                if (block.next > block.first) {
+                    lastUsed = block.next - 1;
+                }
+            }
+
+            weakIndex.release(end, lastUsed);
+        }
+
+        /**
+         * Let the current thread draw its ids from the provided block.
+         *
+         * @param index block index
+         */
+        public void enter (int index)
+        {
+            weakIndex.currentBlock.set(blocks[index]);
+        }
+
+        /**
+         * Let the current thread draw its ids from the common generator again.
+         */
+        public void exit ()
+        {
+            weakIndex.currentBlock.remove();
+        }
+    }
+
+    //---------//
+    // IdBlock //
+    //---------//
+    /**
+     * A block of ids, used by a single thread.
+     */
+    private static class IdBlock
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** First id of the block. */
+        final int first;
+
+        /** Last id of the block. */
+        final int last;
+
+        /** Next id to be used. */
+        int next;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public IdBlock (int first,
+                        int last)
+        {
+            this.first = first;
+            this.last = last;
+            next = first;
+        }
     }
 
     //----------------//
@@ -447,6 +667,11 @@ public class GlyphIndex
     private static class WeakGlyphIndex
             extends BasicIndex<WeakGlyph>
     {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Id block of current thread, if any. */
+        final ThreadLocal<IdBlock> currentBlock = new ThreadLocal<IdBlock>();
+
         //~ Methods --------------------------------------------------------------------------------
 
         @Override
@@ -461,6 +686,51 @@ public class GlyphIndex
             return (weak != null) && (weak.get() != null);
         }
 
+        @Override
+        protected int generateId ()
+        {
+            final IdBlock block = currentBlock.get();
+
+            if ((block != null) && (block.next <= block.last)) {
+                return block.next++;
+            }
+
+            return super.generateId();
+        }
+
+        void release (int end,
+                      int lastUsed)
+        {
+            lastId.compareAndSet(end, lastUsed);
+        }
+
+        int reserve (int size)
+        {
+            return lastId.getAndAdd(size);
+        }
+
+        /**
+         * Remove entries whose glyph is not among the kept ones.
+         *
+         * @param kept the glyphs to keep
+         * @return the number of entries removed
+         */
+        int retain (Set<Glyph> kept)
+        {
+            int removed = 0;
+
+            for (Iterator<WeakGlyph> it = entities.values().iterator(); it.hasNext();) {
+                final Glyph glyph = it.next().get();
+
+                if ((glyph == null) || !kept.contains(glyph)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+
+            return removed;
+        }
+
         void setIdGenerator (AtomicInteger lastId)
         {
             this.lastId = lastId;
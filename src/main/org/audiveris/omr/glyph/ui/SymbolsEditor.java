@@ -45,6 +45,7 @@ import org.audiveris.omr.sheet.ui.SelectionPainter;
 import org.audiveris.omr.sheet.ui.SheetGradedPainter;
 import org.audiveris.omr.sheet.ui.SheetResultPainter;
 import org.audiveris.omr.sheet.ui.SheetTab;
+import org.audiveris.omr.sheet.ui.SheetWatcher;
 import org.audiveris.omr.sig.SIGraph;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.Inters;
@@ -66,6 +67,7 @@ import org.audiveris.omr.ui.selection.MouseMovement;
 import static org.audiveris.omr.ui.selection.SelectionHint.*;
 import org.audiveris.omr.ui.util.UIUtil;
 import org.audiveris.omr.ui.view.ScrollView;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.Navigable;
 
 import org.slf4j.Logger;
@@ -324,6 +326,8 @@ public class SymbolsEditor
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
+        // Layers rendering depends on view parameters
+        view.invalidateLayers();
         view.repaint();
     }
 
@@ -336,6 +340,26 @@ public class SymbolsEditor
      */
     public void refresh ()
     {
+        refresh(null);
+    }
+
+    //---------//
+    // refresh //
+    //---------//
+    /**
+     * Refresh the UI display, after a modification limited to the provided region.
+     *
+     * @param area the modified region, null for the whole sheet
+     */
+    public void refresh (Rectangle area)
+    {
+        if (area != null) {
+            final int interline = sheet.getScale().getInterline();
+            area = new Rectangle(area);
+            area.grow(interline, interline);
+        }
+
+        view.invalidateLayers(area);
         view.repaint();
     }
 
@@ -399,6 +423,15 @@ public class SymbolsEditor
         /** Current vector. */
         private RelationVector vector;
 
+        /** Watcher of sheet modifications. */
+        private final SheetWatcher watcher;
+
+        /** Tiles of input layer (sections and graded inters). */
+        private final TileCache inputTiles;
+
+        /** Tiles of output layer (opaque inters). */
+        private final TileCache outputTiles;
+
         //~ Constructors ---------------------------------------------------------------------------
         private MyView (GlyphIndex glyphIndex)
         {
@@ -416,6 +449,30 @@ public class SymbolsEditor
             }
 
             sheet.getInterIndex().getEntityService().subscribeStrongly(EntityListEvent.class, this);
+
+            watcher = new SheetWatcher(sheet);
+            inputTiles = new TileCache(
+                    "symbols-input",
+                    this,
+                    new TileCache.Layer()
+            {
+                @Override
+                public void render (Graphics2D g)
+                {
+                    renderInput(g);
+                }
+            });
+            outputTiles = new TileCache(
+                    "symbols-output",
+                    this,
+                    new TileCache.Layer()
+            {
+                @Override
+                public void render (Graphics2D g)
+                {
+                    renderOutput(g);
+                }
+            });
         }
 
         //~ Methods --------------------------------------------------------------------------------
@@ -513,6 +570,31 @@ public class SymbolsEditor
             //            showFocusLocation(rect, false);
         }
 
+        //------------------//
+        // invalidateLayers //
+        //------------------//
+        /**
+         * Discard all cached tiles of view layers.
+         */
+        public void invalidateLayers ()
+        {
+            invalidateLayers(null);
+        }
+
+        //------------------//
+        // invalidateLayers //
+        //------------------//
+        /**
+         * Discard the cached tiles of view layers that intersect the provided region.
+         *
+         * @param area the modified region, null for the whole sheet
+         */
+        public void invalidateLayers (Rectangle area)
+        {
+            inputTiles.invalidate(area);
+            outputTiles.invalidate(area);
+        }
+
         //------------//
         // pointAdded //
         //------------//
@@ -594,48 +676,18 @@ public class SymbolsEditor
                 }
             }
 
-            if (viewParams.isInputPainting()) {
-                // Sections
-                final boolean drawBorders = viewParams.getSelectionMode() == SelectionMode.MODE_SECTION;
-                final Stroke oldStroke = (drawBorders) ? UIUtil.setAbsoluteStroke(g, 1f) : null;
-
-                for (Lag lag : lags) {
-                    // Render all sections, using H/V assigned colors
-                    for (Section section : lag.getEntities()) {
-                        section.render(g, drawBorders, null);
-                    }
-                }
+            // Discard tiles of modified areas
+            watcher.invalidate(inputTiles, outputTiles);
 
-                if (oldStroke != null) {
-                    g.setStroke(oldStroke);
-                }
-
-                // Inters (with graded colors)
-                new SheetGradedPainter(sheet, g).process();
-
-                // Display staff line splines?
-                if (ViewParameters.getInstance().isStaffLinePainting()) {
-                    g.setColor(Color.LIGHT_GRAY);
-                    UIUtil.setAbsoluteStroke(g, 1f);
-
-                    for (SystemInfo system : sheet.getSystems()) {
-                        for (Staff staff : system.getStaves()) {
-                            staff.render(g);
-                        }
-                    }
-                }
+            if (viewParams.isInputPainting()) {
+                inputTiles.paint(g);
             }
 
             if (viewParams.isOutputPainting()) {
-                // Inters (with opaque colors)
-                g.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
-
-                boolean mixed = viewParams.isInputPainting();
-                g.setColor(mixed ? Colors.MUSIC_SYMBOLS : Colors.MUSIC_ALONE);
+                outputTiles.paint(g);
 
-                final boolean coloredVoices = mixed ? false : viewParams.isVoicePainting();
-                final boolean annots = viewParams.isAnnotationPainting();
-                new SheetResultPainter(sheet, g, coloredVoices, false, annots).process();
+                // Selected items are rendered with antialiasing as well
+                g.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
             }
 
             g.setColor(oldColor);
@@ -717,6 +769,67 @@ public class SymbolsEditor
             }
         }
 
+        //-------------//
+        // renderInput //
+        //-------------//
+        /**
+         * Render sections and inters with graded colors.
+         *
+         * @param g graphics context
+         */
+        private void renderInput (Graphics2D g)
+        {
+            // Sections
+            final boolean drawBorders = viewParams.getSelectionMode() == SelectionMode.MODE_SECTION;
+            final Stroke oldStroke = (drawBorders) ? UIUtil.setAbsoluteStroke(g, 1f) : null;
+
+            for (Lag lag : lags) {
+                // Render all sections, using H/V assigned colors
+                for (Section section : lag.getEntities()) {
+                    section.render(g, drawBorders, null);
+                }
+            }
+
+            if (oldStroke != null) {
+                g.setStroke(oldStroke);
+            }
+
+            // Inters (with graded colors)
+            new SheetGradedPainter(sheet, g).process();
+
+            // Display staff line splines?
+            if (ViewParameters.getInstance().isStaffLinePainting()) {
+                g.setColor(Color.LIGHT_GRAY);
+                UIUtil.setAbsoluteStroke(g, 1f);
+
+                for (SystemInfo system : sheet.getSystems()) {
+                    for (Staff staff : system.getStaves()) {
+                        staff.render(g);
+                    }
+                }
+            }
+        }
+
+        //--------------//
+        // renderOutput //
+        //--------------//
+        /**
+         * Render inters with opaque colors.
+         *
+         * @param g graphics context
+         */
+        private void renderOutput (Graphics2D g)
+        {
+            g.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
+
+            boolean mixed = viewParams.isInputPainting();
+            g.setColor(mixed ? Colors.MUSIC_SYMBOLS : Colors.MUSIC_ALONE);
+
+            final boolean coloredVoices = mixed ? false : viewParams.isVoicePainting();
+            final boolean annots = viewParams.isAnnotationPainting();
+            new SheetResultPainter(sheet, g, coloredVoices, false, annots).process();
+        }
+
         //---------------//
         // showPagePopup //
         //---------------//
@@ -24,9 +24,21 @@ package org.audiveris.omr.image;
 import de.intarsys.cwt.awt.environment.CwtAwtGraphicsContext;
 import de.intarsys.cwt.environment.IGraphicsContext;
 import de.intarsys.pdf.content.CSContent;
+import de.intarsys.pdf.content.CSOperation;
+import de.intarsys.pdf.content.CSOperator;
+import de.intarsys.pdf.content.CSOperators;
+import de.intarsys.pdf.cos.COSName;
+import de.intarsys.pdf.cos.COSNumber;
+import de.intarsys.pdf.cos.COSObject;
+import de.intarsys.pdf.cos.COSStream;
+import de.intarsys.pdf.filter.Filter;
 import de.intarsys.pdf.parser.COSLoadException;
+import de.intarsys.pdf.pd.PDColorSpace;
 import de.intarsys.pdf.pd.PDDocument;
+import de.intarsys.pdf.pd.PDImage;
 import de.intarsys.pdf.pd.PDPage;
+import de.intarsys.pdf.pd.PDResources;
+import de.intarsys.pdf.pd.PDXObject;
 import de.intarsys.pdf.platform.cwt.rendering.CSPlatformRenderer;
 import de.intarsys.pdf.tools.kernel.PDFGeometryTools;
 import de.intarsys.tools.locator.FileLocator;
@@ -39,15 +51,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 
 import javax.imageio.ImageIO;
@@ -65,11 +82,14 @@ import javax.media.jai.JAI;
  * <li>Then this Loader instance can be used via:<ul>
  * <li>{@link Loader#getImageCount()} to know how many images are available in the input file,</li>
  * <li>{@link Loader#getImage(int)} to return any specific image,</li>
+ * <li>{@link Loader#getImageDimension(int)} to know the size of any specific image,</li>
  * <li>{@link Loader#dispose()} to finally release any resources.</li>
  * </ul>
  * </ol>
  * This class leverages several software pieces, each with its own Loader subclass:<ul>
- * <li><b>JPod</b> for PDF files. This replaces former use of GhostScript sub-process.</li>
+ * <li><b>JPod</b> for PDF files. This replaces former use of GhostScript sub-process.
+ * A page made of just one embedded image (typically a scanned page) is extracted at its native
+ * resolution, other pages are rendered at {@code pdfResolution}.</li>
  * <li><b>ImageIO</b> for all files except PDF.</li>
  * <li><b>JAI</b> if ImageIO failed. Note that JAI can find only one image per file.</li>
  * </ul>
@@ -279,6 +299,16 @@ public abstract class ImageLoading
         BufferedImage getImage (int id)
                 throws IOException;
 
+        /**
+         * Report the dimension of the specific image, without fully decoding it if possible.
+         *
+         * @param id specified image id (its index counted from 1)
+         * @return the image dimension
+         * @throws IOException for any IO error
+         */
+        Dimension getImageDimension (int id)
+                throws IOException;
+
         /**
          * Report the count of images available in input file.
          *
@@ -300,6 +330,10 @@ public abstract class ImageLoading
                 "DPI",
                 300,
                 "DPI resolution for PDF images");
+
+        private final Constant.Boolean pdfEmbeddedImages = new Constant.Boolean(
+                true,
+                "Should we directly extract the single image of a scanned PDF page?");
     }
 
     //----------------//
@@ -374,6 +408,15 @@ public abstract class ImageLoading
 
             return img;
         }
+
+        @Override
+        public Dimension getImageDimension (int id)
+                throws IOException
+        {
+            checkId(id);
+
+            return new Dimension(reader.getWidth(id - 1), reader.getHeight(id - 1));
+        }
     }
 
     //------------//
@@ -382,6 +425,16 @@ public abstract class ImageLoading
     private static class JPodLoader
             extends AbstractLoader
     {
+        //~ Static fields/initializers -------------------------------------------------------------
+
+        /** Content operators that paint nothing. */
+        private static final CSOperator[] NEUTRAL_OPERATORS = new CSOperator[]{
+            CSOperators.CSO_BT, CSOperators.CSO_ET, CSOperators.CSO_Td, CSOperators.CSO_TD,
+            CSOperators.CSO_Tm, CSOperators.CSO_Tstar, CSOperators.CSO_Tf, CSOperators.CSO_Tc,
+            CSOperators.CSO_Tw, CSOperators.CSO_Tz, CSOperators.CSO_TL, CSOperators.CSO_Tr,
+            CSOperators.CSO_Ts
+        };
+
         //~ Instance fields ------------------------------------------------------------------------
 
         private final PDDocument doc;
@@ -405,6 +458,35 @@ public abstract class ImageLoading
             }
         }
 
+        @Override
+        public Dimension getImageDimension (int id)
+                throws IOException
+        {
+            checkId(id);
+
+            // desired scale = pdfResolution / default PDF resolution
+            float scale = constants.pdfResolution.getValue() / 72.0f;
+
+            // obtain relevant page parameters
+            PDPage page = doc.getPageTree().getPageAt(id - 1);
+            PDImage single = getSingleImage(page);
+
+            if (single != null) {
+                return new Dimension(single.getWidth(), single.getHeight());
+            }
+
+            Rectangle2D rect = page.getCropBox().toNormalizedRectangle();
+            AffineTransform pageTransform = new AffineTransform();
+            PDFGeometryTools.adjustTransform(pageTransform, page.getRotate(), rect);
+
+            Point2D newDims = new Point2D.Double(rect.getWidth(), rect.getHeight());
+            pageTransform.deltaTransform(newDims, newDims);
+
+            return new Dimension(
+                    (int) (Math.abs(newDims.getX()) * scale),
+                    (int) (Math.abs(newDims.getY()) * scale));
+        }
+
         @Override
         public BufferedImage getImage (int id)
                 throws IOException
@@ -416,6 +498,18 @@ public abstract class ImageLoading
 
             // obtain relevant page parameters
             PDPage page = doc.getPageTree().getPageAt(id - 1);
+            PDImage single = getSingleImage(page);
+
+            if (single != null) {
+                BufferedImage image = extractImage(single);
+
+                if (image != null) {
+                    logger.debug("Page #{} extracted from embedded image", id);
+
+                    return image;
+                }
+            }
+
             Rectangle2D rect = page.getCropBox().toNormalizedRectangle();
             int rotation = page.getRotate();
             logger.debug("Page #{} rotation: {}°", id, rotation);
@@ -478,6 +572,221 @@ public abstract class ImageLoading
 
             return image;
         }
+
+        //--------------//
+        // extractImage //
+        //--------------//
+        /**
+         * Decode the provided (extractable) embedded image, with no re-sampling.
+         *
+         * @param pdImage the embedded image
+         * @return the decoded image, or null if failed
+         */
+        private BufferedImage extractImage (PDImage pdImage)
+        {
+            try {
+                final COSStream stream = pdImage.cosGetObject().asStream();
+
+                if (stream.hasFilter(Filter.CN_Filter_DCTDecode)) {
+                    return ImageIO.read(new ByteArrayInputStream(stream.getEncodedBytes()));
+                }
+
+                final int bpc = pdImage.isImageMask() ? 1 : pdImage.getBitsPerComponent();
+
+                // Sample 0 is black (painted for an image mask), unless decode array is inverted
+                final int[] decode = pdImage.getDecode();
+                final boolean inverted = (decode != null) && (decode.length >= 2)
+                                         && (decode[0] > decode[1]);
+                final int width = pdImage.getWidth();
+                final int height = pdImage.getHeight();
+                final int rowBytes = (bpc == 1) ? ((width + 7) / 8) : width;
+                final byte[] bytes = pdImage.getBytes();
+
+                if ((bytes == null) || (bytes.length < (rowBytes * height))) {
+                    return null;
+                }
+
+                final BufferedImage image = new BufferedImage(
+                        width,
+                        height,
+                        (bpc == 1) ? BufferedImage.TYPE_BYTE_BINARY : BufferedImage.TYPE_BYTE_GRAY);
+                final byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+                for (int i = 0, iBreak = rowBytes * height; i < iBreak; i++) {
+                    data[i] = inverted ? (byte) ~bytes[i] : bytes[i];
+                }
+
+                return image;
+            } catch (Exception ex) {
+                logger.debug("Could not extract embedded image {}", ex.toString());
+
+                return null;
+            }
+        }
+
+        //----------------//
+        // getSingleImage //
+        //----------------//
+        /**
+         * Report the image that makes the whole page content, if any.
+         * <p>
+         * This is the typical case of a scanned page: the page content just draws one image,
+         * scaled to the page crop box, with no rotation, flip or skew.
+         *
+         * @param page the PDF page
+         * @return the single page image, or null
+         */
+        private PDImage getSingleImage (PDPage page)
+        {
+            if (!constants.pdfEmbeddedImages.isSet() || (page.getRotate() != 0)) {
+                return null;
+            }
+
+            final CSContent content = page.getContentStream();
+            final PDResources resources = page.getResources();
+
+            if ((content == null) || (resources == null)) {
+                return null;
+            }
+
+            final Deque<AffineTransform> stack = new ArrayDeque<AffineTransform>();
+            AffineTransform ctm = new AffineTransform();
+            AffineTransform imageCtm = null;
+            PDImage image = null;
+
+            for (CSOperation op : content.getOperations()) {
+                if (op.matchesOperator(CSOperators.CSO_q)) {
+                    stack.push(new AffineTransform(ctm));
+                } else if (op.matchesOperator(CSOperators.CSO_Q)) {
+                    if (stack.isEmpty()) {
+                        return null;
+                    }
+
+                    ctm = stack.pop();
+                } else if (op.matchesOperator(CSOperators.CSO_cm)) {
+                    if (op.operandSize() != 6) {
+                        return null;
+                    }
+
+                    final double[] matrix = new double[6];
+
+                    for (int i = 0; i < 6; i++) {
+                        final COSNumber number = op.getOperand(i).asNumber();
+
+                        if (number == null) {
+                            return null;
+                        }
+
+                        matrix[i] = number.floatValue();
+                    }
+
+                    ctm.concatenate(new AffineTransform(matrix));
+                } else if (op.matchesOperator(CSOperators.CSO_Do)) {
+                    if ((image != null) || (op.operandSize() != 1)) {
+                        return null; // Several objects drawn
+                    }
+
+                    final COSName name = op.getOperand(0).asName();
+                    final PDXObject xObject = (name != null)
+                            ? resources.getXObjectResource(name) : null;
+
+                    if (!(xObject instanceof PDImage)) {
+                        return null;
+                    }
+
+                    image = (PDImage) xObject;
+                    imageCtm = new AffineTransform(ctm);
+                } else if (!isNeutral(op)) {
+                    return null; // Something else is painted
+                }
+            }
+
+            if (image == null) {
+                return null;
+            }
+
+            // The image unit square must be mapped onto the whole crop box
+            final Rectangle2D rect = page.getCropBox().toNormalizedRectangle();
+            final double tolerance = 1.0; // In points
+
+            if (!isExtractable(image)
+                || (imageCtm.getShearX() != 0)
+                || (imageCtm.getShearY() != 0)
+                || (Math.abs(imageCtm.getScaleX() - rect.getWidth()) > tolerance)
+                || (Math.abs(imageCtm.getScaleY() - rect.getHeight()) > tolerance)
+                || (Math.abs(imageCtm.getTranslateX() - rect.getX()) > tolerance)
+                || (Math.abs(imageCtm.getTranslateY() - rect.getY()) > tolerance)) {
+                return null;
+            }
+
+            return image;
+        }
+
+        //-----------//
+        // isNeutral //
+        //-----------//
+        /**
+         * Check whether the provided content operation paints nothing by itself.
+         * This is the case of text object and text state operators, as long as no text is shown.
+         *
+         * @param op the content operation
+         * @return true if neutral
+         */
+        private boolean isNeutral (CSOperation op)
+        {
+            for (CSOperator operator : NEUTRAL_OPERATORS) {
+                if (op.matchesOperator(operator)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        //---------------//
+        // isExtractable //
+        //---------------//
+        /**
+         * Check whether the provided embedded image can be directly extracted.
+         * <p>
+         * Supported images are JPEG images and gray images (1-bit or 8-bit, including 1-bit
+         * image masks), whatever their other filters (CCITT, JBIG2, Flate, ...), provided they
+         * have no mask.
+         *
+         * @param pdImage the embedded image
+         * @return true if OK
+         */
+        private boolean isExtractable (PDImage pdImage)
+        {
+            final COSStream stream = pdImage.cosGetObject().asStream();
+
+            if ((stream == null) || (pdImage.getSMask() != null)) {
+                return false;
+            }
+
+            final COSObject mask = pdImage.cosGetMask();
+
+            if ((mask != null) && !mask.isNull()) {
+                return false;
+            }
+
+            if (stream.hasFilter(Filter.CN_Filter_DCTDecode)) {
+                return stream.getFilterSize() == 1;
+            }
+
+            if (stream.hasFilter(Filter.CN_Filter_JPXDecode)) {
+                return false;
+            }
+
+            if (pdImage.isImageMask()) {
+                return true;
+            }
+
+            final int bpc = pdImage.getBitsPerComponent();
+
+            return PDColorSpace.CN_CS_DeviceGray.equals(pdImage.cosGetColorSpace())
+                   && ((bpc == 1) || (bpc == 8));
+        }
     }
 
     //-----------//
@@ -509,5 +818,14 @@ public abstract class ImageLoading
 
             return image;
         }
+
+        @Override
+        public Dimension getImageDimension (int id)
+                throws IOException
+        {
+            checkId(id);
+
+            return new Dimension(image.getWidth(), image.getHeight());
+        }
     }
 }
@@ -21,18 +21,34 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+
 import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
+import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
 import java.awt.image.renderable.ParameterBlock;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import javax.imageio.ImageIO;
 import javax.media.jai.JAI;
@@ -52,7 +68,48 @@ public abstract class ImageUtil
 
     private static final Logger logger = LoggerFactory.getLogger(ImageUtil.class);
 
+    /** Minimum number of rows per band, when rows are converted in parallel. */
+    private static final int MIN_BAND_HEIGHT = 64;
+
     //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // grayView //
+    //----------//
+    /**
+     * Report a gray image that shares the pixels of the provided buffer.
+     * <p>
+     * Unlike {@link ByteProcessor#getBufferedImage()}, no pixel is copied: whatever is painted
+     * on the image is directly visible in the buffer, and vice versa.
+     *
+     * @param buffer the buffer to view
+     * @return the gray image backed by buffer pixels
+     */
+    public static BufferedImage grayView (ByteProcessor buffer)
+    {
+        final int width = buffer.getWidth();
+        final int height = buffer.getHeight();
+        final DataBufferByte dataBuffer = new DataBufferByte(
+                (byte[]) buffer.getPixels(),
+                width * height);
+        final WritableRaster raster = Raster.createInterleavedRaster(
+                dataBuffer,
+                width,
+                height,
+                width,
+                1,
+                new int[]{0},
+                null);
+        final ColorModel colorModel = new ComponentColorModel(
+                ColorSpace.getInstance(ColorSpace.CS_GRAY),
+                new int[]{8},
+                false,
+                true,
+                Transparency.OPAQUE,
+                DataBuffer.TYPE_BYTE);
+
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
     //--------//
     // invert //
     //--------//
@@ -74,8 +131,12 @@ public abstract class ImageUtil
     /**
      * Take an RGB image and always select the maximum pixel value among R,G and B bands
      * to provide the output gray value.
+     * <p>
+     * Any band beyond the third one (typically an alpha channel) is ignored.
+     * Pixels are read directly from the image raster, without any copy, and rows are processed in
+     * parallel bands when parallelism is allowed.
      *
-     * @param image input image with 3 bands RGB
+     * @param image input image with 3 bands RGB (or 4 bands RGBA)
      * @return a gray image
      */
     public static BufferedImage maxRgbToGray (BufferedImage image)
@@ -83,27 +144,77 @@ public abstract class ImageUtil
         logger.info("Converting max RGB to gray ...");
 
         // We use the max value among the RGB channels
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
-        WritableRaster raster = img.getRaster();
-        Raster source = image.getData();
-        int[] levels = new int[3];
-        int maxLevel;
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                source.getPixel(x, y, levels);
-                maxLevel = 0;
-
-                for (int level : levels) {
-                    if (maxLevel < level) {
-                        maxLevel = level;
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        final byte[] gray = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        final Raster source = image.getRaster();
+        final SampleModel model = source.getSampleModel();
+        final int bands = source.getNumBands();
+
+        if ((source.getDataBuffer() instanceof DataBufferByte)
+            && (model instanceof ComponentSampleModel)
+            && isSingleBank((ComponentSampleModel) model)) {
+            // Interleaved bytes (such as BGR or ABGR) are read straight from the data array
+            final ComponentSampleModel csm = (ComponentSampleModel) model;
+            final DataBufferByte dataBuffer = (DataBufferByte) source.getDataBuffer();
+            final byte[] data = dataBuffer.getData();
+            final int pixelStride = csm.getPixelStride();
+            final int scanlineStride = csm.getScanlineStride();
+            final int[] bandOffsets = csm.getBandOffsets();
+            final int origin = dataBuffer.getOffset()
+                               - (source.getSampleModelTranslateY() * scanlineStride)
+                               - (source.getSampleModelTranslateX() * pixelStride);
+            final int rOff = bandOffsets[0];
+            final int gOff = bandOffsets[1];
+            final int bOff = bandOffsets[2];
+
+            processRows(
+                    height,
+                    new RowsProcessor()
+            {
+                @Override
+                public void process (int yMin,
+                                     int yMax)
+                {
+                    for (int y = yMin; y < yMax; y++) {
+                        int i = origin + (y * scanlineStride);
+                        int o = y * width;
+
+                        for (int x = 0; x < width; x++, i += pixelStride) {
+                            final int r = data[i + rOff] & 0xFF;
+                            final int g = data[i + gOff] & 0xFF;
+                            final int b = data[i + bOff] & 0xFF;
+                            gray[o++] = (byte) Math.max(r, Math.max(g, b));
+                        }
                     }
                 }
-
-                raster.setSample(x, y, 0, maxLevel);
-            }
+            });
+        } else {
+            processRows(
+                    height,
+                    new RowsProcessor()
+            {
+                @Override
+                public void process (int yMin,
+                                     int yMax)
+                {
+                    final int[] levels = new int[width * bands];
+
+                    for (int y = yMin; y < yMax; y++) {
+                        source.getPixels(0, y, width, 1, levels);
+
+                        int o = y * width;
+
+                        for (int x = 0, i = 0; x < width; x++, i += bands) {
+                            final int max = Math.max(
+                                    levels[i],
+                                    Math.max(levels[i + 1], levels[i + 2]));
+                            gray[o++] = (byte) max;
+                        }
+                    }
+                }
+            });
         }
 
         return img;
@@ -121,7 +232,8 @@ public abstract class ImageUtil
      */
     public static BufferedImage maxRgbaToGray (BufferedImage rgba)
     {
-        return maxRgbToGray(rgbaToRgb(rgba));
+        // Alpha band is simply ignored, no need for an intermediate RGB image
+        return maxRgbToGray(rgba);
     }
 
     //-----------//
@@ -222,6 +334,121 @@ public abstract class ImageUtil
         }
     }
 
+    //----------//
+    // toBitmap //
+    //----------//
+    /**
+     * Report the foreground bitmap of a 1-bit image whose two colors are pure black and
+     * pure white, such as a bi-level scan.
+     * <p>
+     * Such an image is already binarized: its black pixels are the foreground pixels.
+     *
+     * @param image the image to inspect
+     * @return the bitmap of black pixels, or null if image is not a black and white image
+     */
+    public static PackedBitmap toBitmap (BufferedImage image)
+    {
+        if ((image.getSampleModel().getNumBands() != 1)
+            || (image.getSampleModel().getSampleSize(0) != 1)) {
+            return null;
+        }
+
+        final int[] levels = grayLevels(image);
+
+        if ((levels == null)
+            || (Math.min(levels[0], levels[1]) != 0)
+            || (Math.max(levels[0], levels[1]) != 255)) {
+            return null; // Not a pure black and white palette
+        }
+
+        final int black = (levels[0] == 0) ? 0 : 1;
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final PackedBitmap bitmap = new PackedBitmap(width, height);
+        final Raster source = image.getRaster();
+
+        processRows(
+                height,
+                new RowsProcessor()
+        {
+            @Override
+            public void process (int yMin,
+                                 int yMax)
+            {
+                final int[] samples = new int[width];
+
+                for (int y = yMin; y < yMax; y++) {
+                    source.getPixels(0, y, width, 1, samples);
+
+                    for (int x = 0; x < width; x++) {
+                        if (samples[x] == black) {
+                            bitmap.set(x, y, true);
+                        }
+                    }
+                }
+            }
+        });
+
+        return bitmap;
+    }
+
+    //--------------//
+    // toGrayBuffer //
+    //--------------//
+    /**
+     * Convert a single-band image (binary, indexed or 16-bit gray) to a gray buffer.
+     * <p>
+     * The gray level of a pixel depends only on its sample value, so the conversion performed by
+     * {@link ColorProcessor#convertToByteProcessor()} is applied once to every possible sample
+     * value, and image samples are then mapped through the resulting table, without any
+     * intermediate RGB image.
+     *
+     * @param image the image to convert
+     * @return the gray buffer, or null if image is not a single-band image with at most 16 bits
+     *         per sample
+     */
+    public static ByteProcessor toGrayBuffer (BufferedImage image)
+    {
+        final int[] levels = grayLevels(image);
+
+        if (levels == null) {
+            return null;
+        }
+
+        final byte[] lut = new byte[levels.length];
+
+        for (int i = 0; i < levels.length; i++) {
+            lut[i] = (byte) levels[i];
+        }
+
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final byte[] gray = new byte[width * height];
+        final Raster source = image.getRaster();
+
+        processRows(
+                height,
+                new RowsProcessor()
+        {
+            @Override
+            public void process (int yMin,
+                                 int yMax)
+            {
+                final int[] samples = new int[width];
+
+                for (int y = yMin; y < yMax; y++) {
+                    source.getPixels(0, y, width, 1, samples);
+
+                    for (int x = 0, o = y * width; x < width; x++) {
+                        gray[o++] = lut[samples[x]];
+                    }
+                }
+            }
+        });
+
+        return new ByteProcessor(width, height, gray);
+    }
+
     //-----//
     // xor //
     //-----//
@@ -238,6 +465,126 @@ public abstract class ImageUtil
         return JAI.create("Xor", image1, image2).getAsBufferedImage();
     }
 
+    //------------//
+    // grayLevels //
+    //------------//
+    /**
+     * Compute the gray level of every possible sample value of a single-band image.
+     *
+     * @param image the single-band image
+     * @return the gray levels, indexed by sample value, or null if image is not a single-band
+     *         image with at most 16 bits per sample
+     */
+    private static int[] grayLevels (BufferedImage image)
+    {
+        final SampleModel model = image.getSampleModel();
+        final int dataType = model.getDataType();
+
+        if ((model.getNumBands() != 1)
+            || ((dataType != DataBuffer.TYPE_BYTE) && (dataType != DataBuffer.TYPE_USHORT))
+            || (model.getSampleSize(0) > 16)) {
+            return null;
+        }
+
+        try {
+            // A one-row probe image, with the same color model, holding every sample value
+            final int size = 1 << model.getSampleSize(0);
+            final ColorModel colorModel = image.getColorModel();
+            final WritableRaster raster = colorModel.createCompatibleWritableRaster(size, 1);
+
+            for (int i = 0; i < size; i++) {
+                raster.setSample(i, 0, 0, i);
+            }
+
+            final BufferedImage probe = new BufferedImage(
+                    colorModel,
+                    raster,
+                    colorModel.isAlphaPremultiplied(),
+                    null);
+            final ByteProcessor bp = new ColorProcessor(probe).convertToByteProcessor();
+            final int[] levels = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                levels[i] = bp.get(i);
+            }
+
+            return levels;
+        } catch (Exception ex) {
+            logger.debug("No gray levels for {}", image, ex);
+
+            return null;
+        }
+    }
+
+    //--------------//
+    // isSingleBank //
+    //--------------//
+    private static boolean isSingleBank (ComponentSampleModel model)
+    {
+        for (int bank : model.getBankIndices()) {
+            if (bank != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //-------------//
+    // processRows //
+    //-------------//
+    /**
+     * Process all image rows, split in horizontal bands processed in parallel when allowed.
+     *
+     * @param height    image height
+     * @param processor the processor to apply on each band
+     */
+    private static void processRows (int height,
+                                     final RowsProcessor processor)
+    {
+        final int bandCount = OmrExecutors.defaultParallelism.getValue()
+                ? Math.min(OmrExecutors.getNumberOfCpus(), height / MIN_BAND_HEIGHT) : 1;
+
+        if (bandCount <= 1) {
+            processor.process(0, height);
+
+            return;
+        }
+
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(bandCount);
+
+            for (int b = 0; b < bandCount; b++) {
+                final int yMin = (b * height) / bandCount;
+                final int yMax = ((b + 1) * height) / bandCount;
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        processor.process(yMin, yMax);
+
+                        return null;
+                    }
+                });
+            }
+
+            for (Future<Void> future : OmrExecutors.getLowExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("Image conversion got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ProcessingCancellationException pce) {
+            throw pce;
+        } catch (Throwable ex) {
+            logger.warn("Exception raised in image conversion", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
     //--------//
     // typeOf //
     //--------//
@@ -290,4 +637,25 @@ public abstract class ImageUtil
             return "?";
         }
     }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //---------------//
+    // RowsProcessor //
+    //---------------//
+    /**
+     * Processing of a band of image rows.
+     */
+    private static interface RowsProcessor
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Process the rows of the provided band.
+         *
+         * @param yMin first row of band
+         * @param yMax row just past the band
+         */
+        void process (int yMin,
+                      int yMax);
+    }
 }
@@ -0,0 +1,606 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    P a c k e d B i t m a p                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Class {@code PackedBitmap} is a binary {@link PixelSource} which packs 64 pixels
+ * per long, row after row.
+ * <p>
+ * Compared with a {@link ByteProcessor}, it needs 8 times less memory, and compared with a
+ * {@link RunTable}, it provides direct random access to any pixel.
+ * Row-level operations (foreground scan, pixel count, masking) are performed one word at a time.
+ * <p>
+ * Within a word, pixel abscissae grow from the least significant bit to the most significant one.
+ *
+ * @author Hervé Bitteur
+ */
+public class PackedBitmap
+        implements PixelSource
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Bitmap width. */
+    private final int width;
+
+    /** Bitmap height. */
+    private final int height;
+
+    /** Number of words per row. */
+    private final int rowWords;
+
+    /** Pixel bits (1 for foreground), row after row. */
+    private final long[] words;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code PackedBitmap} object, with all pixels set to background.
+     *
+     * @param width  bitmap width
+     * @param height bitmap height
+     */
+    public PackedBitmap (int width,
+                         int height)
+    {
+        this.width = width;
+        this.height = height;
+
+        rowWords = (width + 63) >>> 6;
+        words = new long[rowWords * height];
+    }
+
+    /**
+     * Creates a new {@code PackedBitmap} object, as a copy of the provided one.
+     *
+     * @param that the bitmap to copy
+     */
+    public PackedBitmap (PackedBitmap that)
+    {
+        width = that.width;
+        height = that.height;
+        rowWords = that.rowWords;
+        words = that.words.clone();
+    }
+
+    /**
+     * Creates a new {@code PackedBitmap} object, with the content of a binary source.
+     * As for run tables, only pixels of value 0 are considered as foreground.
+     *
+     * @param source the binary source
+     */
+    public PackedBitmap (ByteProcessor source)
+    {
+        this(source.getWidth(), source.getHeight());
+
+        final byte[] pixels = (byte[]) source.getPixels();
+
+        for (int y = 0, i = 0; y < height; y++) {
+            final int base = y * rowWords;
+
+            for (int x = 0; x < width; x++, i++) {
+                if (pixels[i] == 0) {
+                    words[base + (x >>> 6)] |= (1L << x);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@code PackedBitmap} object, with the content of a run table.
+     *
+     * @param table the run table, whatever its orientation
+     */
+    public PackedBitmap (RunTable table)
+    {
+        this(table.getWidth(), table.getHeight());
+
+        setRuns(table, new Point(0, 0), true);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----//
+    // and //
+    //-----//
+    /**
+     * Keep only the foreground pixels that are also foreground in the provided mask.
+     *
+     * @param mask the mask bitmap, of same dimension
+     */
+    public void and (PackedBitmap mask)
+    {
+        checkDimension(mask);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= mask.words[i];
+        }
+    }
+
+    //--------//
+    // andNot //
+    //--------//
+    /**
+     * Remove the foreground pixels that are foreground in the provided mask.
+     *
+     * @param mask the mask bitmap, of same dimension
+     */
+    public void andNot (PackedBitmap mask)
+    {
+        checkDimension(mask);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~mask.words[i];
+        }
+    }
+
+    //-------//
+    // count //
+    //-------//
+    /**
+     * Count the foreground pixels in the provided row segment.
+     *
+     * @param y    row ordinate
+     * @param xMin minimum abscissa, inclusive
+     * @param xMax maximum abscissa, inclusive
+     * @return the number of foreground pixels in [xMin..xMax] at row y
+     */
+    public int count (int y,
+                      int xMin,
+                      int xMax)
+    {
+        xMin = Math.max(0, xMin);
+        xMax = Math.min(width - 1, xMax);
+
+        if (xMin > xMax) {
+            return 0;
+        }
+
+        final int base = y * rowWords;
+        final int wMin = xMin >>> 6;
+        final int wMax = xMax >>> 6;
+        final long firstMask = -1L << xMin;
+        final long lastMask = -1L >>> (63 - (xMax & 63));
+
+        if (wMin == wMax) {
+            return Long.bitCount(words[base + wMin] & firstMask & lastMask);
+        }
+
+        int count = Long.bitCount(words[base + wMin] & firstMask);
+
+        for (int w = wMin + 1; w < wMax; w++) {
+            count += Long.bitCount(words[base + w]);
+        }
+
+        return count + Long.bitCount(words[base + wMax] & lastMask);
+    }
+
+    //----------//
+    // countAnd //
+    //----------//
+    /**
+     * Count the pixels, in the provided row segment, that are foreground in both this
+     * bitmap and the provided one.
+     *
+     * @param that the other bitmap, of same dimension
+     * @param y    row ordinate
+     * @param xMin minimum abscissa, inclusive
+     * @param xMax maximum abscissa, inclusive
+     * @return the number of common foreground pixels in [xMin..xMax] at row y
+     */
+    public int countAnd (PackedBitmap that,
+                         int y,
+                         int xMin,
+                         int xMax)
+    {
+        checkDimension(that);
+        xMin = Math.max(0, xMin);
+        xMax = Math.min(width - 1, xMax);
+
+        if (xMin > xMax) {
+            return 0;
+        }
+
+        final int base = y * rowWords;
+        final int wMin = xMin >>> 6;
+        final int wMax = xMax >>> 6;
+        final long firstMask = -1L << xMin;
+        final long lastMask = -1L >>> (63 - (xMax & 63));
+
+        if (wMin == wMax) {
+            return Long.bitCount(
+                    words[base + wMin] & that.words[base + wMin] & firstMask & lastMask);
+        }
+
+        int count = Long.bitCount(words[base + wMin] & that.words[base + wMin] & firstMask);
+
+        for (int w = wMin + 1; w < wMax; w++) {
+            count += Long.bitCount(words[base + w] & that.words[base + w]);
+        }
+
+        return count + Long.bitCount(words[base + wMax] & that.words[base + wMax] & lastMask);
+    }
+
+    //-----//
+    // get //
+    //-----//
+    @Override
+    public int get (int x,
+                    int y)
+    {
+        return isFore(x, y) ? FOREGROUND : BACKGROUND;
+    }
+
+    //-----------//
+    // getBuffer //
+    //-----------//
+    /**
+     * Report a ByteProcessor with the bitmap content.
+     *
+     * @return a new buffer, with 0 for foreground and 255 for background
+     */
+    public ByteProcessor getBuffer ()
+    {
+        final ByteProcessor buffer = new ByteProcessor(width, height);
+        final byte[] pixels = (byte[]) buffer.getPixels();
+        Arrays.fill(pixels, (byte) BACKGROUND);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = nextFore(0, y); x != -1; x = nextFore(x + 1, y)) {
+                pixels[(y * width) + x] = (byte) FOREGROUND;
+            }
+        }
+
+        return buffer;
+    }
+
+    //-----------//
+    // getHeight //
+    //-----------//
+    @Override
+    public int getHeight ()
+    {
+        return height;
+    }
+
+    //--------------//
+    // getRowCounts //
+    //--------------//
+    /**
+     * Report the number of foreground pixels for each row.
+     *
+     * @return the horizontal projection, indexed by ordinate
+     */
+    public int[] getRowCounts ()
+    {
+        final int[] counts = new int[height];
+
+        for (int y = 0; y < height; y++) {
+            final int base = y * rowWords;
+            int count = 0;
+
+            for (int w = 0; w < rowWords; w++) {
+                count += Long.bitCount(words[base + w]);
+            }
+
+            counts[y] = count;
+        }
+
+        return counts;
+    }
+
+    //-------------//
+    // getRunTable //
+    //-------------//
+    /**
+     * Build a run table with the bitmap content.
+     *
+     * @param orientation desired orientation of the table
+     * @return the populated run table
+     */
+    public RunTable getRunTable (Orientation orientation)
+    {
+        final RunTable table = new RunTable(orientation, width, height);
+
+        if (orientation == Orientation.HORIZONTAL) {
+            for (int y = 0; y < height; y++) {
+                for (int x = nextFore(0, y); x != -1;) {
+                    final int stop = nextBack(x, y);
+                    final int end = (stop == -1) ? width : stop;
+                    table.addRun(y, x, end - x);
+                    x = (stop == -1) ? (-1) : nextFore(stop, y);
+                }
+            }
+        } else {
+            for (int x = 0; x < width; x++) {
+                final int w = x >>> 6;
+                final long bit = 1L << x;
+                int start = -1;
+
+                for (int y = 0; y < height; y++) {
+                    if ((words[(y * rowWords) + w] & bit) != 0) {
+                        if (start == -1) {
+                            start = y;
+                        }
+                    } else if (start != -1) {
+                        table.addRun(x, start, y - start);
+                        start = -1;
+                    }
+                }
+
+                if (start != -1) {
+                    table.addRun(x, start, height - start);
+                }
+            }
+        }
+
+        return table;
+    }
+
+    //----------//
+    // getWidth //
+    //----------//
+    @Override
+    public int getWidth ()
+    {
+        return width;
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    /**
+     * Report whether the pixel at (x, y) is foreground.
+     *
+     * @param x abscissa value
+     * @param y ordinate value
+     * @return true if foreground
+     */
+    public boolean isFore (int x,
+                           int y)
+    {
+        return (words[(y * rowWords) + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    //----------//
+    // nextBack //
+    //----------//
+    /**
+     * Report the first background abscissa, at or after x, in row y.
+     *
+     * @param x starting abscissa
+     * @param y row ordinate
+     * @return the abscissa found, or -1 if none
+     */
+    public int nextBack (int x,
+                         int y)
+    {
+        if (x >= width) {
+            return -1;
+        }
+
+        final int base = y * rowWords;
+        int w = x >>> 6;
+        long word = ~words[base + w] & (-1L << x);
+
+        while (word == 0) {
+            if (++w == rowWords) {
+                return -1;
+            }
+
+            word = ~words[base + w];
+        }
+
+        final int found = (w << 6) + Long.numberOfTrailingZeros(word);
+
+        return (found < width) ? found : (-1);
+    }
+
+    //----------//
+    // nextFore //
+    //----------//
+    /**
+     * Report the first foreground abscissa, at or after x, in row y.
+     * Background words are skipped 64 pixels at a time.
+     *
+     * @param x starting abscissa
+     * @param y row ordinate
+     * @return the abscissa found, or -1 if none
+     */
+    public int nextFore (int x,
+                         int y)
+    {
+        if (x >= width) {
+            return -1;
+        }
+
+        final int base = y * rowWords;
+        int w = x >>> 6;
+        long word = words[base + w] & (-1L << x);
+
+        while (word == 0) {
+            if (++w == rowWords) {
+                return -1;
+            }
+
+            word = words[base + w];
+        }
+
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    //----//
+    // or //
+    //----//
+    /**
+     * Add the foreground pixels of the provided mask.
+     *
+     * @param mask the mask bitmap, of same dimension
+     */
+    public void or (PackedBitmap mask)
+    {
+        checkDimension(mask);
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= mask.words[i];
+        }
+    }
+
+    //-----//
+    // set //
+    //-----//
+    /**
+     * Set the pixel at (x, y).
+     *
+     * @param x    abscissa value
+     * @param y    ordinate value
+     * @param fore true for foreground, false for background
+     */
+    public void set (int x,
+                     int y,
+                     boolean fore)
+    {
+        final int i = (y * rowWords) + (x >>> 6);
+
+        if (fore) {
+            words[i] |= (1L << x);
+        } else {
+            words[i] &= ~(1L << x);
+        }
+    }
+
+    //---------//
+    // setRuns //
+    //---------//
+    /**
+     * Set the pixels of all runs of the provided table, clipped by bitmap bounds.
+     *
+     * @param table  the run table
+     * @param offset table location with respect to bitmap origin
+     * @param fore   true for foreground, false for background
+     */
+    public final void setRuns (RunTable table,
+                               Point offset,
+                               boolean fore)
+    {
+        final boolean horizontal = table.getOrientation() == Orientation.HORIZONTAL;
+
+        for (int iSeq = 0, size = table.getSize(); iSeq < size; iSeq++) {
+            for (Iterator<Run> it = table.iterator(iSeq); it.hasNext();) {
+                final Run run = it.next();
+
+                if (horizontal) {
+                    setRow(offset.y + iSeq, offset.x + run.getStart(), run.getLength(), fore);
+                } else {
+                    final int x = offset.x + iSeq;
+
+                    if ((x >= 0) && (x < width)) {
+                        final int start = offset.y + run.getStart();
+                        final int yMin = Math.max(0, start);
+                        final int yBreak = Math.min(height, start + run.getLength());
+
+                        for (int y = yMin; y < yBreak; y++) {
+                            set(x, y, fore);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return "PackedBitmap{" + width + "x" + height + "}";
+    }
+
+    //----------------//
+    // checkDimension //
+    //----------------//
+    private void checkDimension (PackedBitmap that)
+    {
+        if ((that.width != width) || (that.height != height)) {
+            throw new IllegalArgumentException(
+                    "Bitmap dimension mismatch " + this + " vs " + that);
+        }
+    }
+
+    //--------//
+    // setRow //
+    //--------//
+    /**
+     * Set a horizontal segment of pixels, clipped by bitmap bounds.
+     *
+     * @param y      row ordinate
+     * @param x      segment starting abscissa
+     * @param length segment length
+     * @param fore   true for foreground, false for background
+     */
+    private void setRow (int y,
+                         int x,
+                         int length,
+                         boolean fore)
+    {
+        if ((y < 0) || (y >= height)) {
+            return;
+        }
+
+        final int xMin = Math.max(0, x);
+        final int xMax = Math.min(width, x + length) - 1;
+
+        if (xMin > xMax) {
+            return;
+        }
+
+        final int base = y * rowWords;
+        final int wMin = xMin >>> 6;
+        final int wMax = xMax >>> 6;
+
+        for (int w = wMin; w <= wMax; w++) {
+            long mask = -1L;
+
+            if (w == wMin) {
+                mask &= (-1L << xMin);
+            }
+
+            if (w == wMax) {
+                mask &= (-1L >>> (63 - (xMax & 63)));
+            }
+
+            if (fore) {
+                words[base + w] |= mask;
+            } else {
+                words[base + w] &= ~mask;
+            }
+        }
+    }
+}
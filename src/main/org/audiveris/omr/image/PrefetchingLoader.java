@@ -0,0 +1,311 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               P r e f e t c h i n g L o a d e r                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code PrefetchingLoader} is a book-scoped loading session on an input file.
+ * <p>
+ * Rather than re-opening and re-parsing the whole input file for every sheet image, the underlying
+ * {@link ImageLoading.Loader} is opened once (on first need) and kept open until the session is
+ * disposed.
+ * <p>
+ * Moreover, each time an image is requested, the next expected images are read and decoded in
+ * advance on the prefetch thread, so that loading of image k+1 overlaps processing of image k.
+ * This read-ahead is bounded by a maximum count of images and by a memory budget.
+ *
+ * @author Hervé Bitteur
+ */
+public class PrefetchingLoader
+        implements ImageLoading.Loader
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingLoader.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Path to input file. */
+    private final Path path;
+
+    /** Ids of images still expected to be requested, in processing order. */
+    private final SortedSet<Integer> expectedIds;
+
+    /** Images being read or already read in advance. */
+    private final Map<Integer, Future<BufferedImage>> prefetched
+            = new HashMap<Integer, Future<BufferedImage>>();
+
+    /** Underlying loader, lazily opened. Guarded by loaderLock. */
+    private ImageLoading.Loader loader;
+
+    /** To serialize accesses to the underlying loader. */
+    private final Object loaderLock = new Object();
+
+    /** Memory size of last decoded image, used as estimate for the next ones. */
+    private volatile long imageBytes;
+
+    /** Set when session is disposed. */
+    private volatile boolean disposed;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code PrefetchingLoader} object.
+     *
+     * @param path        path to input file
+     * @param expectedIds ids of the images about to be requested, perhaps empty
+     */
+    public PrefetchingLoader (Path path,
+                              SortedSet<Integer> expectedIds)
+    {
+        this.path = path;
+        this.expectedIds = new TreeSet<Integer>(expectedIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // dispose //
+    //---------//
+    /**
+     * Cancel any pending read-ahead and close the underlying loader.
+     */
+    @Override
+    public void dispose ()
+    {
+        disposed = true;
+
+        synchronized (this) {
+            for (Future<BufferedImage> future : prefetched.values()) {
+                future.cancel(false);
+            }
+
+            prefetched.clear();
+        }
+
+        synchronized (loaderLock) {
+            if (loader != null) {
+                loader.dispose();
+                loader = null;
+            }
+        }
+    }
+
+    //----------//
+    // getImage //
+    //----------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The image is taken from read-ahead if available, otherwise it is read directly.
+     * In both cases, reading of the next expected images is then launched in background.
+     */
+    @Override
+    public BufferedImage getImage (int id)
+            throws IOException
+    {
+        final Future<BufferedImage> future;
+
+        synchronized (this) {
+            expectedIds.remove(id);
+            future = prefetched.remove(id);
+        }
+
+        BufferedImage img = null;
+
+        if (future != null) {
+            try {
+                img = future.get();
+                logger.debug("Image {} taken from read-ahead", id);
+            } catch (InterruptedException ex) {
+                logger.warn("Interrupted while reading image {}", id);
+                throw new ProcessingCancellationException(ex);
+            } catch (ExecutionException ex) {
+                logger.warn("Error reading image {} ahead, {}", id, ex.getCause().toString());
+            }
+        }
+
+        if (img == null) {
+            img = read(id);
+        }
+
+        prefetch();
+
+        return img;
+    }
+
+    //---------------//
+    // getImageCount //
+    //---------------//
+    @Override
+    public int getImageCount ()
+    {
+        synchronized (loaderLock) {
+            return open() ? loader.getImageCount() : 0;
+        }
+    }
+
+    //-------------------//
+    // getImageDimension //
+    //-------------------//
+    @Override
+    public Dimension getImageDimension (int id)
+            throws IOException
+    {
+        synchronized (loaderLock) {
+            return open() ? loader.getImageDimension(id) : null;
+        }
+    }
+
+    //------//
+    // open //
+    //------//
+    /**
+     * Make sure the underlying loader is open.
+     * To be called while holding loaderLock.
+     *
+     * @return true if OK
+     */
+    private boolean open ()
+    {
+        if (disposed) {
+            throw new IllegalStateException("Loading session on " + path + " already disposed");
+        }
+
+        if (loader == null) {
+            loader = ImageLoading.getLoader(path);
+        }
+
+        return loader != null;
+    }
+
+    //----------//
+    // prefetch //
+    //----------//
+    /**
+     * Launch the reading of the next expected images, within count and memory limits.
+     */
+    private synchronized void prefetch ()
+    {
+        if (disposed) {
+            return;
+        }
+
+        final long budget = constants.prefetchBudget.getValue() * 1024L * 1024L;
+        final int maxCount = constants.prefetchCount.getValue();
+        int count = prefetched.size();
+
+        for (final int id : expectedIds) {
+            if ((count >= maxCount) || (((count + 1) * imageBytes) > budget)) {
+                break;
+            }
+
+            if (!prefetched.containsKey(id)) {
+                prefetched.put(
+                        id,
+                        OmrExecutors.getPrefetchExecutor().submit(
+                                new Callable<BufferedImage>()
+                        {
+                            @Override
+                            public BufferedImage call ()
+                                    throws IOException
+                            {
+                                return disposed ? null : read(id);
+                            }
+                        }));
+                count++;
+            }
+        }
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Read (and decode) the specified image from the underlying loader.
+     *
+     * @param id image id
+     * @return the image read, or null
+     * @throws IOException for any IO error
+     */
+    private BufferedImage read (int id)
+            throws IOException
+    {
+        final BufferedImage img;
+
+        synchronized (loaderLock) {
+            if (!open()) {
+                return null;
+            }
+
+            img = loader.getImage(id);
+        }
+
+        if (img != null) {
+            final DataBuffer buffer = img.getRaster().getDataBuffer();
+            imageBytes = ((long) buffer.getSize() * buffer.getNumBanks()
+                          * DataBuffer.getDataTypeSize(buffer.getDataType())) / 8;
+        }
+
+        return img;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer prefetchCount = new Constant.Integer(
+                "images",
+                2,
+                "Maximum count of images read in advance");
+
+        private final Constant.Integer prefetchBudget = new Constant.Integer(
+                "MB",
+                256,
+                "Maximum memory for images read in advance");
+    }
+}
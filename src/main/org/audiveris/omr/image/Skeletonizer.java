@@ -0,0 +1,372 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S k e l e t o n i z e r                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code Skeletonizer} thins, in place, the foreground of a binary buffer down to a
+ * skeleton one pixel wide.
+ * <p>
+ * It uses the same lookup tables as ImageJ {@code BinaryProcessor.skeletonize()} and thus provides
+ * exactly the same skeleton, but:<ul>
+ * <li>Each pass reads one plane and writes the other of two alternating planes, instead of taking
+ * a full snapshot of the image.</li>
+ * <li>A row is processed only if its neighborhood has changed during the two previous passes.</li>
+ * <li>The image is split into horizontal bands, processed in parallel.</li>
+ * </ul>
+ * Background pixels are expected to be white (255), any other value is foreground.
+ *
+ * @author Hervé Bitteur
+ */
+public class Skeletonizer
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(Skeletonizer.class);
+
+    /** Background value. */
+    private static final byte BACKGROUND = (byte) 255;
+
+    /** Minimum number of rows per band. */
+    private static final int MIN_BAND_HEIGHT = 32;
+
+    /**
+     * Removal codes, indexed by the configuration of 8 neighbors.
+     * 1: removable in even pass, 2: removable in odd pass, 3: removable in any pass.
+     */
+    private static final int[] TABLE = new int[]{
+        0, 0, 0, 0, 0, 0, 1, 3, 0, 0, 3, 1, 1, 0, 1, 3,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 3, 0, 3, 3,
+        0, 0, 0, 0, 0, 0, 0, 0, 3, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 3, 0, 2, 2,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        2, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 2, 0, 0, 0,
+        3, 0, 0, 0, 0, 0, 0, 0, 3, 0, 0, 0, 3, 0, 2, 0,
+        0, 0, 3, 1, 0, 0, 1, 3, 0, 0, 0, 0, 0, 0, 0, 1,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1,
+        3, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        2, 3, 1, 3, 0, 0, 1, 3, 0, 0, 0, 0, 0, 0, 0, 1,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        2, 3, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0,
+        3, 3, 0, 1, 0, 0, 0, 0, 2, 2, 0, 0, 2, 0, 0, 0
+    };
+
+    /** Second table, used to remove "stuck" pixels once the first table is exhausted. */
+    private static final int[] TABLE2 = new int[]{
+        0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 2, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0,
+        2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** The buffer to thin. */
+    private final ByteProcessor buffer;
+
+    /** Buffer width. */
+    private final int width;
+
+    /** Buffer height. */
+    private final int height;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code Skeletonizer} object.
+     *
+     * @param buffer the binary buffer to thin in place
+     */
+    public Skeletonizer (ByteProcessor buffer)
+    {
+        this.buffer = buffer;
+        width = buffer.getWidth();
+        height = buffer.getHeight();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // skeletonize //
+    //-------------//
+    /**
+     * Thin the buffer foreground, until no pixel can be removed.
+     * <p>
+     * As in ImageJ, the image border is first set to background.
+     */
+    public void skeletonize ()
+    {
+        final byte[] pixels = (byte[]) buffer.getPixels();
+        clearBorder(pixels);
+
+        if ((width < 3) || (height < 3)) {
+            return;
+        }
+
+        byte[] src = pixels;
+        byte[] dst = pixels.clone();
+        int pass = 0;
+
+        for (int[] table : new int[][]{TABLE, TABLE2}) {
+            boolean[] last = null; // Rows changed by last pass, null for all
+            boolean[] beforeLast = null; // Rows changed by the pass before last, null for all
+            int removed;
+
+            do {
+                removed = 0;
+
+                for (int i = 0; i < 2; i++) {
+                    final boolean[] changed = new boolean[height];
+                    removed += thin(pass++, table, src, dst, last, beforeLast, changed);
+
+                    byte[] tmp = src;
+                    src = dst;
+                    dst = tmp;
+                    beforeLast = last;
+                    last = changed;
+                }
+            } while (removed > 0);
+        }
+
+        if (src != pixels) {
+            System.arraycopy(src, 0, pixels, 0, pixels.length);
+        }
+
+        logger.debug("Skeleton thinned in {} passes", pass);
+    }
+
+    //-------------//
+    // clearBorder //
+    //-------------//
+    private void clearBorder (byte[] pixels)
+    {
+        Arrays.fill(pixels, 0, width, BACKGROUND);
+        Arrays.fill(pixels, (height - 1) * width, height * width, BACKGROUND);
+
+        for (int y = 1; y < (height - 1); y++) {
+            pixels[y * width] = BACKGROUND;
+            pixels[((y + 1) * width) - 1] = BACKGROUND;
+        }
+    }
+
+    //----------//
+    // isActive //
+    //----------//
+    /**
+     * Tell whether the provided row must be processed, because its neighborhood has been
+     * modified since the previous pass of same parity.
+     */
+    private boolean isActive (int y,
+                              boolean[] last,
+                              boolean[] beforeLast)
+    {
+        if ((last == null) || (beforeLast == null)) {
+            return true;
+        }
+
+        for (int yy = y - 1; yy <= (y + 1); yy++) {
+            if (last[yy] || beforeLast[yy]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //------//
+    // thin //
+    //------//
+    /**
+     * Perform one thinning pass on the whole image.
+     *
+     * @param pass       pass number (its parity selects the removal codes)
+     * @param table      the lookup table to use
+     * @param src        plane to read
+     * @param dst        plane to write, already up to date for inactive rows
+     * @param last       rows changed by last pass, or null
+     * @param beforeLast rows changed by the pass before last, or null
+     * @param changed    (output) rows changed by this pass
+     * @return the number of pixels removed
+     */
+    private int thin (final int pass,
+                      final int[] table,
+                      final byte[] src,
+                      final byte[] dst,
+                      final boolean[] last,
+                      final boolean[] beforeLast,
+                      final boolean[] changed)
+    {
+        final int rows = height - 2;
+        final int bandCount = OmrExecutors.defaultParallelism.getValue()
+                ? Math.min(OmrExecutors.getNumberOfCpus(), rows / MIN_BAND_HEIGHT) : 1;
+
+        if (bandCount <= 1) {
+            return thinBand(pass, table, src, dst, last, beforeLast, changed, 1, height - 2);
+        }
+
+        try {
+            final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(bandCount);
+
+            for (int b = 0; b < bandCount; b++) {
+                final int yMin = 1 + ((b * rows) / bandCount);
+                final int yMax = ((b + 1) * rows) / bandCount;
+                tasks.add(
+                        new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call ()
+                            throws Exception
+                    {
+                        return thinBand(
+                                pass, table, src, dst, last, beforeLast, changed, yMin, yMax);
+                    }
+                });
+            }
+
+            int removed = 0;
+
+            for (Future<Integer> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                removed += future.get();
+            }
+
+            return removed;
+        } catch (InterruptedException ex) {
+            logger.warn("Skeletonizer got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ProcessingCancellationException pce) {
+            throw pce;
+        } catch (Throwable ex) {
+            logger.warn("Exception raised in Skeletonizer", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    //----------//
+    // thinBand //
+    //----------//
+    /**
+     * Perform one thinning pass on the provided band of rows.
+     *
+     * @return the number of pixels removed in the band
+     */
+    private int thinBand (int pass,
+                          int[] table,
+                          byte[] src,
+                          byte[] dst,
+                          boolean[] last,
+                          boolean[] beforeLast,
+                          boolean[] changed,
+                          int yMin,
+                          int yMax)
+    {
+        final int removable = ((pass & 1) == 1) ? 2 : 1;
+        int removed = 0;
+
+        for (int y = yMin; y <= yMax; y++) {
+            if (!isActive(y, last, beforeLast)) {
+                continue;
+            }
+
+            final int rowRemoved = removed;
+
+            for (int x = 1, offset = (y * width) + 1; x < (width - 1); x++, offset++) {
+                byte v = src[offset];
+
+                if (v != BACKGROUND) {
+                    final int above = offset - width;
+                    final int below = offset + width;
+                    int index = 0;
+
+                    if (src[above - 1] != BACKGROUND) {
+                        index |= 1;
+                    }
+
+                    if (src[above] != BACKGROUND) {
+                        index |= 2;
+                    }
+
+                    if (src[above + 1] != BACKGROUND) {
+                        index |= 4;
+                    }
+
+                    if (src[offset + 1] != BACKGROUND) {
+                        index |= 8;
+                    }
+
+                    if (src[below + 1] != BACKGROUND) {
+                        index |= 16;
+                    }
+
+                    if (src[below] != BACKGROUND) {
+                        index |= 32;
+                    }
+
+                    if (src[below - 1] != BACKGROUND) {
+                        index |= 64;
+                    }
+
+                    if (src[offset - 1] != BACKGROUND) {
+                        index |= 128;
+                    }
+
+                    final int code = table[index];
+
+                    if ((code == removable) || (code == 3)) {
+                        v = BACKGROUND;
+                        removed++;
+                    }
+                }
+
+                dst[offset] = v;
+            }
+
+            changed[y] = removed > rowRemoved;
+        }
+
+        return removed;
+    }
+}
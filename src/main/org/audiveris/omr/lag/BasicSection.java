@@ -47,12 +47,14 @@ import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -76,6 +78,9 @@ public class BasicSection
     private static final Logger logger = LoggerFactory.getLogger(
             BasicSection.class);
 
+    /** Empty run data. */
+    private static final int[] NO_RUNS = new int[0];
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Position of first run */
     @XmlAttribute(name = "first-pos")
@@ -85,9 +90,18 @@ public class BasicSection
     @XmlAttribute(name = "orientation")
     protected Orientation orientation;
 
-    /** The collection of runs that make up the section */
+    /** Start coordinate of each run that makes up the section, in position order. */
+    protected int[] starts = NO_RUNS;
+
+    /** Length of each run that makes up the section, in position order. */
+    protected int[] lengths = NO_RUNS;
+
+    /** Number of runs. */
+    protected int runCount;
+
+    /** The collection of runs, populated only while (un)marshalling. */
     @XmlElement(name = "run")
-    protected final List<Run> runs = new ArrayList<Run>();
+    private List<Run> xmlRuns;
 
     /** Containing lag, if any. */
     protected Lag lag;
@@ -130,7 +144,9 @@ public class BasicSection
     {
         orientation = ds.getOrientation();
         firstPos = ds.getFirstPos();
-        runs.addAll(ds.getRuns());
+        starts = Arrays.copyOf(ds.starts, ds.runCount);
+        lengths = Arrays.copyOf(ds.lengths, ds.runCount);
+        runCount = ds.runCount;
         lag = ds.getLag();
         orientedBounds = ds.getOrientedBounds();
         centroid = ds.getCentroid();
@@ -196,14 +212,14 @@ public class BasicSection
             // Take all run pixels
             int pos = firstPos - 1;
 
-            for (Run run : runs) {
-                double coord = run.getStart() + (run.getLength() / 2d);
+            for (int i = 0; i < runCount; i++) {
+                double coord = starts[i] + (lengths[i] / 2d);
                 pos++;
 
                 if (orientation == HORIZONTAL) {
-                    barycenter.include(run.getLength(), coord, pos);
+                    barycenter.include(lengths[i], coord, pos);
                 } else {
-                    barycenter.include(run.getLength(), pos, coord);
+                    barycenter.include(lengths[i], pos, coord);
                 }
             }
         } else {
@@ -211,10 +227,10 @@ public class BasicSection
 
             // Take only the pixels contained by the oriented roi
             int pos = firstPos - 1;
-            int posMax = Math.min(firstPos + runs.size(), oRoi.y + oRoi.height) - 1;
+            int posMax = Math.min(firstPos + runCount, oRoi.y + oRoi.height) - 1;
             int coordMax = (oRoi.x + oRoi.width) - 1;
 
-            for (Run run : runs) {
+            for (int i = 0; i < runCount; i++) {
                 pos++;
 
                 if (pos < oRoi.y) {
@@ -225,8 +241,8 @@ public class BasicSection
                     break;
                 }
 
-                final int roiStart = Math.max(run.getStart(), oRoi.x);
-                final int roiStop = Math.min(run.getStop(), coordMax);
+                final int roiStart = Math.max(starts[i], oRoi.x);
+                final int roiStop = Math.min((starts[i] + lengths[i]) - 1, coordMax);
 
                 for (int coord = roiStart; coord <= roiStop; coord++) {
                     if (orientation == HORIZONTAL) {
@@ -250,10 +266,10 @@ public class BasicSection
         if (roi == null) {
             int p = firstPos;
 
-            for (Run run : runs) {
-                final int start = run.getStart();
+            for (int i = 0; i < runCount; i++) {
+                final int start = starts[i];
 
-                for (int ic = run.getLength() - 1; ic >= 0; ic--) {
+                for (int ic = lengths[i] - 1; ic >= 0; ic--) {
                     if (orientation == HORIZONTAL) {
                         collector.include(start + ic, p);
                     } else {
@@ -267,12 +283,12 @@ public class BasicSection
             // Take only the pixels contained by the absolute roi
             Rectangle oRoi = orientation.oriented(roi);
             final int pMin = oRoi.y;
-            final int pMax = -1 + Math.min(firstPos + runs.size(), oRoi.y + oRoi.height);
+            final int pMax = -1 + Math.min(firstPos + runCount, oRoi.y + oRoi.height);
             final int cMin = oRoi.x;
             final int cMax = (oRoi.x + oRoi.width) - 1;
             int p = firstPos - 1;
 
-            for (Run run : runs) {
+            for (int i = 0; i < runCount; i++) {
                 p++;
 
                 if (p < pMin) {
@@ -283,8 +299,8 @@ public class BasicSection
                     break;
                 }
 
-                final int roiStart = Math.max(run.getStart(), cMin);
-                final int roiStop = Math.min(run.getStop(), cMax);
+                final int roiStart = Math.max(starts[i], cMin);
+                final int roiStop = Math.min((starts[i] + lengths[i]) - 1, cMax);
                 final int length = roiStop - roiStart + 1;
 
                 if (length > 0) {
@@ -373,8 +389,8 @@ public class BasicSection
         if (isVertical()) {
             int x = getFirstPos() - offset.x;
 
-            for (Run run : runs) {
-                for (int y = run.getStart(); y <= run.getStop(); y++) {
+            for (int i = 0; i < runCount; i++) {
+                for (int y = starts[i], yBreak = y + lengths[i]; y < yBreak; y++) {
                     buffer.set(x, y - offset.y, 0);
                 }
 
@@ -383,8 +399,8 @@ public class BasicSection
         } else {
             int y = getFirstPos() - offset.y;
 
-            for (Run run : runs) {
-                for (int x = run.getStart(); x <= run.getStop(); x++) {
+            for (int i = 0; i < runCount; i++) {
+                for (int x = starts[i], xBreak = x + lengths[i]; x < xBreak; x++) {
                     buffer.set(x - offset.x, y, 0);
                 }
 
@@ -501,10 +517,10 @@ public class BasicSection
         Point2D.Double orientedPoint = new Point2D.Double(0, 0);
         int y = firstPos;
 
-        for (Run run : runs) {
-            final int length = run.getLength();
+        for (int i = 0; i < runCount; i++) {
+            final int length = lengths[i];
             orientedPoint.y += (length * (2 * y));
-            orientedPoint.x += (length * ((2 * run.getStart()) + length));
+            orientedPoint.x += (length * ((2 * starts[i]) + length));
             y++;
         }
 
@@ -532,7 +548,7 @@ public class BasicSection
     @Override
     public Run getFirstRun ()
     {
-        return runs.get(0);
+        return getRun(0);
     }
 
     //--------//
@@ -559,7 +575,7 @@ public class BasicSection
     @Override
     public Run getLastRun ()
     {
-        return runs.get(runs.size() - 1);
+        return getRun(runCount - 1);
     }
 
     //-----------//
@@ -684,7 +700,7 @@ public class BasicSection
     @Override
     public int getRunCount ()
     {
-        return runs.size();
+        return runCount;
     }
 
     //---------//
@@ -693,7 +709,24 @@ public class BasicSection
     @Override
     public List<Run> getRuns ()
     {
-        return Collections.unmodifiableList(runs);
+        return new AbstractList<Run>()
+        {
+            @Override
+            public Run get (int index)
+            {
+                if ((index < 0) || (index >= runCount)) {
+                    throw new IndexOutOfBoundsException("Index: " + index + " Size: " + runCount);
+                }
+
+                return getRun(index);
+            }
+
+            @Override
+            public int size ()
+            {
+                return runCount;
+            }
+        };
     }
 
     //---------------//
@@ -768,11 +801,11 @@ public class BasicSection
     {
         int pos = getFirstPos();
 
-        for (Run run : runs) {
-            final int start = run.getStart();
+        for (int i = 0; i < runCount; i++) {
+            final int start = starts[i];
             final Rectangle runBox = (orientation == HORIZONTAL)
-                    ? new Rectangle(start, pos, run.getLength(), 1)
-                    : new Rectangle(pos, start, 1, run.getLength());
+                    ? new Rectangle(start, pos, lengths[i], 1)
+                    : new Rectangle(pos, start, 1, lengths[i]);
 
             if (shape.intersects(runBox)) {
                 return true;
@@ -910,11 +943,11 @@ public class BasicSection
 
         int pos = getFirstPos();
 
-        for (Run run : runs) {
-            final int start = run.getStart();
+        for (int i = 0; i < runCount; i++) {
+            final int start = starts[i];
             final Rectangle r1 = (orientation == HORIZONTAL)
-                    ? new Rectangle(start, pos, run.getLength(), 1)
-                    : new Rectangle(pos, start, 1, run.getLength());
+                    ? new Rectangle(start, pos, lengths[i], 1)
+                    : new Rectangle(pos, start, 1, lengths[i]);
 
             if (thatFatBox.intersects(r1)) {
                 // Check contact between this run and one of that runs
@@ -953,8 +986,8 @@ public class BasicSection
 
         firstPos += dp;
 
-        for (Run run : runs) {
-            run.translate(dc);
+        for (int i = 0; i < runCount; i++) {
+            starts[i] += dc;
         }
 
         if (centroid != null) {
@@ -980,10 +1013,10 @@ public class BasicSection
 
         int y = getFirstPos();
 
-        for (Run run : runs) {
-            int stop = run.getStop();
+        for (int i = 0; i < runCount; i++) {
+            final int stop = (starts[i] + lengths[i]) - 1;
 
-            for (int x = run.getStart(); x <= stop; x++) {
+            for (int x = starts[i]; x <= stop; x++) {
                 oLine.includePoint(x, y);
             }
 
@@ -1002,6 +1035,72 @@ public class BasicSection
         return orientation.isVertical() ? "V" : "H";
     }
 
+    //--------------//
+    // afterMarshal //
+    //--------------//
+    /**
+     * Called immediately after marshalling of this object.
+     * We release the temporary collection of runs.
+     */
+    @SuppressWarnings("unused")
+    private void afterMarshal (Marshaller m)
+    {
+        xmlRuns = null;
+    }
+
+    //----------------//
+    // afterUnmarshal //
+    //----------------//
+    /**
+     * Called immediately after unmarshalling of this object.
+     * We pack the unmarshalled runs into the run arrays.
+     */
+    @SuppressWarnings("unused")
+    private void afterUnmarshal (Unmarshaller um,
+                                 Object parent)
+    {
+        if (xmlRuns != null) {
+            runCount = xmlRuns.size();
+            starts = new int[runCount];
+            lengths = new int[runCount];
+
+            for (int i = 0; i < runCount; i++) {
+                final Run run = xmlRuns.get(i);
+                starts[i] = run.getStart();
+                lengths[i] = run.getLength();
+            }
+
+            xmlRuns = null;
+        }
+    }
+
+    //---------------//
+    // beforeMarshal //
+    //---------------//
+    /**
+     * Called immediately before the marshalling of this object begins.
+     * We populate the temporary collection of runs from the run arrays.
+     */
+    @SuppressWarnings("unused")
+    private void beforeMarshal (Marshaller m)
+    {
+        xmlRuns = new ArrayList<Run>(getRuns());
+    }
+
+    //--------//
+    // getRun //
+    //--------//
+    /**
+     * Build the run at provided index.
+     *
+     * @param index index of run within section
+     * @return a new run instance
+     */
+    private Run getRun (int index)
+    {
+        return new Run(starts[index], lengths[index]);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.awt.Point;
 import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.util.Arrays;
 
 /**
  * Class {@code DynamicSection} is a section that can evolve by adding runs or
@@ -69,11 +70,30 @@ public class DynamicSection
      */
     public void append (Run run)
     {
-        run = new Run(run);
-        runs.add(run);
-        addRun(run);
+        append(run.getStart(), run.getLength());
+    }
 
-        logger.debug("Appended {} to {}", run, this);
+    //--------//
+    // append //
+    //--------//
+    /**
+     * Extend a section with the given run data.
+     * This new run is assumed to be contiguous to the current last run of the section,
+     * no check is performed.
+     *
+     * @param start  start coordinate of the new last run
+     * @param length length of the new last run
+     */
+    public void append (int start,
+                        int length)
+    {
+        ensureCapacity();
+        starts[runCount] = start;
+        lengths[runCount] = length;
+        runCount++;
+        addRun(length);
+
+        logger.debug("Appended run {}/{} to {}", start, length, this);
     }
 
     //-------------//
@@ -89,6 +109,32 @@ public class DynamicSection
         return centroid;
     }
 
+    //--------------//
+    // getLastStart //
+    //--------------//
+    /**
+     * Report the start coordinate of the last run, without any Run allocation.
+     *
+     * @return start of last run
+     */
+    int getLastStart ()
+    {
+        return starts[runCount - 1];
+    }
+
+    //-------------//
+    // getLastStop //
+    //-------------//
+    /**
+     * Report the stop coordinate of the last run, without any Run allocation.
+     *
+     * @return stop of last run
+     */
+    int getLastStop ()
+    {
+        return (starts[runCount - 1] + lengths[runCount - 1]) - 1;
+    }
+
     //-------------------//
     // getOrientedBounds //
     //-------------------//
@@ -151,12 +197,16 @@ public class DynamicSection
      */
     public void prepend (Run run)
     {
-        run = new Run(run);
         logger.debug("Prepending {} to {}", run, this);
 
+        ensureCapacity();
+        System.arraycopy(starts, 0, starts, 1, runCount);
+        System.arraycopy(lengths, 0, lengths, 1, runCount);
+        starts[0] = run.getStart();
+        lengths[0] = run.getLength();
+        runCount++;
         firstPos--;
-        runs.add(0, run);
-        addRun(run);
+        addRun(run.getLength());
 
         logger.debug("Prepended {}", this);
     }
@@ -193,8 +243,8 @@ public class DynamicSection
         // Apply the needed modifications
         firstPos += dp;
 
-        for (Run run : runs) {
-            run.translate(dc);
+        for (int i = 0; i < runCount; i++) {
+            starts[i] += dc;
         }
 
         // Force update
@@ -207,15 +257,15 @@ public class DynamicSection
     /**
      * Compute incrementally the cached parameters.
      *
-     * @param run the run to be processed
+     * @param length the length of the run to be processed
      */
-    protected void addRun (Run run)
+    protected void addRun (int length)
     {
         // Invalidate cached data
         invalidateCache();
 
         // Compute contribution of this run
-        computeRunContribution(run);
+        computeRunContribution(length);
     }
 
     //-----------------//
@@ -226,10 +276,10 @@ public class DynamicSection
         Point orientedPoint = new Point(0, 0);
         int y = firstPos;
 
-        for (Run run : runs) {
-            final int length = run.getLength();
+        for (int i = 0; i < runCount; i++) {
+            final int length = lengths[i];
             orientedPoint.y += (length * (2 * y));
-            orientedPoint.x += (length * ((2 * run.getStart()) + length));
+            orientedPoint.x += (length * ((2 * starts[i]) + length));
             y++;
         }
 
@@ -249,8 +299,8 @@ public class DynamicSection
         maxRunLength = 0;
 
         // maxRunLength
-        for (Run run : runs) {
-            computeRunContribution(run);
+        for (int i = 0; i < runCount; i++) {
+            computeRunContribution(lengths[i]);
         }
 
         // Invalidate cached data
@@ -296,9 +346,8 @@ public class DynamicSection
     //------------------------//
     // computeRunContribution //
     //------------------------//
-    protected void computeRunContribution (Run run)
+    protected void computeRunContribution (int length)
     {
-        final int length = run.getLength();
         weight += length;
         maxRunLength = Math.max(maxRunLength, length);
     }
@@ -339,7 +388,6 @@ public class DynamicSection
         int xPrev = -1;
 
         for (int i = iStart; i != iBreak; i += dir) {
-            Run run = runs.get(i);
 
             // +----------------------------+
             // +--+-------------------------+
@@ -350,7 +398,7 @@ public class DynamicSection
             // Vertical lag:    Horizontal lag:
             //     1 2              1 4
             //     4 3              2 3
-            int x = (dir > 0) ? run.getStart() : (run.getStop() + 1);
+            int x = (dir > 0) ? starts[i] : (starts[i] + lengths[i]);
 
             if (x != xPrev) {
                 if (xPrev != -1) {
@@ -377,11 +425,26 @@ public class DynamicSection
 
         if (dir < 0) {
             // Finish with starting point
-            xpoints[index] = runs.get(0).getStart();
+            xpoints[index] = starts[0];
             ypoints[index] = getFirstPos();
             index++;
         }
 
         return index;
     }
+
+    //----------------//
+    // ensureCapacity //
+    //----------------//
+    /**
+     * Make sure the run arrays can accept one more run.
+     */
+    private void ensureCapacity ()
+    {
+        if (runCount == starts.length) {
+            final int capacity = Math.max(4, 2 * runCount);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+    }
 }
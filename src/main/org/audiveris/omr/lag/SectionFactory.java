@@ -36,10 +36,10 @@ import org.slf4j.LoggerFactory;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Class {@code SectionFactory} builds a collection of sections out of provided runs.
@@ -79,9 +79,6 @@ public class SectionFactory
     /** Policy for detection of junctions. */
     private final JunctionPolicy junctionPolicy;
 
-    /** Processed sections. true/false */
-    private final Set<DynamicSection> processedSections = new LinkedHashSet<DynamicSection>();
-
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create an instance of SectionFactory with a target lag.
@@ -205,22 +202,6 @@ public class SectionFactory
         return sections;
     }
 
-    //-------------//
-    // isProcessed //
-    //-------------//
-    private boolean isProcessed (DynamicSection dynSection)
-    {
-        return processedSections.contains(dynSection);
-    }
-
-    //--------------//
-    // setProcessed //
-    //--------------//
-    private void setProcessed (DynamicSection dynSection)
-    {
-        processedSections.add(dynSection);
-    }
-
     //~ Inner Classes ------------------------------------------------------------------------------
     //-------//
     // Build //
@@ -242,20 +223,29 @@ public class SectionFactory
         /** Counter to set dynamicsection ids when no lag is used. */
         private int localId;
 
-        /** Global list of all sections created. */
+        /**
+         * Global list of all sections created.
+         * The index of a section in this list is used to refer to the section in the arrays below.
+         */
         private final List<DynamicSection> created = new ArrayList<DynamicSection>();
 
-        /** All Active sections in the next sequence. */
-        private final List<DynamicSection> nextActives = new ArrayList<DynamicSection>();
+        /** Indices of sections that can no longer be continued. */
+        private final BitSet processed = new BitSet();
 
-        /** List of sections in previous sequence that overlap given run in next sequence. */
-        private final List<DynamicSection> overlappingSections = new ArrayList<DynamicSection>();
+        /** Indices of all active sections in the next sequence. */
+        private int[] nextActives = new int[64];
+
+        /** Number of active sections in the next sequence. */
+        private int nextCount;
 
         /**
-         * List of all Active sections in the previous sequence, which means only
+         * Indices of all active sections in the previous sequence, which means only
          * sections that have a run in previous sequence.
          */
-        private final List<DynamicSection> prevActives = new ArrayList<DynamicSection>();
+        private int[] prevActives = new int[64];
+
+        /** Number of active sections in the previous sequence. */
+        private int prevCount;
 
         //~ Methods --------------------------------------------------------------------------------
         //--------------//
@@ -273,24 +263,26 @@ public class SectionFactory
         {
             // All runs (if any) in first sequence start each their own dynamicSection
             for (Iterator<Run> it = runTable.iterator(0); it.hasNext();) {
-                nextActives.add(createSection(0, it.next()));
+                addNextActive(createSection(0, it.next()));
             }
 
             // Now scan each pair of sequences, starting at 2nd sequence
             for (int col = 1, size = runTable.getSize(); col < size; col++) {
                 // If we have runs in this sequence
                 if (!runTable.isSequenceEmpty(col)) {
-                    // Copy the former next actives sections as the new previous active sections
-                    prevActives.clear();
-                    prevActives.addAll(nextActives);
-                    nextActives.clear();
+                    // The former next actives sections become the new previous active sections
+                    final int[] actives = prevActives;
+                    prevActives = nextActives;
+                    prevCount = nextCount;
+                    nextActives = actives;
+                    nextCount = 0;
 
                     // Process all sections of previous sequence, then prevActives
                     // will contain only active sections (that may be continued)
                     logger.debug("Prev sequence");
 
-                    for (DynamicSection dynSection : prevActives) {
-                        processPrevSide(dynSection, runTable, col);
+                    for (int i = 0; i < prevCount; i++) {
+                        processPrevSide(prevActives[i], runTable, col);
                     }
 
                     // Process all runs of next sequence
@@ -300,7 +292,7 @@ public class SectionFactory
                         processNextSide(col, it.next());
                     }
                 } else {
-                    nextActives.clear();
+                    nextCount = 0;
                 }
             }
 
@@ -312,16 +304,29 @@ public class SectionFactory
             return created;
         }
 
+        //---------------//
+        // addNextActive //
+        //---------------//
+        private void addNextActive (int index)
+        {
+            if (nextCount == nextActives.length) {
+                nextActives = Arrays.copyOf(nextActives, 2 * nextCount);
+            }
+
+            nextActives[nextCount++] = index;
+        }
+
         //-----------------//
         // continueSection //
         //-----------------//
-        private void continueSection (DynamicSection dynSection,
+        private void continueSection (int index,
                                       Run run)
         {
+            final DynamicSection dynSection = created.get(index);
             logger.debug("Continuing section {} with {}", dynSection, run);
 
-            dynSection.append(run);
-            nextActives.add(dynSection);
+            dynSection.append(run.getStart(), run.getLength());
+            addNextActive(index);
         }
 
         //---------------//
@@ -332,10 +337,10 @@ public class SectionFactory
          *
          * @param firstPos the starting position of the section
          * @param firstRun the very first run of the section
-         * @return the created section
+         * @return the index of created section
          */
-        private DynamicSection createSection (int firstPos,
-                                              Run firstRun)
+        private int createSection (int firstPos,
+                                   Run firstRun)
         {
             if (firstRun == null) {
                 throw new IllegalArgumentException("null first run");
@@ -350,11 +355,11 @@ public class SectionFactory
             }
 
             dynSection.setFirstPos(firstPos);
-            dynSection.append(firstRun);
+            dynSection.append(firstRun.getStart(), firstRun.getLength());
 
             created.add(dynSection);
 
-            return dynSection;
+            return created.size() - 1;
         }
 
         //-----------------//
@@ -373,50 +378,49 @@ public class SectionFactory
             int nextStop = run.getStop();
 
             // Check if overlap with a section run in previous sequence
-            // All such sections are then stored in overlappingSections
-            overlappingSections.clear();
+            // We count such sections and remember the first one
+            int overlapNb = 0;
+            int firstOverlap = -1;
 
-            for (DynamicSection dynSection : prevActives) {
-                Run lastRun = dynSection.getLastRun();
+            for (int i = 0; i < prevCount; i++) {
+                final DynamicSection dynSection = created.get(prevActives[i]);
 
-                if (lastRun.getStart() > nextStop) {
+                if (dynSection.getLastStart() > nextStop) {
                     break;
                 }
 
-                if (lastRun.getStop() >= nextStart) {
-                    logger.debug("Overlap from {} to {}", lastRun, run);
-                    overlappingSections.add(dynSection);
+                if (dynSection.getLastStop() >= nextStart) {
+                    logger.debug("Overlap from {} to {}", dynSection, run);
+
+                    if (overlapNb++ == 0) {
+                        firstOverlap = prevActives[i];
+                    }
                 }
             }
 
             // Processing now depends on nb of overlapping runs
-            logger.debug("overlap={}", overlappingSections.size());
+            logger.debug("overlap={}", overlapNb);
 
-            switch (overlappingSections.size()) {
+            switch (overlapNb) {
             case 0: // Begin a brand new section
-                nextActives.add(createSection(col, run));
+                addNextActive(createSection(col, run));
 
                 break;
 
             case 1: // Continuing sections (if not finished)
 
-                DynamicSection prevSection = overlappingSections.get(0);
-
-                if (!isProcessed(prevSection)) {
-                    continueSection(prevSection, run);
+                if (!processed.get(firstOverlap)) {
+                    continueSection(firstOverlap, run);
                 } else {
                     // Create a new section, linked by a junction
-                    DynamicSection newSection = createSection(col, run);
-                    nextActives.add(newSection);
+                    addNextActive(createSection(col, run));
                 }
 
                 break;
 
             default: // Converging sections, end them, start a new one
                 logger.debug("Converging at {}", run);
-
-                DynamicSection newSection = createSection(col, run);
-                nextActives.add(newSection);
+                addNextActive(createSection(col, run));
             }
         }
 
@@ -427,22 +431,23 @@ public class SectionFactory
          * Take care of the first sequence, at the given section/run,
          * checking links to the next sequence runs that overlap this run.
          *
-         * @param dynSection the section at hand
-         * @param runTable   the table of runs
-         * @param nextCol    column for the next sequence
+         * @param index    index of the section at hand
+         * @param runTable the table of runs
+         * @param nextCol  column for the next sequence
          */
-        private void processPrevSide (DynamicSection dynSection,
+        private void processPrevSide (int index,
                                       RunTable runTable,
                                       int nextCol)
         {
-            Run lastRun = dynSection.getLastRun();
-            int prevStart = lastRun.getStart();
-            int prevStop = lastRun.getStop();
+            final DynamicSection dynSection = created.get(index);
+            final int prevStart = dynSection.getLastStart();
+            final int prevStop = dynSection.getLastStop();
             logger.debug("processPrevSide for section {}", dynSection);
 
             // Check if overlap with a run in next sequence
             int overlapNb = 0;
-            Run overlapRun = null;
+            int overlapStart = 0;
+            int overlapLength = 0;
 
             for (Iterator<Run> it = runTable.iterator(nextCol); it.hasNext();) {
                 Run run = it.next();
@@ -452,9 +457,10 @@ public class SectionFactory
                 }
 
                 if (run.getStop() >= prevStart) {
-                    logger.debug("Overlap from {} to {}", lastRun, run);
+                    logger.debug("Overlap from {} to {}", dynSection, run);
                     overlapNb++;
-                    overlapRun = new Run(run);
+                    overlapStart = run.getStart();
+                    overlapLength = run.getLength();
                 }
             }
 
@@ -469,6 +475,8 @@ public class SectionFactory
 
             case 1: // Continue if consistent
 
+                final Run overlapRun = new Run(overlapStart, overlapLength);
+
                 if (junctionPolicy.consistentRun(overlapRun, dynSection)) {
                     logger.debug(
                             "Perhaps extending section {} with run {}",
@@ -479,13 +487,13 @@ public class SectionFactory
                             "Incompatible height between {} and run {}",
                             dynSection,
                             overlapRun);
-                    setProcessed(dynSection);
+                    processed.set(index);
                 }
 
                 break;
 
             default: // Diverging, so conclude the section here
-                setProcessed(dynSection);
+                processed.set(index);
             }
         }
     }
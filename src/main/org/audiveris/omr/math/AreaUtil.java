@@ -21,7 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.math;
 
-import ij.process.ByteProcessor;
+import org.audiveris.omr.image.PackedBitmap;
 
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
@@ -99,7 +99,7 @@ public abstract class AreaUtil
      * @param rightLimit limit on right side
      * @return the CoreData measured
      */
-    public static CoreData verticalCore (ByteProcessor filter,
+    public static CoreData verticalCore (PackedBitmap filter,
                                          GeoPath leftLimit,
                                          GeoPath rightLimit)
     {
@@ -117,17 +117,7 @@ public abstract class AreaUtil
             final int xMax = (int) Math.ceil(rightLimit.xAtY(y));
 
             // Make sure the row is not empty
-            boolean empty = true;
-
-            for (int x = xMin; x <= xMax; x++) {
-                if (filter.get(x, y) == 0) {
-                    empty = false;
-
-                    break;
-                }
-            }
-
-            if (empty) {
+            if (filter.count(y, xMin, xMax) == 0) {
                 whiteCount++;
                 lastWhiteY = y;
 
@@ -0,0 +1,244 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 M u t a b l e R a t i o n a l                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+/**
+ * Class {@code MutableRational} is a rational accumulator, meant for the loops that
+ * cumulate or compare many {@link Rational} values, such as time offsets and durations.
+ * <p>
+ * Values are kept on a common denominator and are reduced only when this denominator gets too
+ * large or when a {@link Rational} is finally requested, so that no object is allocated and no
+ * gcd computed at each operation.
+ *
+ * @author Hervé Bitteur
+ */
+public class MutableRational
+        implements Comparable<MutableRational>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Denominator value beyond which reduction is performed. */
+    private static final long MAX_DEN = Integer.MAX_VALUE;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Current numerator value. */
+    private long num;
+
+    /** Current denominator value, always positive. */
+    private long den = 1;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code MutableRational} object, with zero value.
+     */
+    public MutableRational ()
+    {
+    }
+
+    /**
+     * Creates a new {@code MutableRational} object, with the provided value.
+     *
+     * @param val initial value
+     */
+    public MutableRational (Rational val)
+    {
+        set(val);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----//
+    // add //
+    //-----//
+    /**
+     * Add the provided value.
+     *
+     * @param val the value to add
+     * @return this instance, for chaining
+     */
+    public MutableRational add (Rational val)
+    {
+        add(val.num, val.den);
+
+        return this;
+    }
+
+    //-----//
+    // add //
+    //-----//
+    /**
+     * Add the provided value.
+     *
+     * @param that the value to add
+     * @return this instance, for chaining
+     */
+    public MutableRational add (MutableRational that)
+    {
+        add(that.num, that.den);
+
+        return this;
+    }
+
+    //-----------//
+    // compareTo //
+    //-----------//
+    /**
+     * Compare with the provided value.
+     *
+     * @param val the provided value
+     * @return -1, 0, 1 if this &lt;, ==, &gt; val respectively
+     */
+    public int compareTo (Rational val)
+    {
+        return Long.signum((num * val.den) - (val.num * den));
+    }
+
+    //-----------//
+    // compareTo //
+    //-----------//
+    @Override
+    public int compareTo (MutableRational that)
+    {
+        return Long.signum((num * that.den) - (that.num * den));
+    }
+
+    //--------//
+    // signum //
+    //--------//
+    /**
+     * Report the sign of this value.
+     *
+     * @return -1, 0, 1 if this value is negative, zero, positive respectively
+     */
+    public int signum ()
+    {
+        return Long.signum(num);
+    }
+
+    //-----//
+    // set //
+    //-----//
+    /**
+     * Assign the provided value.
+     *
+     * @param val the value to assign
+     * @return this instance, for chaining
+     */
+    public MutableRational set (Rational val)
+    {
+        num = val.num;
+        den = val.den;
+
+        return this;
+    }
+
+    //-----//
+    // set //
+    //-----//
+    /**
+     * Assign the provided value.
+     *
+     * @param that the value to assign
+     * @return this instance, for chaining
+     */
+    public MutableRational set (MutableRational that)
+    {
+        num = that.num;
+        den = that.den;
+
+        return this;
+    }
+
+    //----------//
+    // subtract //
+    //----------//
+    /**
+     * Subtract the provided value.
+     *
+     * @param val the value to subtract
+     * @return this instance, for chaining
+     */
+    public MutableRational subtract (Rational val)
+    {
+        add(-val.num, val.den);
+
+        return this;
+    }
+
+    //------------//
+    // toRational //
+    //------------//
+    /**
+     * Report the current value as a (reduced) Rational instance.
+     *
+     * @return the current value
+     */
+    public Rational toRational ()
+    {
+        reduce();
+
+        return new Rational((int) num, (int) den);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return toRational().toString();
+    }
+
+    //-----//
+    // add //
+    //-----//
+    private void add (long n,
+                      long d)
+    {
+        if (d == den) {
+            num += n;
+        } else if ((den % d) == 0) {
+            num += (n * (den / d));
+        } else {
+            final long g = GCD.gcd(den, d);
+            final long m = d / g;
+            num = (num * m) + (n * (den / g));
+            den *= m;
+
+            if (den > MAX_DEN) {
+                reduce();
+            }
+        }
+    }
+
+    //--------//
+    // reduce //
+    //--------//
+    private void reduce ()
+    {
+        final long g = GCD.gcd(Math.abs(num), den);
+
+        if (g > 1) {
+            num /= g;
+            den /= g;
+        }
+    }
+}
@@ -21,8 +21,6 @@
 // </editor-fold>
 package org.audiveris.omr.math;
 
-import java.math.BigInteger;
-
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -182,23 +180,8 @@ public class Rational
     @Override
     public int compareTo (Rational that)
     {
-        int a = this.num * that.den;
-        int b = this.den * that.num;
-
-        // Detect overflow, using the fact that den's are always >= 1
-        if ((Integer.signum(b) != Integer.signum(that.num))
-            || (Integer.signum(a) != Integer.signum(this.num))) {
-            BigInteger bigThisNum = BigInteger.valueOf(this.num);
-            BigInteger bigThisDen = BigInteger.valueOf(this.den);
-            BigInteger bigThatNum = BigInteger.valueOf(that.num);
-            BigInteger bigThatDen = BigInteger.valueOf(that.den);
-            BigInteger A = bigThisNum.multiply(bigThatDen);
-            BigInteger B = bigThisDen.multiply(bigThatNum);
-
-            return A.compareTo(B);
-        } else {
-            return Integer.signum(a - b);
-        }
+        // Products of two int values cannot overflow a long, since den's are always >= 1
+        return Long.signum(((long) this.num * that.den) - ((long) this.den * that.num));
     }
 
     //---------//
@@ -362,14 +345,18 @@ public class Rational
      */
     public Rational plus (Rational that)
     {
-        if (this.equals(ZERO)) {
+        if (this.num == 0) {
             return that;
         }
 
-        if (that.equals(ZERO)) {
+        if (that.num == 0) {
             return this;
         }
 
+        if (this.den == that.den) {
+            return new Rational(this.num + that.num, this.den);
+        }
+
         return new Rational((this.num * that.den) + (this.den * that.num), this.den * that.den);
     }
 
@@ -113,92 +113,54 @@ public class GeometricMoments
                              int[] yy,
                              int dim,
                              int unit)
+    {
+        this(new GeometricSums(xx, yy, dim), unit);
+    }
+
+    //------------------//
+    // GeometricMoments //
+    //------------------//
+    /**
+     * Compute the moments out of the raw sums of a set of points, all values being
+     * normalized by the provided unit value.
+     * <p>
+     * Central moments are derived from exact integer sums, so that the result depends only on
+     * the set of points, regardless of the order or grouping in which the points were summed.
+     *
+     * @param sums the raw sums of points
+     * @param unit the length (number of pixels) of normalizing unit
+     */
+    public GeometricMoments (GeometricSums sums,
+                             int unit)
     {
         // Safety check
         if (unit == 0) {
             throw new IllegalArgumentException("Zero-valued unit");
         }
 
-        int xMin = Integer.MAX_VALUE;
-        int xMax = Integer.MIN_VALUE;
-        int yMin = Integer.MAX_VALUE;
-        int yMax = Integer.MIN_VALUE;
+        final int dim = sums.getWeight();
 
         // Normalized GeometricMoments
         double n00 = (double) dim / (double) (unit * unit);
-        double n01 = 0d;
-        double n02 = 0d;
-        double n03 = 0d;
-        double n10 = 0d;
-        double n11 = 0d;
-        double n12 = 0d;
-        double n20 = 0d;
-        double n21 = 0d;
-        double n30 = 0d;
-
-        // Total weight
+
+        // Normalizing coefficients
         double w = dim; // For p+q == 0
         double w2 = w * w; // For p+q == 2
         double w3 = Math.sqrt(w * w * w * w * w); // For p+q == 3
 
-        // Mean x & y, width & height
-        for (int i = dim - 1; i >= 0; i--) {
-            int x = xx[i];
-            n10 += x;
-
-            if (x < xMin) {
-                xMin = x;
-            }
-
-            if (x > xMax) {
-                xMax = x;
-            }
-
-            int y = yy[i];
-            n01 += y;
-
-            if (y < yMin) {
-                yMin = y;
-            }
-
-            if (y > yMax) {
-                yMax = y;
-            }
-        }
-
-        n10 /= dim;
-        n01 /= dim;
-
-        for (int i = dim - 1; i >= 0; i--) {
-            // Coordinates centered around center of mass
-            double x = xx[i] - n10;
-            double y = yy[i] - n01;
-            n11 += (x * y);
-            n12 += (x * y * y);
-            n21 += (x * x * y);
-            n20 += (x * x);
-            n02 += (y * y);
-            n30 += (x * x * x);
-            n03 += (y * y * y);
-        }
+        // Central moments, weighted by dim**(p+q-1)
+        double n20 = sums.getCentral(2, 0).doubleValue() / w / w2;
+        double n11 = sums.getCentral(1, 1).doubleValue() / w / w2;
+        double n02 = sums.getCentral(0, 2).doubleValue() / w / w2;
+        double n30 = sums.getCentral(3, 0).doubleValue() / w2 / w3;
+        double n21 = sums.getCentral(2, 1).doubleValue() / w2 / w3;
+        double n12 = sums.getCentral(1, 2).doubleValue() / w2 / w3;
+        double n03 = sums.getCentral(0, 3).doubleValue() / w2 / w3;
 
-        // Normalize
-        //
-        // p + q = 2
-        n11 /= w2;
-        n20 /= w2;
-        n02 /= w2;
-        //
-        // p + q = 3
-        n12 /= w3;
-        n21 /= w3;
-        n30 /= w3;
-        n03 /= w3;
-
-        // Unit-based weight, width and height
+        // Unit-normalized stuff
         k[0] = n00; // Unit-based Weight
-        k[1] = (double) (xMax - xMin + 1) / unit; // Unit-based Width
-        k[2] = (double) (yMax - yMin + 1) / unit; // Unit-based Height
+        k[1] = (double) sums.getWidth() / unit; // Unit-based Width
+        k[2] = (double) sums.getHeight() / unit; // Unit-based Height
 
         // Non-orthogonal central moments
         // (invariant to translation & scaling)
@@ -211,8 +173,8 @@ public class GeometricMoments
         k[9] = n03; // Y signed eccentricity
 
         // Mass center
-        k[10] = n10; // xBar
-        k[11] = n01; // yBar
+        k[10] = sums.getXBar(); // xBar
+        k[11] = sums.getYBar(); // yBar
 
         if (useHuCoefficients) {
             // Orthogonals moments (Hu set)
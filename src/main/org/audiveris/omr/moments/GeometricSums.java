@@ -0,0 +1,390 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   G e o m e t r i c S u m s                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import java.math.BigInteger;
+
+/**
+ * Class {@code GeometricSums} gathers the raw sums of powers of point coordinates, up to
+ * order 3, from which {@link GeometricMoments} can be derived.
+ * <p>
+ * Unlike moments, sums are additive: the sums of a compound of disjoint point sets is simply the
+ * sum of the sums of each set.
+ * This allows to evaluate the moments of a compound without collecting its points again.
+ * <p>
+ * All sums are kept as exact long values, based on absolute coordinates.
+ *
+ * @author Hervé Bitteur
+ */
+public class GeometricSums
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Number of points. */
+    private long n;
+
+    private long sx;
+
+    private long sy;
+
+    private long sxx;
+
+    private long sxy;
+
+    private long syy;
+
+    private long sxxx;
+
+    private long sxxy;
+
+    private long sxyy;
+
+    private long syyy;
+
+    private int xMin = Integer.MAX_VALUE;
+
+    private int xMax = Integer.MIN_VALUE;
+
+    private int yMin = Integer.MAX_VALUE;
+
+    private int yMax = Integer.MIN_VALUE;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates empty sums.
+     */
+    public GeometricSums ()
+    {
+    }
+
+    /**
+     * Creates a copy of the provided sums.
+     *
+     * @param that the sums to copy
+     */
+    public GeometricSums (GeometricSums that)
+    {
+        include(that);
+    }
+
+    /**
+     * Creates the sums for a set of points whose x and y coordinates are provided.
+     *
+     * @param xx  the array of abscissa values
+     * @param yy  the array of ordinate values
+     * @param dim the number of points
+     */
+    public GeometricSums (int[] xx,
+                          int[] yy,
+                          int dim)
+    {
+        for (int i = dim - 1; i >= 0; i--) {
+            final long x = xx[i];
+            final long y = yy[i];
+            sx += x;
+            sy += y;
+            sxx += (x * x);
+            sxy += (x * y);
+            syy += (y * y);
+            sxxx += (x * x * x);
+            sxxy += (x * x * y);
+            sxyy += (x * y * y);
+            syyy += (y * y * y);
+
+            if (x < xMin) {
+                xMin = (int) x;
+            }
+
+            if (x > xMax) {
+                xMax = (int) x;
+            }
+
+            if (y < yMin) {
+                yMin = (int) y;
+            }
+
+            if (y > yMax) {
+                yMax = (int) y;
+            }
+        }
+
+        n = dim;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // getCentral //
+    //------------//
+    /**
+     * Report the central moment of order (p,q), multiplied by n**(p+q-1) to remain an exact
+     * integer value.
+     * <p>
+     * The result is invariant by translation of the points.
+     *
+     * @param p order in x
+     * @param q order in y
+     * @return n**(p+q-1) * sum of ((x-xBar)**p * (y-yBar)**q)
+     */
+    public BigInteger getCentral (int p,
+                                  int q)
+    {
+        final BigInteger bn = BigInteger.valueOf(n);
+        final BigInteger bx = BigInteger.valueOf(sx);
+        final BigInteger by = BigInteger.valueOf(sy);
+        final BigInteger two = BigInteger.valueOf(2);
+        final BigInteger three = BigInteger.valueOf(3);
+
+        switch ((10 * p) + q) {
+        case 20:
+            return bn.multiply(BigInteger.valueOf(sxx)).subtract(bx.multiply(bx));
+
+        case 11:
+            return bn.multiply(BigInteger.valueOf(sxy)).subtract(bx.multiply(by));
+
+        case 2:
+            return bn.multiply(BigInteger.valueOf(syy)).subtract(by.multiply(by));
+
+        case 30:
+            return bn.multiply(bn).multiply(BigInteger.valueOf(sxxx))
+                    .subtract(three.multiply(bn).multiply(bx).multiply(BigInteger.valueOf(sxx)))
+                    .add(two.multiply(bx.pow(3)));
+
+        case 21:
+            return bn.multiply(bn).multiply(BigInteger.valueOf(sxxy))
+                    .subtract(two.multiply(bn).multiply(bx).multiply(BigInteger.valueOf(sxy)))
+                    .subtract(bn.multiply(by).multiply(BigInteger.valueOf(sxx)))
+                    .add(two.multiply(bx.pow(2)).multiply(by));
+
+        case 12:
+            return bn.multiply(bn).multiply(BigInteger.valueOf(sxyy))
+                    .subtract(two.multiply(bn).multiply(by).multiply(BigInteger.valueOf(sxy)))
+                    .subtract(bn.multiply(bx).multiply(BigInteger.valueOf(syy)))
+                    .add(two.multiply(by.pow(2)).multiply(bx));
+
+        case 3:
+            return bn.multiply(bn).multiply(BigInteger.valueOf(syyy))
+                    .subtract(three.multiply(bn).multiply(by).multiply(BigInteger.valueOf(syy)))
+                    .add(two.multiply(by.pow(3)));
+
+        default:
+            throw new IllegalArgumentException("Unsupported order " + p + "," + q);
+        }
+    }
+
+    //-----------//
+    // getHeight //
+    //-----------//
+    /**
+     * Report the height of the points bounding box.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight ()
+    {
+        return yMax - yMin + 1;
+    }
+
+    //-----------//
+    // getWeight //
+    //-----------//
+    /**
+     * Report the number of points.
+     *
+     * @return the points count
+     */
+    public int getWeight ()
+    {
+        return (int) n;
+    }
+
+    //----------//
+    // getWidth //
+    //----------//
+    /**
+     * Report the width of the points bounding box.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth ()
+    {
+        return xMax - xMin + 1;
+    }
+
+    //---------//
+    // getXBar //
+    //---------//
+    /**
+     * Report the abscissa of mass center.
+     *
+     * @return mean abscissa
+     */
+    public double getXBar ()
+    {
+        return (double) sx / n;
+    }
+
+    //---------//
+    // getYBar //
+    //---------//
+    /**
+     * Report the ordinate of mass center.
+     *
+     * @return mean ordinate
+     */
+    public double getYBar ()
+    {
+        return (double) sy / n;
+    }
+
+    //---------//
+    // include //
+    //---------//
+    /**
+     * Add the sums of another (disjoint) set of points.
+     *
+     * @param that the sums to include
+     */
+    public final void include (GeometricSums that)
+    {
+        n += that.n;
+        sx += that.sx;
+        sy += that.sy;
+        sxx += that.sxx;
+        sxy += that.sxy;
+        syy += that.syy;
+        sxxx += that.sxxx;
+        sxxy += that.sxxy;
+        sxyy += that.sxyy;
+        syyy += that.syyy;
+        xMin = Math.min(xMin, that.xMin);
+        xMax = Math.max(xMax, that.xMax);
+        yMin = Math.min(yMin, that.yMin);
+        yMax = Math.max(yMax, that.yMax);
+    }
+
+    //----------------------//
+    // includeHorizontalRun //
+    //----------------------//
+    /**
+     * Add the points of a horizontal run, without enumerating them.
+     *
+     * @param x      abscissa of run first point
+     * @param y      run ordinate
+     * @param length run length
+     */
+    public void includeHorizontalRun (int x,
+                                      int y,
+                                      int length)
+    {
+        final long s0 = length;
+        final long s1 = sum1(x + length - 1) - sum1(x - 1);
+        final long s2 = sum2(x + length - 1) - sum2(x - 1);
+        final long s3 = sum3(x + length - 1) - sum3(x - 1);
+        final long c = y;
+
+        n += s0;
+        sx += s1;
+        sy += (s0 * c);
+        sxx += s2;
+        sxy += (s1 * c);
+        syy += (s0 * c * c);
+        sxxx += s3;
+        sxxy += (s2 * c);
+        sxyy += (s1 * c * c);
+        syyy += (s0 * c * c * c);
+        xMin = Math.min(xMin, x);
+        xMax = Math.max(xMax, (x + length) - 1);
+        yMin = Math.min(yMin, y);
+        yMax = Math.max(yMax, y);
+    }
+
+    //--------------------//
+    // includeVerticalRun //
+    //--------------------//
+    /**
+     * Add the points of a vertical run, without enumerating them.
+     *
+     * @param x      run abscissa
+     * @param y      ordinate of run first point
+     * @param length run length
+     */
+    public void includeVerticalRun (int x,
+                                    int y,
+                                    int length)
+    {
+        final long s0 = length;
+        final long s1 = sum1(y + length - 1) - sum1(y - 1);
+        final long s2 = sum2(y + length - 1) - sum2(y - 1);
+        final long s3 = sum3(y + length - 1) - sum3(y - 1);
+        final long c = x;
+
+        n += s0;
+        sx += (s0 * c);
+        sy += s1;
+        sxx += (s0 * c * c);
+        sxy += (s1 * c);
+        syy += s2;
+        sxxx += (s0 * c * c * c);
+        sxxy += (s1 * c * c);
+        sxyy += (s2 * c);
+        syyy += s3;
+        xMin = Math.min(xMin, x);
+        xMax = Math.max(xMax, x);
+        yMin = Math.min(yMin, y);
+        yMax = Math.max(yMax, (y + length) - 1);
+    }
+
+    //------//
+    // sum1 //
+    //------//
+    /**
+     * Sum of integers up to m (the formula remains valid as a difference for negative m).
+     */
+    private static long sum1 (long m)
+    {
+        return (m * (m + 1)) / 2;
+    }
+
+    //------//
+    // sum2 //
+    //------//
+    /**
+     * Sum of squares up to m.
+     */
+    private static long sum2 (long m)
+    {
+        return (m * (m + 1) * ((2 * m) + 1)) / 6;
+    }
+
+    //------//
+    // sum3 //
+    //------//
+    /**
+     * Sum of cubes up to m.
+     */
+    private static long sum3 (long m)
+    {
+        final long s1 = sum1(m);
+
+        return s1 * s1;
+    }
+}
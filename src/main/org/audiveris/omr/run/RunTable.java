@@ -31,6 +31,7 @@ import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.BasicARTExtractor;
 import org.audiveris.omr.moments.BasicARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.GeometricSums;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.util.ByteUtil;
 import org.audiveris.omr.util.Predicate;
@@ -53,6 +54,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
@@ -62,6 +64,7 @@ import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlValue;
 
 /**
@@ -103,6 +106,16 @@ public class RunTable
 
     private static JAXBContext jaxbContext;
 
+    /** Maximum background and foreground lengths of a shared single-run sequence. */
+    private static final int SHARED_MAX = 128;
+
+    /**
+     * Shared single-run sequences, indexed by (background, foreground) lengths.
+     * These are lazily populated and never modified.
+     */
+    private static final AtomicReferenceArray<RunSequence> sharedSequences
+            = new AtomicReferenceArray<RunSequence>(SHARED_MAX * SHARED_MAX);
+
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
     //----------------
@@ -212,6 +225,8 @@ public class RunTable
 
         if (sequence == null) {
             sequences[index] = sequence = new RunSequence();
+        } else if (sequence.shared) {
+            sequences[index] = sequence = new RunSequence(sequence.rle.clone());
         }
 
         int[] rle = sequence.rle;
@@ -335,27 +350,13 @@ public class RunTable
     public Point computeCentroid (int left,
                                   int top)
     {
-        // Retrieve glyph foreground points
-        getWeight(); // Make sure weight has been computed
+        final GeometricSums sums = computeGeometricSums(left, top);
 
-        if (weight == 0) {
+        if (sums.getWeight() == 0) {
             return null;
         }
 
-        final PointsCollector collector = new PointsCollector(null, weight);
-        cumulate(collector, new Point(left, top));
-
-        int[] xx = collector.getXValues();
-        int[] yy = collector.getYValues();
-        double x = 0;
-        double y = 0;
-
-        for (int i = weight - 1; i >= 0; i--) {
-            x += xx[i];
-            y += yy[i];
-        }
-
-        return new Point((int) Math.rint(x / weight), (int) Math.rint(y / weight));
+        return new Point((int) Math.rint(sums.getXBar()), (int) Math.rint(sums.getYBar()));
     }
 
     //-------------------------//
@@ -373,16 +374,41 @@ public class RunTable
                                                      int top,
                                                      int interline)
     {
-        // Retrieve glyph foreground points
-        final PointsCollector collector = new PointsCollector(null, getWeight());
-        cumulate(collector, new Point(left, top));
+        return new GeometricMoments(computeGeometricSums(left, top), interline);
+    }
+
+    //----------------------//
+    // computeGeometricSums //
+    //----------------------//
+    /**
+     * Compute the raw geometric sums for this runTable.
+     * <p>
+     * Sums are cumulated run by run, in a single pass over the RLE data, without collecting the
+     * foreground points.
+     *
+     * @param left abscissa of topLeft corner
+     * @param top  ordinate of topLeft corner
+     * @return the geometric sums
+     */
+    public GeometricSums computeGeometricSums (int left,
+                                               int top)
+    {
+        final GeometricSums sums = new GeometricSums();
+        final boolean isVertical = orientation == Orientation.VERTICAL;
+
+        for (int iSeq = 0, size = getSize(); iSeq < size; iSeq++) {
+            for (Iterator<Run> it = iterator(iSeq); it.hasNext();) {
+                final Run run = it.next();
+
+                if (isVertical) {
+                    sums.includeVerticalRun(left + iSeq, top + run.getStart(), run.getLength());
+                } else {
+                    sums.includeHorizontalRun(left + run.getStart(), top + iSeq, run.getLength());
+                }
+            }
+        }
 
-        // Then compute the geometric moments with this collector
-        return new GeometricMoments(
-                collector.getXValues(),
-                collector.getYValues(),
-                collector.getSize(),
-                interline);
+        return sums;
     }
 
     //----------//
@@ -1046,6 +1072,58 @@ public class RunTable
         }
     }
 
+    //--------//
+    // intern //
+    //--------//
+    /**
+     * Replace every sequence made of a single small run by its shared instance.
+     * <p>
+     * Most columns (or rows) of a glyph contain just one run, so this saves one RLE array and
+     * one sequence object per such column.
+     * Shared sequences are never modified: any later modification of this table works on a
+     * private copy of the impacted sequence.
+     *
+     * @return this table, for convenience
+     */
+    public RunTable intern ()
+    {
+        for (int i = 0; i < sequences.length; i++) {
+            final RunSequence seq = sequences[i];
+
+            if ((seq == null) || seq.shared || (seq.rle == null)) {
+                continue;
+            }
+
+            final int[] rle = seq.rle;
+            final int back;
+            final int fore;
+
+            if (rle.length == 1) {
+                back = 0;
+                fore = rle[0];
+            } else if ((rle.length == 3) && (rle[0] == 0)) {
+                back = rle[1];
+                fore = rle[2];
+            } else {
+                continue;
+            }
+
+            if ((back < SHARED_MAX) && (fore > 0) && (fore <= SHARED_MAX)) {
+                final int key = (back * SHARED_MAX) + (fore - 1);
+                RunSequence shared = sharedSequences.get(key);
+
+                if (shared == null) {
+                    sharedSequences.compareAndSet(key, null, new RunSequence(rle.clone(), true));
+                    shared = sharedSequences.get(key);
+                }
+
+                sequences[i] = shared;
+            }
+        }
+
+        return this;
+    }
+
     //------------//
     // intersects //
     //------------//
@@ -1675,14 +1753,26 @@ public class RunTable
         @XmlValue
         private int[] rle;
 
+        /** True for a shared instance, which must not be modified. */
+        @XmlTransient
+        private final boolean shared;
+
         //~ Constructors ---------------------------------------------------------------------------
         public RunSequence (int[] rle)
         {
-            this.rle = rle;
+            this(rle, false);
         }
 
         public RunSequence ()
         {
+            this(null, false);
+        }
+
+        private RunSequence (int[] rle,
+                             boolean shared)
+        {
+            this.rle = rle;
+            this.shared = shared;
         }
 
         //~ Methods --------------------------------------------------------------------------------
@@ -1852,6 +1942,10 @@ public class RunTable
         @Override
         public void remove ()
         {
+            if (sequences[index].shared) {
+                sequences[index] = new RunSequence(sequences[index].rle.clone());
+            }
+
             final int[] rle = sequences[index].rle;
             int c = cursor - 2;
 
@@ -0,0 +1,519 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                           I n d e n t i n g S t r e a m W r i t e r                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.proxymusic.util.StreamWriterDelegate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Class {@code IndentingStreamWriter} is an XMLStreamWriter which lays out MusicXML content
+ * exactly as ProxyMusic marshalling does: nested indentation, empty elements collapsed,
+ * a separating comment before each part and each measure, namespace declarations omitted.
+ * <p>
+ * It can start at any nesting level, which allows to format a single measure as it would appear
+ * within the whole score, and it can splice such pre-formatted content into the current element.
+ *
+ * @author Hervé Bitteur
+ */
+class IndentingStreamWriter
+        extends StreamWriterDelegate
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+    private static final String MEASURE_COMMENT
+            = "=======================================================";
+
+    private static final String PART_COMMENT
+            = "= = = = = = = = = = = = = = = = = = = = = = = = = = = = =";
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Indentation for one level. */
+    private final String indent;
+
+    /** Local names of the currently open elements. */
+    private final Deque<String> names = new ArrayDeque<String>();
+
+    /** Current nesting level. */
+    private int level;
+
+    /** True when the last written item was an element end. */
+    private boolean closing;
+
+    /** Start element not yet written, since it may turn out to be empty. */
+    private Pending pending;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code IndentingStreamWriter} object.
+     *
+     * @param writer the underlying writer
+     * @param indent number of spaces per level
+     * @param level  initial nesting level
+     * @throws XMLStreamException if namespace context cannot be set
+     */
+    IndentingStreamWriter (XMLStreamWriter writer,
+                           int indent,
+                           int level)
+            throws XMLStreamException
+    {
+        super(writer);
+        writer.setNamespaceContext(new MusicNamespaceContext());
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < indent; i++) {
+            sb.append(' ');
+        }
+
+        this.indent = sb.toString();
+        this.level = level;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // getLevel //
+    //----------//
+    /**
+     * Report the current nesting level.
+     *
+     * @return current level
+     */
+    int getLevel ()
+    {
+        return level;
+    }
+
+    //----------------//
+    // getCurrentName //
+    //----------------//
+    /**
+     * Report the local name of the innermost open element.
+     *
+     * @return local name, or null
+     */
+    String getCurrentName ()
+    {
+        return names.peek();
+    }
+
+    @Override
+    public void setNamespaceContext (NamespaceContext context)
+            throws XMLStreamException
+    {
+        // Keep our own context
+    }
+
+    @Override
+    public void writeAttribute (String localName,
+                                String value)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeAttribute(localName, value);
+    }
+
+    @Override
+    public void writeAttribute (String namespaceURI,
+                                String localName,
+                                String value)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeAttribute(namespaceURI, localName, value);
+    }
+
+    @Override
+    public void writeAttribute (String prefix,
+                                String namespaceURI,
+                                String localName,
+                                String value)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeAttribute(prefix, namespaceURI, localName, value);
+    }
+
+    @Override
+    public void writeCData (String data)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeCData(data);
+    }
+
+    @Override
+    public void writeCharacters (String text)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeCharacters(text);
+    }
+
+    @Override
+    public void writeCharacters (char[] text,
+                                 int start,
+                                 int len)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeCharacters(text, start, len);
+    }
+
+    @Override
+    public void writeComment (String data)
+            throws XMLStreamException
+    {
+        checkPending();
+        doIndent();
+        super.writeComment(data);
+    }
+
+    @Override
+    public void writeDTD (String dtd)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeDTD(dtd);
+    }
+
+    @Override
+    public void writeDefaultNamespace (String namespaceURI)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeDefaultNamespace(namespaceURI);
+    }
+
+    @Override
+    public void writeEmptyElement (String localName)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeEmptyElement(localName);
+    }
+
+    @Override
+    public void writeEmptyElement (String namespaceURI,
+                                   String localName)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeEmptyElement(namespaceURI, localName);
+    }
+
+    @Override
+    public void writeEmptyElement (String prefix,
+                                   String localName,
+                                   String namespaceURI)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeEmptyElement(prefix, localName, namespaceURI);
+    }
+
+    @Override
+    public void writeEndElement ()
+            throws XMLStreamException
+    {
+        endingElement(names.peek());
+        names.pop();
+
+        if (pending != null) {
+            pending.writeEmpty();
+            indentEnd();
+            pending = null;
+        } else {
+            indentEnd();
+            super.writeEndElement();
+        }
+    }
+
+    @Override
+    public void writeEntityRef (String name)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeEntityRef(name);
+    }
+
+    @Override
+    public void writeNamespace (String prefix,
+                                String namespaceURI)
+            throws XMLStreamException
+    {
+        // Namespace declarations are omitted
+    }
+
+    @Override
+    public void writeProcessingInstruction (String target)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeProcessingInstruction(target);
+    }
+
+    @Override
+    public void writeProcessingInstruction (String target,
+                                            String data)
+            throws XMLStreamException
+    {
+        checkPending();
+        super.writeProcessingInstruction(target, data);
+    }
+
+    @Override
+    public void writeStartElement (String localName)
+            throws XMLStreamException
+    {
+        checkPending();
+        indentStart(localName);
+        pending = new Pending(null, localName, null);
+    }
+
+    @Override
+    public void writeStartElement (String namespaceURI,
+                                   String localName)
+            throws XMLStreamException
+    {
+        checkPending();
+        indentStart(localName);
+        pending = new Pending(null, localName, namespaceURI);
+    }
+
+    @Override
+    public void writeStartElement (String prefix,
+                                   String localName,
+                                   String namespaceURI)
+            throws XMLStreamException
+    {
+        checkPending();
+        indentStart(localName);
+        pending = new Pending(prefix, localName, namespaceURI);
+    }
+
+    //----------//
+    // writeRaw //
+    //----------//
+    /**
+     * Splice already formatted content, such as measures formatted at the proper level,
+     * into the current element.
+     *
+     * @param reader source of formatted content
+     * @param out    the character stream the underlying XML writer writes to
+     * @throws XMLStreamException if XML writing fails
+     * @throws IOException        if copying fails
+     */
+    void writeRaw (Reader reader,
+                   Writer out)
+            throws XMLStreamException, IOException
+    {
+        checkPending();
+
+        // Close any open start tag, then push everything down to the character stream
+        super.writeCharacters("");
+        super.flush();
+
+        final char[] buffer = new char[8192];
+        boolean copied = false;
+
+        for (int n; (n = reader.read(buffer)) != -1;) {
+            out.write(buffer, 0, n);
+            copied |= (n > 0);
+        }
+
+        if (copied) {
+            closing = true;
+        }
+    }
+
+    //---------------//
+    // endingElement //
+    //---------------//
+    /**
+     * Called just before the innermost open element gets closed.
+     * Nothing is done by default.
+     *
+     * @param localName local name of the element about to be closed
+     * @throws XMLStreamException if XML writing fails
+     */
+    protected void endingElement (String localName)
+            throws XMLStreamException
+    {
+    }
+
+    //--------------//
+    // checkPending //
+    //--------------//
+    private void checkPending ()
+            throws XMLStreamException
+    {
+        if (pending != null) {
+            pending.writeStart();
+            pending = null;
+        }
+    }
+
+    //----------//
+    // doIndent //
+    //----------//
+    private void doIndent ()
+            throws XMLStreamException
+    {
+        super.writeCharacters("\n");
+
+        for (int i = 0; i < level; i++) {
+            super.writeCharacters(indent);
+        }
+    }
+
+    //-----------//
+    // indentEnd //
+    //-----------//
+    private void indentEnd ()
+            throws XMLStreamException
+    {
+        level--;
+
+        if (closing) {
+            doIndent();
+        }
+
+        closing = true;
+    }
+
+    //-------------//
+    // indentStart //
+    //-------------//
+    private void indentStart (String localName)
+            throws XMLStreamException
+    {
+        if ("measure".equals(localName)) {
+            doIndent();
+            super.writeComment(MEASURE_COMMENT);
+        } else if ("part".equals(localName)) {
+            doIndent();
+            super.writeComment(PART_COMMENT);
+        }
+
+        doIndent();
+        names.push(localName);
+        level++;
+        closing = false;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------------------//
+    // MusicNamespaceContext //
+    //-----------------------//
+    /**
+     * MusicXML uses no namespace, except xlink for a few attributes.
+     */
+    private static class MusicNamespaceContext
+            implements NamespaceContext
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getNamespaceURI (String prefix)
+        {
+            return "".equals(prefix) ? "" : null;
+        }
+
+        @Override
+        public String getPrefix (String namespaceURI)
+        {
+            return XLINK_NS.equals(namespaceURI) ? "xlink" : "";
+        }
+
+        @Override
+        public Iterator getPrefixes (String namespaceURI)
+        {
+            return null;
+        }
+    }
+
+    //---------//
+    // Pending //
+    //---------//
+    /**
+     * A start element, whose writing is delayed until we know whether it is empty.
+     */
+    private class Pending
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final String prefix;
+
+        final String localName;
+
+        final String namespaceURI;
+
+        //~ Constructors ---------------------------------------------------------------------------
+
+        Pending (String prefix,
+                 String localName,
+                 String namespaceURI)
+        {
+            this.prefix = prefix;
+            this.localName = localName;
+            this.namespaceURI = namespaceURI;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+
+        void writeEmpty ()
+                throws XMLStreamException
+        {
+            if (prefix != null) {
+                IndentingStreamWriter.super.writeEmptyElement(prefix, localName, namespaceURI);
+            } else if (namespaceURI != null) {
+                IndentingStreamWriter.super.writeEmptyElement(namespaceURI, localName);
+            } else {
+                IndentingStreamWriter.super.writeEmptyElement(localName);
+            }
+        }
+
+        void writeStart ()
+                throws XMLStreamException
+        {
+            if (prefix != null) {
+                IndentingStreamWriter.super.writeStartElement(prefix, localName, namespaceURI);
+            } else if (namespaceURI != null) {
+                IndentingStreamWriter.super.writeStartElement(namespaceURI, localName);
+            } else {
+                IndentingStreamWriter.super.writeStartElement(localName);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    M e a s u r e S p o o l                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.proxymusic.ScorePartwise;
+import org.audiveris.proxymusic.util.Marshalling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Class {@code MeasureSpool} keeps the MusicXML measures of each score part in a temporary
+ * file, already formatted as they will appear in the final score-partwise document.
+ * <p>
+ * This lets {@link PartwiseBuilder} release the measures of a page as soon as the page is
+ * processed, while the final document, which is organized part by part, can still be written in
+ * a single pass.
+ *
+ * @author Hervé Bitteur
+ */
+class MeasureSpool
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(MeasureSpool.class);
+
+    /** Nesting level of a measure within score-partwise document. */
+    private static final int MEASURE_LEVEL = 2;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Indentation used for the whole document. */
+    private final int indent;
+
+    /** Marshaller for measure fragments. */
+    private Marshaller marshaller;
+
+    /** One spool per part, in parts order. */
+    private final List<PartSpool> spools = new ArrayList<PartSpool>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code MeasureSpool} object.
+     *
+     * @param indent number of spaces per nesting level
+     */
+    MeasureSpool (int indent)
+    {
+        this.indent = indent;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // append //
+    //--------//
+    /**
+     * Append measures to the spool of a part.
+     *
+     * @param partIndex index of part in score-partwise
+     * @param measures  the measures to append, in order
+     * @throws JAXBException      if marshalling fails
+     * @throws XMLStreamException if XML writing fails
+     * @throws IOException        if spool file cannot be created
+     */
+    void append (int partIndex,
+                 List<ScorePartwise.Part.Measure> measures)
+            throws JAXBException, XMLStreamException, IOException
+    {
+        if (marshaller == null) {
+            marshaller = Marshalling.getContext(ScorePartwise.class).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+        }
+
+        while (spools.size() <= partIndex) {
+            spools.add(null);
+        }
+
+        PartSpool spool = spools.get(partIndex);
+
+        if (spool == null) {
+            spool = new PartSpool();
+            spools.set(partIndex, spool);
+        }
+
+        for (ScorePartwise.Part.Measure measure : measures) {
+            marshaller.marshal(
+                    new JAXBElement<ScorePartwise.Part.Measure>(
+                            new QName("measure"),
+                            ScorePartwise.Part.Measure.class,
+                            measure),
+                    spool.xmlWriter);
+        }
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Release all resources, notably the temporary files.
+     */
+    void close ()
+    {
+        for (PartSpool spool : spools) {
+            if (spool != null) {
+                spool.close();
+            }
+        }
+
+        spools.clear();
+    }
+
+    //---------//
+    // copyOut //
+    //---------//
+    /**
+     * Splice the spooled measures of a part into the XML document being written.
+     *
+     * @param partIndex index of part in score-partwise
+     * @param xsw       the document writer, positioned within the part element
+     * @param out       the character stream below the document writer
+     * @throws XMLStreamException if XML writing fails
+     * @throws IOException        if spool file cannot be read
+     */
+    void copyOut (int partIndex,
+                  IndentingStreamWriter xsw,
+                  Writer out)
+            throws XMLStreamException, IOException
+    {
+        if (partIndex >= spools.size()) {
+            return;
+        }
+
+        final PartSpool spool = spools.get(partIndex);
+
+        if (spool == null) {
+            return;
+        }
+
+        spool.xmlWriter.flush();
+        spool.writer.close();
+
+        final Reader reader = new InputStreamReader(
+                Files.newInputStream(spool.path),
+                StandardCharsets.UTF_8);
+
+        try {
+            xsw.writeRaw(reader, out);
+        } finally {
+            reader.close();
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // PartSpool //
+    //-----------//
+    /**
+     * Temporary file where the measures of one part are written.
+     */
+    private class PartSpool
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final Path path;
+
+        final Writer writer;
+
+        final IndentingStreamWriter xmlWriter;
+
+        //~ Constructors ---------------------------------------------------------------------------
+
+        PartSpool ()
+                throws IOException, XMLStreamException
+        {
+            path = Files.createTempFile("part-", ".xml");
+            writer = new BufferedWriter(
+                    new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8));
+            xmlWriter = new IndentingStreamWriter(
+                    XMLOutputFactory.newFactory().createXMLStreamWriter(writer),
+                    indent,
+                    MEASURE_LEVEL);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+
+        void close ()
+        {
+            try {
+                writer.close();
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                logger.warn("Could not delete spool file {} {}", path, ex.toString());
+            }
+        }
+    }
+}
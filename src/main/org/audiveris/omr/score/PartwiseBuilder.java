@@ -27,6 +27,8 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import static org.audiveris.omr.glyph.Shape.CODA;
 import static org.audiveris.omr.glyph.Shape.SEGNO;
+import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.math.MutableRational;
 import org.audiveris.omr.math.Rational;
 import static org.audiveris.omr.score.MusicXML.*;
 import org.audiveris.omr.sheet.Book;
@@ -77,6 +79,7 @@ import org.audiveris.omr.sig.relation.FlagStemRelation;
 import org.audiveris.omr.sig.relation.MarkerBarRelation;
 import org.audiveris.omr.sig.relation.Relation;
 import org.audiveris.omr.sig.relation.SlurHeadRelation;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.text.FontInfo;
 import org.audiveris.omr.text.TextRole;
 import static org.audiveris.omr.text.TextRole.*;
@@ -184,12 +187,15 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -267,21 +273,34 @@ public class PartwiseBuilder
     /** Factory for ProxyMusic entities. */
     private final ObjectFactory factory = new ObjectFactory();
 
+    /** Where measures are moved page after page, if any. */
+    private final MeasureSpool spool;
+
+    /** Per part, the measure that carries clefs of already spooled pages. */
+    private final Map<ScorePartwise.Part, ScorePartwise.Part.Measure> carriers =
+            new HashMap<ScorePartwise.Part, ScorePartwise.Part.Measure>();
+
+    /** First spooling failure, if any. */
+    private Exception spoolException;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a new PartwiseBuilder object, on a related score instance.
      *
      * @param score the underlying score
+     * @param spool  where to move measures page after page, or null to keep them
      * @throws InterruptedException if the thread has been interrupted
      * @throws ExecutionException   if a checked exception was thrown
      */
-    private PartwiseBuilder (Score score)
+    private PartwiseBuilder (Score score,
+                             MeasureSpool spool)
             throws InterruptedException, ExecutionException
     {
         // Make sure the JAXB context is ready
         loading.get();
 
         this.score = score;
+        this.spool = spool;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -298,13 +317,40 @@ public class PartwiseBuilder
      */
     public static ScorePartwise build (Score score)
             throws InterruptedException, ExecutionException
+    {
+        return build(score, null);
+    }
+
+    //-------//
+    // build //
+    //-------//
+    /**
+     * Visit the whole score tree and build the corresponding ScorePartwise, while moving
+     * the measures of each page to the provided spool as soon as the page is processed.
+     * <p>
+     * The resulting ScorePartwise thus contains no measure when a spool is provided, its parts
+     * must be completed from the spool content.
+     *
+     * @param score the score to export (cannot be null)
+     * @param spool where to move measures, or null to keep them in the ScorePartwise
+     * @return the populated ScorePartwise
+     * @throws InterruptedException if the thread has been interrupted
+     * @throws ExecutionException   if a checked exception was thrown, notably by the spool
+     */
+    static ScorePartwise build (Score score,
+                                MeasureSpool spool)
+            throws InterruptedException, ExecutionException
     {
         Objects.requireNonNull(score, "Trying to export a null score");
 
-        final PartwiseBuilder builder = new PartwiseBuilder(score);
+        final PartwiseBuilder builder = new PartwiseBuilder(score, spool);
 
         builder.processScore();
 
+        if (builder.spoolException != null) {
+            throw new ExecutionException(builder.spoolException);
+        }
+
         return builder.scorePartwise;
     }
 
@@ -371,6 +417,40 @@ public class PartwiseBuilder
         return "";
     }
 
+    //--------------//
+    // getLastClefs //
+    //--------------//
+    /**
+     * Report, for each staff number, the last clef found in the provided measures.
+     * This is the clef {@link #isNewClef(Clef)} would compare with.
+     *
+     * @param measures the measures to browse
+     * @return the map of clefs, perhaps empty
+     */
+    private static Map<BigInteger, Clef> getLastClefs (List<ScorePartwise.Part.Measure> measures)
+    {
+        final Map<BigInteger, Clef> clefs = new LinkedHashMap<BigInteger, Clef>();
+
+        for (ListIterator<ScorePartwise.Part.Measure> mit = measures.listIterator(measures.size());
+                mit.hasPrevious();) {
+            List<Object> items = mit.previous().getNoteOrBackupOrForward();
+
+            for (ListIterator<Object> it = items.listIterator(items.size()); it.hasPrevious();) {
+                Object obj = it.previous();
+
+                if (obj instanceof Attributes) {
+                    for (Clef clef : ((Attributes) obj).getClef()) {
+                        if (!clefs.containsKey(clef.getNumber())) {
+                            clefs.put(clef.getNumber(), clef);
+                        }
+                    }
+                }
+            }
+        }
+
+        return clefs;
+    }
+
     //--------//
     // getNum // A VERIFIER A VERIFIER A VERIFIER A VERIFIER A VERIFIER
     //--------//
@@ -387,6 +467,97 @@ public class PartwiseBuilder
         return "";
     }
 
+    //------------//
+    // isClefOnly //
+    //------------//
+    /**
+     * Tell whether the provided attributes contain nothing but clefs.
+     *
+     * @param attributes the attributes to check
+     * @return true if there is nothing else than clefs
+     */
+    private static boolean isClefOnly (Attributes attributes)
+    {
+        return (attributes.getFootnote() == null) && (attributes.getLevel() == null)
+               && (attributes.getDivisions() == null) && attributes.getKey().isEmpty()
+               && attributes.getTime().isEmpty() && (attributes.getStaves() == null)
+               && (attributes.getPartSymbol() == null) && (attributes.getInstruments() == null)
+               && attributes.getStaffDetails().isEmpty() && attributes.getTranspose().isEmpty()
+               && attributes.getDirective().isEmpty() && attributes.getMeasureStyle().isEmpty();
+    }
+
+    //--------------------//
+    // removeCarriedClefs //
+    //--------------------//
+    /**
+     * Remove, from the measures of a page built on its own, the clefs that a build of the
+     * whole score would not have exported, because they repeat the clef in force at the end
+     * of the previous page.
+     * <p>
+     * Attributes left empty are removed as well.
+     * But if the first clef of an attributes made only of clefs gets removed while other clefs
+     * remain, the whole score build would have inserted these attributes at a later location
+     * which is not known here, hence the page cannot be fixed.
+     *
+     * @param measures the page measures, for one part
+     * @param carried  the last clef of previous pages, per staff number
+     * @return true if OK, false if the page cannot be fixed
+     */
+    private static boolean removeCarriedClefs (List<ScorePartwise.Part.Measure> measures,
+                                               Map<BigInteger, Clef> carried)
+    {
+        if (carried.isEmpty()) {
+            return true;
+        }
+
+        // Staff numbers already met in page
+        final Set<BigInteger> numbers = new HashSet<BigInteger>();
+
+        for (ScorePartwise.Part.Measure pmMeasure : measures) {
+            final List<Object> items = pmMeasure.getNoteOrBackupOrForward();
+
+            for (Iterator<Object> it = items.iterator(); it.hasNext();) {
+                final Object obj = it.next();
+
+                if (!(obj instanceof Attributes)) {
+                    continue;
+                }
+
+                final Attributes attributes = (Attributes) obj;
+                final List<Clef> clefs = attributes.getClef();
+
+                if (clefs.isEmpty()) {
+                    continue;
+                }
+
+                final boolean clefOnly = isClefOnly(attributes);
+                final Clef firstClef = clefs.get(0);
+
+                for (Iterator<Clef> cit = clefs.iterator(); cit.hasNext();) {
+                    final Clef clef = cit.next();
+
+                    if (numbers.add(clef.getNumber())) {
+                        final Clef previous = carried.get(clef.getNumber());
+
+                        if ((previous != null) && areEqual(previous, clef)) {
+                            cit.remove();
+                        }
+                    }
+                }
+
+                if (clefOnly) {
+                    if (clefs.isEmpty()) {
+                        it.remove();
+                    } else if (clefs.get(0) != firstClef) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
     //---------//
     // addSlur //
     //---------//
@@ -729,6 +900,28 @@ public class PartwiseBuilder
         return ornaments;
     }
 
+    //---------//
+    // getPage //
+    //---------//
+    /**
+     * Report the score page contained in the provided stub.
+     *
+     * @param stub the stub at hand
+     * @return the related page, or null
+     */
+    private Page getPage (SheetStub stub)
+    {
+        final Integer sheetPageId = score.getSheetPageId(stub.getNumber());
+
+        if (sheetPageId == null) {
+            return null;
+        }
+
+        final Sheet sheet = stub.getSheet();
+
+        return sheet.getPages().get(sheetPageId - 1);
+    }
+
     //---------------//
     // getSlurNumber //
     //---------------//
@@ -883,6 +1076,58 @@ public class PartwiseBuilder
         return true; // Since no previous clef was found for the same staff
     }
 
+    //-----------//
+    // mergePage //
+    //-----------//
+    /**
+     * Append the material of a page, built on its own, to the score being built.
+     *
+     * @param builder the builder used for the page
+     * @param pageMap the page parts
+     * @param partMap the score parts
+     * @return false if the page could not be merged exactly, in which case nothing was merged
+     */
+    private boolean mergePage (PartwiseBuilder builder,
+                               Map<LogicalPart, ScorePartwise.Part> pageMap,
+                               Map<LogicalPart, ScorePartwise.Part> partMap)
+    {
+        // Clefs in every part, before any modification of the score parts
+        for (Entry<LogicalPart, ScorePartwise.Part> entry : partMap.entrySet()) {
+            final List<ScorePartwise.Part.Measure> pageMeasures = pageMap.get(entry.getKey())
+                    .getMeasure();
+
+            if (!removeCarriedClefs(pageMeasures, getLastClefs(entry.getValue().getMeasure()))) {
+                return false;
+            }
+        }
+
+        for (Entry<LogicalPart, ScorePartwise.Part> entry : partMap.entrySet()) {
+            entry.getValue().getMeasure().addAll(pageMap.get(entry.getKey()).getMeasure());
+        }
+
+        // Score-level material
+        final Identification pageIdentification = builder.scorePartwise.getIdentification();
+        scorePartwise.getIdentification().getRights().addAll(pageIdentification.getRights());
+        scorePartwise.getIdentification().getCreator().addAll(pageIdentification.getCreator());
+        scorePartwise.getCredit().addAll(builder.scorePartwise.getCredit());
+
+        final Work pageWork = builder.current.pmWork;
+
+        if (pageWork != null) {
+            final Work work = getWork();
+
+            if (pageWork.getWorkTitle() != null) {
+                work.setWorkTitle(pageWork.getWorkTitle());
+            }
+
+            if (pageWork.getWorkNumber() != null) {
+                work.setWorkNumber(pageWork.getWorkNumber());
+            }
+        }
+
+        return true;
+    }
+
     //----------------//
     // processBarline //
     //----------------//
@@ -1659,15 +1904,15 @@ public class PartwiseBuilder
             }
 
             // Now voice per voice
-            Rational timeCounter = Rational.ZERO;
+            final MutableRational timeCounter = new MutableRational();
 
             for (Voice voice : measure.getVoices()) {
                 current.voice = voice;
 
                 // Need a backup ?
-                if (!timeCounter.equals(Rational.ZERO)) {
-                    insertBackup(timeCounter);
-                    timeCounter = Rational.ZERO;
+                if (timeCounter.signum() != 0) {
+                    insertBackup(timeCounter.toRational());
+                    timeCounter.set(Rational.ZERO);
                 }
 
                 if (voice.isWhole()) {
@@ -1677,7 +1922,7 @@ public class PartwiseBuilder
                     processChord(chord);
 
                     if (stack.getActualDuration() != null) {
-                        timeCounter = stack.getActualDuration();
+                        timeCounter.set(stack.getActualDuration());
                     }
                 } else {
                     for (Slot slot : stack.getSlots()) {
@@ -1693,8 +1938,8 @@ public class PartwiseBuilder
                             Rational timeOffset = chord.getTimeOffset();
 
                             if (timeCounter.compareTo(timeOffset) < 0) {
-                                insertForward(timeOffset.minus(timeCounter), chord);
-                                timeCounter = timeOffset;
+                                insertForward(timeOffset.minus(timeCounter.toRational()), chord);
+                                timeCounter.set(timeOffset);
                             }
 
                             // Grace note before this chord?
@@ -1708,7 +1953,7 @@ public class PartwiseBuilder
 
                             // Delegate to the chord children directly
                             processChord(chord);
-                            timeCounter = timeCounter.plus(chord.getDuration());
+                            timeCounter.add(chord.getDuration());
                         }
                     }
 
@@ -2047,6 +2292,33 @@ public class PartwiseBuilder
         current.endNote();
     }
 
+    //-------------//
+    // processPage //
+    //-------------//
+    /**
+     * Process the page at hand, by appending part material for each part.
+     *
+     * @param page    the page to process
+     * @param partMap the map of parts to populate
+     */
+    private void processPage (Page page,
+                              Map<LogicalPart, ScorePartwise.Part> partMap)
+    {
+        current.page = page;
+        current.scale = page.getSheet().getScale();
+        page.resetDurationDivisor();
+
+        isFirst.page = score.isFirst(page);
+        isFirst.system = true;
+        isFirst.measure = true;
+        isFirst.part = true;
+
+        for (Entry<LogicalPart, ScorePartwise.Part> entry : partMap.entrySet()) {
+            processLogicalPart(entry.getKey(), entry.getValue());
+            isFirst.part = false;
+        }
+    }
+
     //-------------//
     // processPart //
     //-------------//
@@ -2070,6 +2342,7 @@ public class PartwiseBuilder
     // processPartList //
     //-----------------//
     private void processPartList ()
+            throws ExecutionException
     {
         logger.debug("Processing PartList for {}", score);
 
@@ -2086,8 +2359,21 @@ public class PartwiseBuilder
         }
 
         // Then, stub by stub, populate all ScorePartwise.Part instances in parallel
-        for (SheetStub stub : score.getStubs()) {
-            processStub(stub, partMap);
+        final List<SheetStub> stubs = score.getStubs();
+
+        if (constants.parallelPages.isSet()
+            && OmrExecutors.defaultParallelism.getValue()
+            && (stubs.size() > 1)) {
+            processStubsInParallel(stubs, partMap);
+        } else {
+            for (SheetStub stub : stubs) {
+                processStub(stub, partMap);
+            }
+        }
+
+        // Carriers are not part of the score
+        for (Entry<ScorePartwise.Part, ScorePartwise.Part.Measure> entry : carriers.entrySet()) {
+            entry.getKey().getMeasure().remove(entry.getValue());
         }
     }
 
@@ -2532,30 +2818,121 @@ public class PartwiseBuilder
     {
         logger.debug("Processing {}", stub);
 
-        final Integer sheetPageId = score.getSheetPageId(stub.getNumber());
+        final Page page = getPage(stub);
 
         // This should never occur if processStub() is called only on score relevant stubs
-        if (sheetPageId == null) {
+        if (page == null) {
             return;
         }
 
-        final Sheet sheet = stub.getSheet();
-        final Page page = sheet.getPages().get(sheetPageId - 1);
-
         source.encodePage(page, scorePartwise);
+        processPage(page, partMap);
+        spoolPage();
+    }
 
-        current.page = page;
-        current.scale = page.getSheet().getScale();
-        page.resetDurationDivisor();
+    //------------------------//
+    // processStubsInParallel //
+    //------------------------//
+    /**
+     * Process the provided stubs, a batch of pages at a time.
+     * <p>
+     * The pages of a batch are built concurrently, each by a separate builder and into its own
+     * parts. Then, page after page, their measures are appended to the score parts, once the
+     * clefs a whole score build would not have exported have been removed.
+     * A page for which this cannot be done exactly is simply built again, sequentially.
+     * <p>
+     * Other page-crossing items need no reconciliation: slur numbers are reset for every page,
+     * tuplet numbers for every measure, and divisions are exported at every page start.
+     *
+     * @param stubs   the score stubs, in order
+     * @param partMap the map of parts to populate
+     * @throws ExecutionException if page building failed
+     */
+    private void processStubsInParallel (List<SheetStub> stubs,
+                                         Map<LogicalPart, ScorePartwise.Part> partMap)
+            throws ExecutionException
+    {
+        // Batch size limits the number of pages held in memory
+        final int batchSize = 2 * OmrExecutors.getNumberOfCpus();
 
-        isFirst.page = score.isFirst(page);
-        isFirst.system = true;
-        isFirst.measure = true;
-        isFirst.part = true;
+        for (int from = 0; from < stubs.size(); from += batchSize) {
+            final List<Page> pages = new ArrayList<Page>();
+            final List<PartwiseBuilder> builders = new ArrayList<PartwiseBuilder>();
+            final List<Map<LogicalPart, ScorePartwise.Part>> pageMaps =
+                    new ArrayList<Map<LogicalPart, ScorePartwise.Part>>();
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
 
-        for (Entry<LogicalPart, ScorePartwise.Part> entry : partMap.entrySet()) {
-            processLogicalPart(entry.getKey(), entry.getValue());
-            isFirst.part = false;
+            // Sheets are loaded and pages encoded in sequence
+            final int to = Math.min(stubs.size(), from + batchSize);
+
+            for (final SheetStub stub : stubs.subList(from, to)) {
+                final Page page = getPage(stub);
+
+                if (page == null) {
+                    continue;
+                }
+
+                source.encodePage(page, scorePartwise);
+
+                final PartwiseBuilder builder;
+
+                try {
+                    builder = new PartwiseBuilder(score, null);
+                } catch (InterruptedException ex) {
+                    throw new ProcessingCancellationException(ex);
+                }
+
+                builder.scorePartwise.setIdentification(factory.createIdentification());
+
+                final Map<LogicalPart, ScorePartwise.Part> pageMap =
+                        new LinkedHashMap<LogicalPart, ScorePartwise.Part>();
+
+                for (Entry<LogicalPart, ScorePartwise.Part> entry : partMap.entrySet()) {
+                    ScorePartwise.Part pagePart = factory.createScorePartwisePart();
+                    pagePart.setId(entry.getValue().getId());
+                    pageMap.put(entry.getKey(), pagePart);
+                }
+
+                pages.add(page);
+                builders.add(builder);
+                pageMaps.add(pageMap);
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        try {
+                            LogUtil.start(stub);
+                            builder.processPage(page, pageMap);
+                        } finally {
+                            LogUtil.stopStub();
+                        }
+
+                        return null;
+                    }
+                });
+            }
+
+            try {
+                for (Future<Void> future : OmrExecutors.getLowExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Page building got interrupted");
+                throw new ProcessingCancellationException(ex);
+            }
+
+            // Merge pages in order
+            for (int i = 0; i < pages.size(); i++) {
+                if (!mergePage(builders.get(i), pageMaps.get(i), partMap)) {
+                    logger.debug("Building {} again, sequentially", pages.get(i));
+                    processPage(pages.get(i), partMap);
+                }
+
+                spoolPage();
+            }
         }
     }
 
@@ -2811,6 +3188,58 @@ public class PartwiseBuilder
         }
     }
 
+    //---------------//
+    // spoolMeasures //
+    //---------------//
+    private void spoolMeasures ()
+            throws Exception
+    {
+        final List<ScorePartwise.Part> pmParts = scorePartwise.getPart();
+
+        for (int i = 0; i < pmParts.size(); i++) {
+            final ScorePartwise.Part pmPart = pmParts.get(i);
+            final List<ScorePartwise.Part.Measure> measures = pmPart.getMeasure();
+            final Map<BigInteger, Clef> clefs = getLastClefs(measures);
+
+            measures.remove(carriers.remove(pmPart));
+            spool.append(i, measures);
+            measures.clear();
+
+            if (!clefs.isEmpty()) {
+                Attributes attributes = factory.createAttributes();
+                attributes.getClef().addAll(clefs.values());
+
+                ScorePartwise.Part.Measure carrier = factory.createScorePartwisePartMeasure();
+                carrier.getNoteOrBackupOrForward().add(attributes);
+                measures.add(carrier);
+                carriers.put(pmPart, carrier);
+            }
+        }
+    }
+
+    //-----------//
+    // spoolPage //
+    //-----------//
+    /**
+     * Move the measures built so far, in every part, to the spool if any.
+     * <p>
+     * Each part then keeps only a carrier measure with the clefs in force, so that
+     * {@link #isNewClef(Clef)} gives the same answers on the following pages as if all previous
+     * measures were still there.
+     */
+    private void spoolPage ()
+    {
+        if ((spool == null) || (spoolException != null)) {
+            return;
+        }
+
+        try {
+            spoolMeasures();
+        } catch (Exception ex) {
+            spoolException = ex;
+        }
+    }
+
     //----------//
     // toTenths //
     //----------//
@@ -2867,6 +3296,10 @@ public class PartwiseBuilder
         private final Constant.Boolean avoidTupletBrackets = new Constant.Boolean(
                 false,
                 "Should we avoid brackets for all tuplets");
+
+        private final Constant.Boolean parallelPages = new Constant.Boolean(
+                false,
+                "Should we build the pages of a score in parallel?");
     }
 
     //---------------//
@@ -22,21 +22,42 @@
 package org.audiveris.omr.score;
 
 import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.proxymusic.Encoding;
+import org.audiveris.proxymusic.Identification;
+import org.audiveris.proxymusic.ObjectFactory;
 import org.audiveris.proxymusic.ScorePartwise;
 import org.audiveris.proxymusic.mxl.Mxl;
 import org.audiveris.proxymusic.mxl.RootFile;
 import org.audiveris.proxymusic.util.Marshalling;
+import org.audiveris.proxymusic.util.ProgramId;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.w3c.dom.Node;
 
+import java.io.BufferedWriter;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Path;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Marshaller;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
 /**
  * Class {@code ScoreExporter} exports the provided score to a MusicXML file, stream or
  * DOM.
@@ -47,8 +68,22 @@ public class ScoreExporter
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(ScoreExporter.class);
 
+    /** Number of spaces per indentation level. */
+    private static final int INDENT = 2;
+
+    /** MusicXML version written. */
+    private static final String VERSION = "3.0.1";
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    private static final String DOCTYPE = "<!DOCTYPE score-partwise PUBLIC"
+                                          + " \"-//Recordare//DTD MusicXML 3.0.1 Partwise//EN\""
+                                          + " \"http://www.musicxml.org/dtds/partwise.dtd\">";
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** The related score. */
     private final Score score;
@@ -113,6 +148,12 @@ public class ScoreExporter
     {
         Objects.requireNonNull(os, "Trying to export a score to a null output stream");
 
+        if (constants.streamingExport.isSet()) {
+            exportStreaming(os, signed, scoreName, compressed);
+
+            return;
+        }
+
         // Build the ScorePartwise proxy
         ScorePartwise scorePartwise = PartwiseBuilder.build(score);
 
@@ -160,4 +201,193 @@ public class ScoreExporter
         // Marshal the proxy
         Marshalling.marshal(scorePartwise, node, signed);
     }
+
+    //----------//
+    // annotate //
+    //----------//
+    /**
+     * Set version and, if so desired, the ProxyMusic signature and the encoding date, as
+     * ProxyMusic marshalling does.
+     *
+     * @param scorePartwise the score header to annotate
+     * @param signed        should we inject ProxyMusic signature?
+     * @throws Exception if date cannot be built
+     */
+    private static void annotate (ScorePartwise scorePartwise,
+                                  boolean signed)
+            throws Exception
+    {
+        final ObjectFactory factory = new ObjectFactory();
+        scorePartwise.setVersion(VERSION);
+
+        if (!signed) {
+            return;
+        }
+
+        Identification identification = scorePartwise.getIdentification();
+
+        if (identification == null) {
+            identification = factory.createIdentification();
+            scorePartwise.setIdentification(identification);
+        }
+
+        Encoding encoding = identification.getEncoding();
+
+        if (encoding == null) {
+            encoding = factory.createEncoding();
+            identification.setEncoding(encoding);
+        }
+
+        final List<JAXBElement<?>> items = encoding.getEncodingDateOrEncoderOrSoftware();
+
+        // Replace a previous ProxyMusic software signature
+        for (Iterator<JAXBElement<?>> it = items.iterator(); it.hasNext();) {
+            JAXBElement<?> item = it.next();
+
+            if (item.getName().getLocalPart().equals("software")
+                && item.getValue() instanceof String
+                && ((String) item.getValue()).startsWith(ProgramId.NAME)) {
+                it.remove();
+
+                break;
+            }
+        }
+
+        items.add(
+                factory.createEncodingSoftware(
+                        ProgramId.NAME + " " + ProgramId.VERSION + "." + ProgramId.REVISION));
+
+        // Replace a previous encoding date
+        for (Iterator<JAXBElement<?>> it = items.iterator(); it.hasNext();) {
+            if (it.next().getName().getLocalPart().equals("encoding-date")) {
+                it.remove();
+
+                break;
+            }
+        }
+
+        XMLGregorianCalendar date = DatatypeFactory.newInstance().newXMLGregorianCalendar(
+                new GregorianCalendar());
+        date.setTimezone(DatatypeConstants.FIELD_UNDEFINED);
+        date.setTime(
+                DatatypeConstants.FIELD_UNDEFINED,
+                DatatypeConstants.FIELD_UNDEFINED,
+                DatatypeConstants.FIELD_UNDEFINED);
+        items.add(factory.createEncodingEncodingDate(date));
+    }
+
+    //-----------------//
+    // exportStreaming //
+    //-----------------//
+    /**
+     * Export the score to an output stream, without ever holding the measures of the whole
+     * score in memory.
+     * <p>
+     * Measures are spooled page after page by {@link PartwiseBuilder}, already formatted, and
+     * are spliced into each part while the score header is being marshalled.
+     * The output is identical to what ProxyMusic marshalling produces.
+     *
+     * @param os         the output stream where XML data is written
+     * @param signed     should we inject ProxyMusic signature?
+     * @param scoreName  (for compressed only) simple score name, without extension
+     * @param compressed true for compressed output
+     * @throws Exception if something goes wrong
+     */
+    private void exportStreaming (OutputStream os,
+                                  boolean signed,
+                                  String scoreName,
+                                  boolean compressed)
+            throws Exception
+    {
+        final MeasureSpool spool = new MeasureSpool(INDENT);
+
+        try {
+            final ScorePartwise scorePartwise = PartwiseBuilder.build(score, spool);
+            annotate(scorePartwise, signed);
+
+            if (compressed) {
+                Mxl.Output mof = new Mxl.Output(os);
+
+                if (scoreName == null) {
+                    scoreName = "score"; // Fall-back value
+                }
+
+                mof.addEntry(
+                        new RootFile(scoreName + OMR.SCORE_EXTENSION, RootFile.MUSICXML_MEDIA_TYPE));
+                write(scorePartwise, spool, mof.getOutputStream());
+                mof.close();
+            } else {
+                write(scorePartwise, spool, os);
+                os.close();
+            }
+        } finally {
+            spool.close();
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Marshal the score header, while splicing the spooled measures into each part.
+     *
+     * @param scorePartwise the score header, with no measure
+     * @param spool         the spooled measures
+     * @param os            the output stream
+     * @throws Exception if something goes wrong
+     */
+    private void write (ScorePartwise scorePartwise,
+                        final MeasureSpool spool,
+                        OutputStream os)
+            throws Exception
+    {
+        final Marshaller marshaller = Marshalling.getContext(ScorePartwise.class)
+                .createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
+        writer.write(XML_DECLARATION);
+        writer.write("\n");
+        writer.write(DOCTYPE);
+
+        final IndentingStreamWriter xsw = new IndentingStreamWriter(
+                XMLOutputFactory.newFactory().createXMLStreamWriter(writer),
+                INDENT,
+                0)
+        {
+            private int partIndex;
+
+            @Override
+            protected void endingElement (String localName)
+                    throws XMLStreamException
+            {
+                if ((getLevel() == 2) && "part".equals(localName)) {
+                    try {
+                        spool.copyOut(partIndex++, this, writer);
+                    } catch (IOException ex) {
+                        throw new XMLStreamException(ex);
+                    }
+                }
+            }
+        };
+
+        marshaller.marshal(scorePartwise, xsw);
+        xsw.flush();
+        writer.flush();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean streamingExport = new Constant.Boolean(
+                false,
+                "Should we spool measures page by page when exporting a score?");
+    }
 }
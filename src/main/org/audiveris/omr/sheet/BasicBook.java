@@ -21,6 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.BatchScheduler;
 import org.audiveris.omr.OMR;
 import org.audiveris.omr.ProgramId;
 import org.audiveris.omr.WellKnowns;
@@ -31,6 +32,7 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.FilterParam;
 import org.audiveris.omr.image.ImageLoading;
+import org.audiveris.omr.image.PrefetchingLoader;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.score.OpusExporter;
@@ -205,6 +207,9 @@ public class BasicBook
     /** Book-level sample repository. */
     private SampleRepository repository;
 
+    /** Loading session on input file, while book sheets are being processed. */
+    private volatile PrefetchingLoader loaderSession;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a Book with a path to an input images file.
@@ -1018,7 +1023,9 @@ public class BasicBook
     public BufferedImage loadSheetImage (int id)
     {
         try {
-            final ImageLoading.Loader loader = ImageLoading.getLoader(path);
+            final PrefetchingLoader session = loaderSession;
+            final ImageLoading.Loader loader = (session != null) ? session
+                    : ImageLoading.getLoader(path);
 
             if (loader == null) {
                 return null;
@@ -1027,7 +1034,9 @@ public class BasicBook
             BufferedImage img = loader.getImage(id);
             logger.info("Loaded image {} {}x{} from {}", id, img.getWidth(), img.getHeight(), path);
 
-            loader.dispose();
+            if (loader != session) {
+                loader.dispose();
+            }
 
             return img;
         } catch (IOException ex) {
@@ -1116,14 +1125,19 @@ public class BasicBook
                     force ? " force" : "",
                     ids(concernedStubs));
 
+            final boolean sessionOpened = openLoaderSession(concernedStubs);
+
             try {
                 boolean someFailure = false;
                 StepMonitoring.notifyStart();
 
-                if (isMultiSheet()
-                    && constants.processAllStubsInParallel.isSet()
-                    && (OmrExecutors.defaultParallelism.getValue() == true)) {
-                    // Process all stubs in parallel
+                final BatchScheduler scheduler = BatchScheduler.getRunning();
+
+                if ((scheduler != null)
+                    || (isMultiSheet()
+                        && constants.processAllStubsInParallel.isSet()
+                        && (OmrExecutors.defaultParallelism.getValue() == true))) {
+                    // Process all stubs in parallel (on the pool shared by batch books if any)
                     List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
 
                     for (final SheetStub stub : concernedStubs) {
@@ -1152,8 +1166,9 @@ public class BasicBook
                     }
 
                     try {
-                        List<Future<Boolean>> futures = OmrExecutors.getCachedLowExecutor()
-                                .invokeAll(tasks);
+                        List<Future<Boolean>> futures = (scheduler != null)
+                                ? scheduler.invokeSheets(this, concernedStubs, tasks)
+                                : OmrExecutors.getCachedLowExecutor().invokeAll(tasks);
 
                         for (Future<Boolean> future : futures) {
                             try {
@@ -1197,6 +1212,10 @@ public class BasicBook
 
                 return !someFailure;
             } finally {
+                if (sessionOpened) {
+                    closeLoaderSession();
+                }
+
                 LogUtil.stopStub();
                 StepMonitoring.notifyStop();
 
@@ -1379,8 +1398,6 @@ public class BasicBook
     public void store (Path bookPath,
                        boolean withBackup)
     {
-        Memory.gc(); // Launch garbage collection, to save on weak glyph references ...
-
         boolean diskWritten = false; // Has disk actually been written?
 
         // Backup existing book file?
@@ -1795,6 +1812,20 @@ public class BasicBook
         }
     }
 
+    //--------------------//
+    // closeLoaderSession //
+    //--------------------//
+    /**
+     * Close the loading session on input file, if any.
+     */
+    private synchronized void closeLoaderSession ()
+    {
+        if (loaderSession != null) {
+            loaderSession.dispose();
+            loaderSession = null;
+        }
+    }
+
     //----------------//
     // createBookFile //
     //----------------//
@@ -2068,6 +2099,39 @@ public class BasicBook
         logger.debug("Inserted scores:{}", scores.subList(insertIndex, index));
     }
 
+    //-------------------//
+    // openLoaderSession //
+    //-------------------//
+    /**
+     * Open a loading session on input file, when several of the provided stubs are
+     * still to be loaded.
+     *
+     * @param stubs the stubs about to be processed
+     * @return true if a session was opened by this call
+     */
+    private synchronized boolean openLoaderSession (List<SheetStub> stubs)
+    {
+        if ((loaderSession != null) || !constants.prefetchImages.isSet()) {
+            return false;
+        }
+
+        final SortedSet<Integer> ids = new TreeSet<Integer>();
+
+        for (SheetStub stub : stubs) {
+            if (!stub.isDone(Step.LOAD)) {
+                ids.add(stub.getNumber());
+            }
+        }
+
+        if (ids.size() < 2) {
+            return false;
+        }
+
+        loaderSession = new PrefetchingLoader(path, ids);
+
+        return true;
+    }
+
     //----------//
     // scoresOf //
     //----------//
@@ -2147,6 +2211,10 @@ public class BasicBook
                 false,
                 "Should we process all stubs of a book in parallel? (beware of many stubs)");
 
+        private final Constant.Boolean prefetchImages = new Constant.Boolean(
+                true,
+                "Should we keep input file open and read sheet images in advance?");
+
         private final Constant.Boolean checkBookVersion = new Constant.Boolean(
                 true,
                 "Should we check version of loaded book files?");
@@ -1028,7 +1028,9 @@ public class BasicSheet
             }
         }
 
-        // Sheet structure (sheet#n.xml)
+        // Sheet structure (sheet#n.xml), with only the glyphs still referenced
+        sweepGlyphs();
+
         try {
             Path structurePath = sheetFolder.resolve(getSheetFileName(stub.getNumber()));
             Files.deleteIfExists(structurePath);
@@ -1041,6 +1043,26 @@ public class BasicSheet
         }
     }
 
+    //-------------//
+    // sweepGlyphs //
+    //-------------//
+    @Override
+    public void sweepGlyphs ()
+    {
+        if ((glyphIndex == null) || (systemManager == null)) {
+            return;
+        }
+
+        // Glyphs referenced by inters, staff lines and free glyphs of all systems
+        final List<Glyph> referenced = new ArrayList<Glyph>();
+
+        for (SystemInfo system : getSystems()) {
+            system.collectGlyphs(referenced);
+        }
+
+        glyphIndex.sweep(referenced);
+    }
+
     //----------//
     // toString //
     //----------//
@@ -1109,7 +1131,7 @@ public class BasicSheet
     //----------------//
     // getJaxbContext //
     //----------------//
-    private static JAXBContext getJaxbContext ()
+    static JAXBContext getJaxbContext ()
             throws JAXBException
     {
         // Lazy creation
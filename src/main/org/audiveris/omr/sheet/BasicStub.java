@@ -30,6 +30,7 @@ import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.FilterParam;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.score.Page;
 import org.audiveris.omr.score.PageRef;
 import org.audiveris.omr.sheet.Picture.TableKey;
 import static org.audiveris.omr.sheet.Sheet.INTERNALS_RADIX;
@@ -38,6 +39,7 @@ import org.audiveris.omr.sheet.ui.StubsController;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.Step;
 import org.audiveris.omr.step.StepException;
+import org.audiveris.omr.step.StepMetrics;
 import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.ui.Colors;
 import org.audiveris.omr.util.Jaxb;
@@ -58,8 +60,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -569,6 +573,7 @@ public class BasicStub
     {
         final StubsController ctrl = (OMR.gui != null) ? StubsController.getInstance() : null;
         final StopWatch watch = new StopWatch("reachStep " + target);
+        StepMetrics.Probe probe = null;
         EnumSet<Step> neededSteps = null;
         boolean ok = false;
         getLock().lock(); // Wait for completion of early processing if any
@@ -594,6 +599,12 @@ public class BasicStub
                 ctrl.markTab(this, Colors.SHEET_BUSY);
             }
 
+            probe = StepMetrics.startSheet(this, target);
+
+            if (CheckpointCache.isEnabled()) {
+                restoreCheckpoint(neededSteps, target);
+            }
+
             for (final Step step : neededSteps) {
                 watch.start(step.name());
                 StepMonitoring.notifyMsg(step.toString());
@@ -601,6 +612,10 @@ public class BasicStub
                 doOneStep(step);
             }
 
+            if (neededSteps.contains(Step.PAGE)) {
+                StepMetrics.recordDiff(getSheet());
+            }
+
             ok = true;
         } catch (ProcessingCancellationException pce) {
             throw pce;
@@ -618,6 +633,10 @@ public class BasicStub
         } finally {
             StepMonitoring.notifyStop();
 
+            if (probe != null) {
+                probe.stop();
+            }
+
             if (constants.printWatch.isSet()) {
                 watch.print();
             }
@@ -874,8 +893,24 @@ public class BasicStub
                         StepMonitoring.notifyStep(BasicStub.this, step); // Start monitoring
                         setModified(true); // At beginning of processing
                         sheet.reset(step); // Reset sheet relevant data
-                        step.doit(sheet); // Standard processing on an existing sheet
+
+                        final StepMetrics.Probe probe = StepMetrics.startStep(sheet, step);
+
+                        try {
+                            step.doit(sheet); // Standard processing on an existing sheet
+                        } finally {
+                            if (probe != null) {
+                                probe.stop();
+                            }
+                        }
+
+                        sheet.sweepGlyphs(); // Drop glyphs no longer referenced
+
                         done(step); // Full completion
+
+                        if (CheckpointCache.isEnabled() && CheckpointCache.isCached(step)) {
+                            CheckpointCache.store(sheet, step);
+                        }
                     } finally {
                         LogUtil.stopStub();
                     }
@@ -940,6 +975,69 @@ public class BasicStub
         return neededSteps;
     }
 
+    //-------------------//
+    // restoreCheckpoint //
+    //-------------------//
+    /**
+     * Try to skip the first needed steps, by restoring the sheet from the latest suitable
+     * checkpoint.
+     * <p>
+     * A checkpoint is suitable only if all steps before the first needed step are already done,
+     * so that no existing result beyond the checkpoint gets discarded.
+     *
+     * @param neededSteps (input/output) the steps still to perform
+     * @param target      the targeted step
+     */
+    private void restoreCheckpoint (EnumSet<Step> neededSteps,
+                                    Step target)
+    {
+        final Step first = neededSteps.iterator().next();
+        final Step latest = getLatestStep();
+
+        if ((latest != null) && (latest.compareTo(first) > 0)) {
+            return;
+        }
+
+        final Step cached = CheckpointCache.getCachedStep(this, first, target);
+
+        if (cached == null) {
+            return;
+        }
+
+        final Map<TableKey, RunTable> tables = new EnumMap<TableKey, RunTable>(TableKey.class);
+        final BasicSheet restored = CheckpointCache.load(this, cached, tables);
+
+        if (restored == null) {
+            return;
+        }
+
+        doReset();
+
+        for (Step step : EnumSet.range(Step.first(), cached)) {
+            done(step);
+        }
+
+        // Tables must be available before sheet reload completion
+        for (Map.Entry<TableKey, RunTable> entry : tables.entrySet()) {
+            restored.getPicture().setTable(entry.getKey(), entry.getValue(), true);
+        }
+
+        sheet = restored;
+        restored.afterReload(this);
+
+        for (Page page : restored.getPages()) {
+            addPageRef(
+                    new PageRef(number, page.getId(), page.isMovementStart(), null));
+        }
+
+        if (cached.compareTo(Step.GRID) >= 0) {
+            book.updateScores(this);
+        }
+
+        setModified(true);
+        neededSteps.removeAll(EnumSet.range(Step.first(), cached));
+    }
+
     //----------------//
     // initTransients //
     //----------------//
@@ -21,6 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.CLI;
 import org.audiveris.omr.Main;
 import org.audiveris.omr.OMR;
 import org.audiveris.omr.OmrEngine;
@@ -259,7 +260,8 @@ public class BookManager
      */
     public static Path getBaseFolder ()
     {
-        final Path cliOutput = Main.getCli().getOutputFolder();
+        final CLI cli = Main.getCli();
+        final Path cliOutput = (cli != null) ? cli.getOutputFolder() : null;
 
         if (cliOutput != null) {
             return cliOutput;
@@ -0,0 +1,469 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 C h e c k p o i n t C a c h e                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantManager;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.Picture.TableKey;
+import org.audiveris.omr.sheet.ProcessingSwitches.Switch;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.ZipFileSystem;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Class {@code CheckpointCache} handles a content-addressed cache of sheet results for the
+ * early steps (BINARY, SCALE and GRID).
+ * <p>
+ * A checkpoint is keyed by the hash of the input image file, the sheet number within this file,
+ * the step, the program version, the binarization filter, the processing switches and the
+ * constants whose value may differ from source default.
+ * Identical pipeline prefixes can thus be skipped across books, runs and even machines that share
+ * the same cache folder.
+ * <p>
+ * Each checkpoint is a zip file named after its key, which contains the sheet structure and the
+ * picture run tables, just like a sheet folder within a book file.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class CheckpointCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointCache.class);
+
+    /** Steps for which a checkpoint is saved. */
+    private static final EnumSet<Step> CACHED_STEPS = EnumSet.of(
+            Step.BINARY,
+            Step.SCALE,
+            Step.GRID);
+
+    /** Extension for checkpoint files. */
+    private static final String CHECKPOINT_EXTENSION = ".zip";
+
+    /** Image hash per image signature (path, size and modification time). */
+    private static final Map<String, String> imageHashes = new ConcurrentHashMap<String, String>();
+
+    private static volatile JAXBContext tableContext;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private CheckpointCache ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether checkpoints are used.
+     *
+     * @return true if so
+     */
+    public static boolean isEnabled ()
+    {
+        return constants.useCheckpoints.isSet();
+    }
+
+    //----------//
+    // isCached //
+    //----------//
+    /**
+     * Report whether the provided step results are saved as checkpoint.
+     *
+     * @param step the step at hand
+     * @return true if so
+     */
+    public static boolean isCached (Step step)
+    {
+        return CACHED_STEPS.contains(step);
+    }
+
+    //---------------//
+    // getCachedStep //
+    //---------------//
+    /**
+     * Report the latest step, within the provided range, for which a checkpoint is available.
+     *
+     * @param stub  the sheet stub at hand
+     * @param first first step of range
+     * @param last  last step of range
+     * @return the latest cached step in range, or null if none
+     */
+    public static Step getCachedStep (SheetStub stub,
+                                      Step first,
+                                      Step last)
+    {
+        if (first.compareTo(last) > 0) {
+            return null;
+        }
+
+        Step found = null;
+
+        for (Step step : EnumSet.range(first, last)) {
+            if (isCached(step)) {
+                final Path path = getCheckpointPath(stub, step);
+
+                if ((path != null) && Files.exists(path)) {
+                    found = step;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    //------//
+    // load //
+    //------//
+    /**
+     * Load the checkpoint of the provided sheet stub at the provided step.
+     * <p>
+     * The returned sheet has not yet gone through {@link BasicSheet#afterReload}.
+     *
+     * @param stub   the sheet stub at hand
+     * @param step   the checkpoint step
+     * @param tables (output) populated with the picture tables found in checkpoint
+     * @return the unmarshalled sheet, or null if failed
+     */
+    public static BasicSheet load (SheetStub stub,
+                                   Step step,
+                                   Map<TableKey, RunTable> tables)
+    {
+        final Path path = getCheckpointPath(stub, step);
+
+        if (path == null) {
+            return null;
+        }
+
+        Path root = null;
+
+        try {
+            root = ZipFileSystem.open(path);
+
+            final BasicSheet sheet;
+            final InputStream is = Files.newInputStream(
+                    root.resolve(BasicSheet.getSheetFileName(stub.getNumber())),
+                    StandardOpenOption.READ);
+
+            try {
+                sheet = BasicSheet.unmarshal(is);
+            } finally {
+                is.close();
+            }
+
+            for (TableKey key : TableKey.values()) {
+                final Path tablePath = root.resolve(key + ".xml");
+
+                if (Files.exists(tablePath)) {
+                    final RunTable table = RunTable.unmarshal(tablePath);
+
+                    if (table == null) {
+                        return null;
+                    }
+
+                    tables.put(key, table);
+                }
+            }
+
+            logger.info("Sheet#{} {} restored from {}", stub.getNumber(), step, path);
+
+            return sheet;
+        } catch (Exception ex) {
+            logger.warn("Could not load checkpoint {} {}", path, ex.toString(), ex);
+
+            return null;
+        } finally {
+            close(root);
+        }
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Save the checkpoint of the provided sheet, just completed at the provided step.
+     * <p>
+     * Nothing is done if the checkpoint already exists.
+     * The checkpoint file is first written under a temporary name and then renamed, so that
+     * concurrent readers never see a partial checkpoint.
+     *
+     * @param sheet the sheet at hand
+     * @param step  the step just completed
+     */
+    public static void store (Sheet sheet,
+                              Step step)
+    {
+        final SheetStub stub = sheet.getStub();
+        final Path path = getCheckpointPath(stub, step);
+
+        if ((path == null) || Files.exists(path)) {
+            return;
+        }
+
+        Path tmpPath = null;
+        Path root = null;
+
+        try {
+            Files.createDirectories(path.getParent());
+            tmpPath = Files.createTempFile(path.getParent(), "checkpoint", ".tmp");
+            Files.delete(tmpPath);
+            root = ZipFileSystem.create(tmpPath);
+
+            // Picture tables
+            final Picture picture = sheet.getPicture();
+
+            for (TableKey key : TableKey.values()) {
+                if (picture.hasTable(key)) {
+                    final RunTable table = picture.getTable(key);
+
+                    if (table != null) {
+                        Jaxb.marshal(table, root.resolve(key + ".xml"), getTableContext());
+                    }
+                }
+            }
+
+            // Sheet structure
+            Jaxb.marshal(
+                    sheet,
+                    root.resolve(BasicSheet.getSheetFileName(stub.getNumber())),
+                    BasicSheet.getJaxbContext());
+            close(root);
+            root = null;
+
+            Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE);
+            tmpPath = null;
+            logger.info("Sheet#{} {} checkpoint stored as {}", stub.getNumber(), step, path);
+        } catch (Exception ex) {
+            logger.warn("Could not store checkpoint {} {}", path, ex.toString(), ex);
+        } finally {
+            close(root);
+
+            if (tmpPath != null) {
+                try {
+                    Files.deleteIfExists(tmpPath);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    //-------//
+    // close //
+    //-------//
+    private static void close (Path root)
+    {
+        if (root != null) {
+            try {
+                root.getFileSystem().close();
+            } catch (IOException ex) {
+                logger.warn("Error closing checkpoint {}", ex.toString(), ex);
+            }
+        }
+    }
+
+    //----------------//
+    // getCacheFolder //
+    //----------------//
+    private static Path getCacheFolder ()
+    {
+        final String folder = constants.cacheFolder.getValue().trim();
+
+        if (folder.isEmpty()) {
+            return WellKnowns.DATA_FOLDER.resolve("checkpoints");
+        }
+
+        return Paths.get(folder);
+    }
+
+    //-------------------//
+    // getCheckpointPath //
+    //-------------------//
+    /**
+     * Report the path to the checkpoint of provided sheet at provided step.
+     *
+     * @param stub the sheet stub at hand
+     * @param step the step at hand
+     * @return the checkpoint path, or null if no key could be computed
+     */
+    private static Path getCheckpointPath (SheetStub stub,
+                                           Step step)
+    {
+        try {
+            return getCacheFolder().resolve(getKey(stub, step) + CHECKPOINT_EXTENSION);
+        } catch (Exception ex) {
+            logger.warn("Could not compute checkpoint key {}", ex.toString(), ex);
+
+            return null;
+        }
+    }
+
+    //--------------//
+    // getImageHash //
+    //--------------//
+    /**
+     * Report the hash of the provided image file content.
+     * <p>
+     * The hash is computed only once per file signature (path, size and modification time).
+     *
+     * @param path image file
+     * @return the hexadecimal hash of file content
+     */
+    private static String getImageHash (Path path)
+            throws IOException, NoSuchAlgorithmException
+    {
+        final Path absPath = path.toAbsolutePath();
+        final String signature = absPath + "|" + Files.size(absPath) + "|"
+                                 + Files.getLastModifiedTime(absPath).toMillis();
+        String hash = imageHashes.get(signature);
+
+        if (hash == null) {
+            final MessageDigest md = MessageDigest.getInstance("SHA-256");
+            final InputStream is = Files.newInputStream(absPath, StandardOpenOption.READ);
+
+            try {
+                final byte[] buffer = new byte[1 << 16];
+                int len;
+
+                while ((len = is.read(buffer)) > 0) {
+                    md.update(buffer, 0, len);
+                }
+            } finally {
+                is.close();
+            }
+
+            hash = toHex(md.digest());
+            imageHashes.put(signature, hash);
+        }
+
+        return hash;
+    }
+
+    //--------//
+    // getKey //
+    //--------//
+    /**
+     * Compute the checkpoint key for provided sheet and step.
+     *
+     * @param stub the sheet stub at hand
+     * @param step the step at hand
+     * @return the hexadecimal key
+     */
+    private static String getKey (SheetStub stub,
+                                  Step step)
+            throws IOException, NoSuchAlgorithmException
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("image=").append(getImageHash(stub.getBook().getInputPath())).append('\n');
+        sb.append("sheet=").append(stub.getNumber()).append('\n');
+        sb.append("step=").append(step).append('\n');
+        sb.append("tool=").append(WellKnowns.TOOL_REF).append(':').append(WellKnowns.TOOL_BUILD)
+                .append('\n');
+        sb.append("filter=").append(stub.getBinarizationFilter().getValue()).append('\n');
+
+        final ProcessingSwitches switches = stub.getProcessingSwitches();
+
+        for (Switch key : Switch.values()) {
+            sb.append(key).append('=').append(switches.getValue(key)).append('\n');
+        }
+
+        for (Entry<String, String> entry : ConstantManager.getInstance().getAlteredValues()
+                .entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+
+        final MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        return toHex(md.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    //-----------------//
+    // getTableContext //
+    //-----------------//
+    private static JAXBContext getTableContext ()
+            throws JAXBException
+    {
+        // Lazy creation
+        if (tableContext == null) {
+            tableContext = JAXBContext.newInstance(RunTable.class);
+        }
+
+        return tableContext;
+    }
+
+    //-------//
+    // toHex //
+    //-------//
+    private static String toHex (byte[] bytes)
+    {
+        final StringBuilder sb = new StringBuilder(2 * bytes.length);
+
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+
+        return sb.toString();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useCheckpoints = new Constant.Boolean(
+                false,
+                "Should we save and reuse checkpoints of early sheet steps?");
+
+        private final Constant.String cacheFolder = new Constant.String(
+                "",
+                "Folder for checkpoints (empty for default folder in data)");
+    }
+}
@@ -58,6 +58,7 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
  * <li>{@link #getLagManager}</li>
  * <li>{@link #getFilamentIndex}</li>
  * <li>{@link #getGlyphIndex}</li>
+ * <li>{@link #sweepGlyphs}</li>
  * <li>{@link #getInterIndex}</li>
  * <li>{@link #getPersistentIdGenerator}</li>
  * </ul></dd>
@@ -397,4 +398,9 @@ public interface Sheet
      */
     void store (Path sheetFolder,
                 Path oldSheetFolder);
+
+    /**
+     * Remove from glyph index the glyphs no longer referenced by this sheet.
+     */
+    void sweepGlyphs ();
 }
@@ -28,16 +28,19 @@ import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.GlobalFilter;
 import org.audiveris.omr.image.ImageUtil;
+import org.audiveris.omr.image.PackedBitmap;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sheet.ui.ImageView;
 import org.audiveris.omr.sheet.ui.PixelBoard;
 import org.audiveris.omr.sheet.ui.SheetResultPainter;
 import org.audiveris.omr.sheet.ui.SheetTab;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.ui.BoardsPane;
 import org.audiveris.omr.ui.ViewParameters;
 import org.audiveris.omr.ui.view.ScrollView;
 import org.audiveris.omr.util.ByteUtil;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.WeakPropertyChangeListener;
 
@@ -49,14 +52,25 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code SheetDiff} measures the difference between input data (the input sheet
  * picture) and output data (the recognized entities).
+ * <p>
+ * Pixel counts are computed on packed bitmaps of input and output, one 64-pixel word at a time,
+ * in horizontal bands processed in parallel. They are available for the whole sheet and for each
+ * system (see {@link #computeCounts()}).
  *
  * @author Hervé Bitteur
  */
@@ -68,6 +82,9 @@ public class SheetDiff
 
     private static final Logger logger = LoggerFactory.getLogger(SheetDiff.class);
 
+    /** Minimum height of a band counted in parallel. */
+    private static final int MIN_BAND_HEIGHT = 64;
+
     //~ Enumerations -------------------------------------------------------------------------------
     public static enum DiffKind
     {
@@ -98,6 +115,15 @@ public class SheetDiff
     /** Cached number of foreground pixels in input image. */
     private Integer inputCount;
 
+    /** Bitmap of output entities. */
+    private PackedBitmap outputBitmap;
+
+    /** Counts on whole sheet. */
+    private Counts sheetCounts;
+
+    /** Counts per system. */
+    private final Map<SystemInfo, Counts> systemCounts = new LinkedHashMap<SystemInfo, Counts>();
+
     //~ Constructors -------------------------------------------------------------------------------
     public SheetDiff (Sheet sheet)
     {
@@ -105,6 +131,101 @@ public class SheetDiff
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // computeCounts //
+    //---------------//
+    /**
+     * Count input, positive, negative and false positive pixels, on the whole sheet and on
+     * each system.
+     *
+     * @return the counts on the whole sheet
+     */
+    public Counts computeCounts ()
+    {
+        final PackedBitmap input = new PackedBitmap(
+                sheet.getPicture().getTable(Picture.TableKey.BINARY));
+        final PackedBitmap output = getOutputBitmap();
+        final int width = sheet.getWidth();
+        final int height = sheet.getHeight();
+        final Rectangle sheetBox = new Rectangle(0, 0, width, height);
+
+        // Areas to count: horizontal bands that cover the whole sheet, plus every system
+        final int bandCount = OmrExecutors.defaultParallelism.getValue()
+                ? Math.max(1, Math.min(OmrExecutors.getNumberOfCpus(), height / MIN_BAND_HEIGHT))
+                : 1;
+        final List<Rectangle> areas = new ArrayList<Rectangle>();
+
+        for (int b = 0; b < bandCount; b++) {
+            final int yMin = (b * height) / bandCount;
+            final int yMax = ((b + 1) * height) / bandCount;
+            areas.add(new Rectangle(0, yMin, width, yMax - yMin));
+        }
+
+        final List<SystemInfo> systems = new ArrayList<SystemInfo>();
+
+        for (SystemInfo system : sheet.getSystems()) {
+            final Rectangle box = system.getBounds();
+
+            if (box != null) {
+                systems.add(system);
+                areas.add(box.intersection(sheetBox));
+            }
+        }
+
+        final List<Counts> results = new ArrayList<Counts>(areas.size());
+
+        if (bandCount > 1) {
+            try {
+                final List<Callable<Counts>> tasks = new ArrayList<Callable<Counts>>();
+
+                for (final Rectangle area : areas) {
+                    tasks.add(
+                            new Callable<Counts>()
+                    {
+                        @Override
+                        public Counts call ()
+                                throws Exception
+                        {
+                            return count(input, output, area);
+                        }
+                    });
+                }
+
+                for (Future<Counts> future : OmrExecutors.getLowExecutor().invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Diff counting got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in diff counting", ex);
+                throw new RuntimeException(ex);
+            }
+        } else {
+            for (Rectangle area : areas) {
+                results.add(count(input, output, area));
+            }
+        }
+
+        sheetCounts = new Counts();
+
+        for (int b = 0; b < bandCount; b++) {
+            sheetCounts.include(results.get(b));
+        }
+
+        systemCounts.clear();
+
+        for (int i = 0; i < systems.size(); i++) {
+            systemCounts.put(systems.get(i), results.get(bandCount + i));
+        }
+
+        inputCount = sheetCounts.getInput();
+
+        return sheetCounts;
+    }
+
     //-------------//
     // computeDiff //
     //-------------//
@@ -192,30 +313,15 @@ public class SheetDiff
         final int total = sheet.getWidth() * sheet.getHeight();
         StopWatch watch = new StopWatch("computeRatios");
 
-        watch.start("input");
-
-        final ByteProcessor source = sheet.getPicture().getSource(Picture.SourceKey.BINARY);
-        final BufferedImage input = source.getBufferedImage();
-
-        watch.start("inputCount");
-        getInputCount();
+        watch.start("counts");
+        computeCounts();
         logger.info(
                 "INPUT count: {} ratio: {}% (out of {} image pixels)",
                 inputCount,
                 String.format("%.1f", (100d * inputCount) / total),
                 total);
 
-        watch.start("output");
-        output = getOutput();
-
-        watch.start("xor");
-
-        BufferedImage xor = ImageUtil.invert(ImageUtil.xor(input, output));
-
-        ///ImageUtil.saveOnDisk(xor, sheet.getPage().getId() + ".XOR");
         for (DiffKind kind : DiffKind.values()) {
-            watch.start(kind.toString());
-
             int count = getCount(kind);
             logger.info(
                     "{}% ({} wrt {} input pixels)",
@@ -233,23 +339,32 @@ public class SheetDiff
     // getCount //
     //----------//
     /**
-     * Report the count of pixels in the desired kind.
+     * Report the count of pixels in the desired kind, on the whole sheet.
      *
      * @param kind the desired kind
      * @return the number of counted pixels
      */
     public int getCount (DiffKind kind)
     {
-        BufferedImage img = getImage(kind);
-
-        ImageUtil.saveOnDisk(img, sheet.getId() + "." + kind);
-
-        final ByteProcessor source = new ByteProcessor(img);
-        source.threshold(constants.binaryThreshold.getValue());
+        if (sheetCounts == null) {
+            computeCounts();
+        }
 
-        final int count = getForeCount(source);
+        return sheetCounts.getCount(kind);
+    }
 
-        return count;
+    //-----------//
+    // getCounts //
+    //-----------//
+    /**
+     * Report the counts on the provided system, as computed by {@link #computeCounts()}.
+     *
+     * @param system the provided system
+     * @return the system counts, or null if not available
+     */
+    public Counts getCounts (SystemInfo system)
+    {
+        return systemCounts.get(system);
     }
 
     //----------//
@@ -319,6 +434,38 @@ public class SheetDiff
         return img;
     }
 
+    //-------//
+    // count //
+    //-------//
+    /**
+     * Count the various kinds of pixels in the provided area.
+     *
+     * @param input  the input bitmap
+     * @param output the output bitmap
+     * @param area   the area to process
+     * @return the area counts
+     */
+    private Counts count (PackedBitmap input,
+                          PackedBitmap output,
+                          Rectangle area)
+    {
+        final Counts counts = new Counts();
+        final int xMax = (area.x + area.width) - 1;
+
+        for (int y = area.y, yBreak = area.y + area.height; y < yBreak; y++) {
+            final int in = input.count(y, area.x, xMax);
+            final int out = output.count(y, area.x, xMax);
+            final int both = input.countAnd(output, y, area.x, xMax);
+
+            counts.input += in;
+            counts.counts[DiffKind.POSITIVES.ordinal()] += both;
+            counts.counts[DiffKind.NEGATIVES.ordinal()] += (in - both);
+            counts.counts[DiffKind.FALSE_POSITIVES.ordinal()] += (out - both);
+        }
+
+        return counts;
+    }
+
     //--------------//
     // getForeCount //
     //--------------//
@@ -400,7 +547,110 @@ public class SheetDiff
         return output;
     }
 
+    //-----------------//
+    // getOutputBitmap //
+    //-----------------//
+    /**
+     * Report the bitmap of recognized entities, rasterized directly in a 1-bit image.
+     *
+     * @return the output bitmap
+     */
+    private PackedBitmap getOutputBitmap ()
+    {
+        if (outputBitmap == null) {
+            final BufferedImage img = new BufferedImage(
+                    sheet.getWidth(),
+                    sheet.getHeight(),
+                    BufferedImage.TYPE_BYTE_BINARY);
+
+            Graphics2D gbi = img.createGraphics();
+            gbi.setColor(Color.WHITE);
+            gbi.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+            gbi.setColor(Color.BLACK);
+            new SheetResultPainter(sheet, gbi, false, true, false).process();
+            gbi.dispose();
+
+            outputBitmap = ImageUtil.toBitmap(img);
+        }
+
+        return outputBitmap;
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
+    //--------//
+    // Counts //
+    //--------//
+    /**
+     * Pixel counts on a sheet area.
+     */
+    public static class Counts
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Number of foreground pixels in input. */
+        private int input;
+
+        /** Number of pixels, per diff kind. */
+        private final int[] counts = new int[DiffKind.values().length];
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report the number of pixels of the provided kind.
+         *
+         * @param kind the desired kind
+         * @return the count of pixels
+         */
+        public int getCount (DiffKind kind)
+        {
+            return counts[kind.ordinal()];
+        }
+
+        /**
+         * Report the number of foreground pixels in input.
+         *
+         * @return the input count
+         */
+        public int getInput ()
+        {
+            return input;
+        }
+
+        /**
+         * Report the ratio of pixels of the provided kind, with respect to input pixels.
+         *
+         * @param kind the desired kind
+         * @return the ratio, 0 if there is no input pixel
+         */
+        public double getRatio (DiffKind kind)
+        {
+            return (input != 0) ? ((double) getCount(kind) / input) : 0;
+        }
+
+        @Override
+        public String toString ()
+        {
+            StringBuilder sb = new StringBuilder("Counts{");
+            sb.append("input:").append(input);
+
+            for (DiffKind kind : DiffKind.values()) {
+                sb.append(" ").append(kind).append(":").append(getCount(kind));
+            }
+
+            sb.append("}");
+
+            return sb.toString();
+        }
+
+        private void include (Counts that)
+        {
+            input += that.input;
+
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += that.counts[i];
+            }
+        }
+    }
+
     //-----------//
     // Constants //
     //-----------//
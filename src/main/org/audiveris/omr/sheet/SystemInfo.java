@@ -346,6 +346,36 @@ public class SystemInfo
         freeGlyphs = null;
     }
 
+    //---------------//
+    // collectGlyphs //
+    //---------------//
+    /**
+     * Collect the glyphs this system refers to: glyphs of its inters, of its staff lines and
+     * its free glyphs.
+     *
+     * @param glyphs (output) the collection to populate
+     */
+    public void collectGlyphs (Collection<Glyph> glyphs)
+    {
+        for (Inter inter : sig.vertexSet()) {
+            if (inter.getGlyph() != null) {
+                glyphs.add(inter.getGlyph());
+            }
+        }
+
+        for (Staff staff : staves) {
+            for (LineInfo line : staff.getLines()) {
+                if (line.getGlyph() != null) {
+                    glyphs.add(line.getGlyph());
+                }
+            }
+        }
+
+        if (freeGlyphs != null) {
+            glyphs.addAll(freeGlyphs);
+        }
+    }
+
     //-----------//
     // compareTo //
     //-----------//
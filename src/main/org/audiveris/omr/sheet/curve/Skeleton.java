@@ -28,6 +28,7 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.image.ImageUtil;
+import org.audiveris.omr.image.Skeletonizer;
 import org.audiveris.omr.sheet.PageCleaner;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Scale;
@@ -208,6 +209,9 @@ public class Skeleton
      * <li>Bar lines, connections and stems can be crossed by a curve.
      * Perhaps another specific background value could be used?</li>
      * </ul>
+     * <p>
+     * Thinning is performed on a single copy of binary image, which is then directly erased and
+     * used as skeleton buffer, with no intermediate image conversion.
      *
      * @return the skeleton image (in parallel of setting the skeleton buffer)
      */
@@ -219,9 +223,10 @@ public class Skeleton
         ///ByteProcessor buffer = picture.getSource(Picture.SourceKey.NO_STAFF);
         ByteProcessor buffer = picture.getSource(Picture.SourceKey.BINARY);
         buffer = (ByteProcessor) buffer.duplicate();
-        buffer.skeletonize();
+        new Skeletonizer(buffer).skeletonize();
 
-        BufferedImage img = buffer.getBufferedImage();
+        // Image view on buffer pixels
+        BufferedImage img = ImageUtil.grayView(buffer);
 
         // Erase good shapes of each system, both non-crossables and crossables
         Graphics2D g = img.createGraphics();
@@ -257,8 +262,8 @@ public class Skeleton
         // Erase regions too far froms staves
         cleaner.eraseDistantRegions();
 
-        // Build buffer
-        buffer = new ByteProcessor(img);
+        // Finalize buffer (erasures have been painted directly into it)
+        g.dispose();
         buffer.threshold(127);
 
         // Keep a copy on disk?
@@ -21,11 +21,10 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.grid;
 
-import ij.process.ByteProcessor;
-
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.dynamic.Filament;
+import org.audiveris.omr.image.PackedBitmap;
 import org.audiveris.omr.lag.Lag;
 import org.audiveris.omr.lag.Lags;
 import org.audiveris.omr.lag.Section;
@@ -413,8 +412,7 @@ public class PeakGraph
      */
     private BarConnection checkConnection (BarAlignment alignment)
     {
-        ByteProcessor pixelFilter = sheet.getPicture().getSource(
-                Picture.SourceKey.BINARY);
+        PackedBitmap bitmap = sheet.getPicture().getBitmap(Picture.SourceKey.BINARY);
         StaffPeak p1 = alignment.topPeak;
         StaffPeak p2 = alignment.bottomPeak;
         final boolean vip = p1.isVip() && p2.isVip();
@@ -428,7 +426,7 @@ public class PeakGraph
                 new Line2D.Double(
                         new Point2D.Double(p1.getStop(), p1.getBottom()),
                         new Point2D.Double(p2.getStop(), p2.getTop())));
-        final AreaUtil.CoreData data = AreaUtil.verticalCore(pixelFilter, leftLine, rightLine);
+        final AreaUtil.CoreData data = AreaUtil.verticalCore(bitmap, leftLine, rightLine);
 
         if (vip) {
             logger.info("VIP running checkConnection {} and {} {}", p1, p2, data);
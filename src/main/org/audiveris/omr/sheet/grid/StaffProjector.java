@@ -21,10 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.grid;
 
-import ij.process.ByteProcessor;
-
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Grades;
+import org.audiveris.omr.image.PackedBitmap;
 import org.audiveris.omr.math.AreaUtil;
 import org.audiveris.omr.math.AreaUtil.CoreData;
 import org.audiveris.omr.math.GeoPath;
@@ -137,8 +136,8 @@ public class StaffProjector
     /** Staff to analyze. */
     private final Staff staff;
 
-    /** Pixel source. */
-    private final ByteProcessor pixelFilter;
+    /** Binary pixel source. */
+    private final PackedBitmap bitmap;
 
     /** Sequence of all blank regions found, whatever their width. */
     private final List<Blank> allBlanks = new ArrayList<Blank>();
@@ -179,7 +178,7 @@ public class StaffProjector
         this.peakGraph = peakGraph;
 
         Picture picture = sheet.getPicture();
-        pixelFilter = picture.getSource(Picture.SourceKey.BINARY);
+        bitmap = picture.getBitmap(Picture.SourceKey.BINARY);
 
         scale = sheet.getScale();
         params = new Parameters(scale, staff.getSpecificInterline());
@@ -739,18 +738,30 @@ public class StaffProjector
         final int xMin = xClamp(staff.getAbscissa(LEFT) - dx);
         final int xMax = xClamp(staff.getAbscissa(RIGHT) + dx);
 
+        final int[] yMins = new int[xMax - xMin + 1];
+        final int[] yMaxs = new int[xMax - xMin + 1];
+        int yTop = bitmap.getHeight();
+        int yBottom = -1;
+
         for (int x = xMin; x <= xMax; x++) {
-            int yMin = firstLine.yAt(x);
-            int yMax = lastLine.yAt(x);
-            short count = 0;
+            final int i = x - xMin;
+            yMins[i] = firstLine.yAt(x);
+            yMaxs[i] = lastLine.yAt(x);
+            yTop = Math.min(yTop, yMins[i]);
+            yBottom = Math.max(yBottom, yMaxs[i]);
+        }
 
-            for (int y = yMin; y <= yMax; y++) {
-                if (pixelFilter.get(x, y) == 0) {
-                    count++;
+        // Scan the foreground pixels row by row, background words being skipped at once
+        for (int y = Math.max(0, yTop), yLast = Math.min(yBottom, bitmap.getHeight() - 1);
+                y <= yLast; y++) {
+            for (int x = bitmap.nextFore(xMin, y); (x != -1) && (x <= xMax);
+                    x = bitmap.nextFore(x + 1, y)) {
+                final int i = x - xMin;
+
+                if ((y >= yMins[i]) && (y <= yMaxs[i])) {
+                    projection.increment(x);
                 }
             }
-
-            projection.increment(x, count);
         }
     }
 
@@ -884,7 +895,7 @@ public class StaffProjector
                 new Line2D.Double(start - dx, yTop, start - dx, yBottom));
         GeoPath rightLine = new GeoPath(
                 new Line2D.Double(stop + dx, yTop, stop + dx, yBottom));
-        final CoreData data = AreaUtil.verticalCore(pixelFilter, leftLine, rightLine);
+        final CoreData data = AreaUtil.verticalCore(bitmap, leftLine, rightLine);
 
         if (data.gap > params.gapThreshold) {
             return null;
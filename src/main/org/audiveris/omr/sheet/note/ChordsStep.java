@@ -156,6 +156,7 @@ public class ChordsStep
         if (measure != null) {
             logger.debug("CHORDS impact on {}", measure);
             BeamGroup.populate(measure, false); // False for checkGroupSplit
+            seq.addDirtyStack(measure.getStack());
         }
     }
 
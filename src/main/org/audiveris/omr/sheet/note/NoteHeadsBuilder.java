@@ -43,6 +43,7 @@ import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.GeoUtil;
 import org.audiveris.omr.math.LineUtil;
 import org.audiveris.omr.math.NaturalSpline;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.ReversePathIterator;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.sheet.Picture;
@@ -62,9 +63,11 @@ import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.Inters;
 import org.audiveris.omr.sig.inter.LedgerInter;
 import org.audiveris.omr.sig.relation.HeadStemRelation;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.Dumping;
 import static org.audiveris.omr.util.HorizontalSide.*;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Predicate;
 import org.audiveris.omr.util.StopWatch;
 
@@ -77,7 +80,6 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -86,6 +88,9 @@ import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code NoteHeadsBuilder} retrieves the void note heads, the black note heads,
@@ -159,9 +164,6 @@ public class NoteHeadsBuilder
     /** Minimum width of templates. */
     private int minTemplateWidth = 0; // TODO
 
-    /** The <b>properly scaled</b> templates to use, based on <b>current</b> staff. */
-    private Catalog catalog;
-
     /** The competing interpretations for the system. */
     private List<Inter> systemCompetitors;
 
@@ -243,26 +245,30 @@ public class NoteHeadsBuilder
         Collections.sort(systemSpots, Glyphs.byOrdinate);
         image = sheet.getPicture().getSource(Picture.SourceKey.BINARY);
 
-        for (Staff staff : system.getStaves()) {
-            logger.debug("Staff #{}", staff.getId());
+        final List<Staff> staves = system.getStaves();
+
+        // First, process all seed-based heads, staff per staff
+        watch.start("seeds");
+
+        final List<List<HeadInter>> seedHeads = processStaves(staves, true);
 
-            // Determine the proper catalog, based on staff size
-            final int pointSize = staff.getHeadPointSize();
-            catalog = TemplateFactory.getInstance().getCatalog(pointSize);
+        // Consider seed-based heads as special competitors for x-based notes
+        for (List<HeadInter> heads : seedHeads) {
+            systemCompetitors.addAll(heads);
+        }
 
-            List<Inter> ch = new ArrayList<Inter>(); // Created Heads for this staff
+        Collections.sort(systemCompetitors, Inters.byOrdinate);
 
-            // First, process all seed-based heads for the staff
-            watch.start("Staff #" + staff.getId() + " seed");
-            ch.addAll(processStaff(staff, true));
+        // Second, process x-based notes, staff per staff
+        watch.start("range");
 
-            // Consider seed-based heads as special competitors for x-based notes
-            systemCompetitors.addAll(ch);
-            Collections.sort(systemCompetitors, Inters.byOrdinate);
+        final List<List<HeadInter>> rangeHeads = processStaves(staves, false);
 
-            // Second, process x-based notes for the staff
-            watch.start("Staff #" + staff.getId() + " range");
-            ch.addAll(processStaff(staff, false));
+        for (int i = 0; i < staves.size(); i++) {
+            final Staff staff = staves.get(i);
+            final List<Inter> ch = new ArrayList<Inter>(); // Created Heads for this staff
+            ch.addAll(seedHeads.get(i));
+            ch.addAll(rangeHeads.get(i));
 
             // Finally, detect notes overlaps for current staff
             Collections.sort(ch, Inters.byFullAbscissa);
@@ -375,18 +381,20 @@ public class NoteHeadsBuilder
     /**
      * Create the interpretation that corresponds to the match found.
      *
-     * @param loc    (valued) location of the match
-     * @param anchor position of location WRT shape
-     * @param shape  the shape tested
-     * @param staff  the related staff
-     * @param pitch  the note pitch
+     * @param loc     (valued) location of the match
+     * @param anchor  position of location WRT shape
+     * @param shape   the shape tested
+     * @param staff   the related staff
+     * @param pitch   the note pitch
+     * @param catalog the templates catalog for staff
      * @return the inter created, if any
      */
     private HeadInter createInter (PixelDistance loc,
                                    Anchor anchor,
                                    Shape shape,
                                    Staff staff,
-                                   double pitch)
+                                   double pitch,
+                                   Catalog catalog)
     {
         final double distImpact = Template.impactOf(loc.d);
         final GradeImpacts impacts = new HeadInter.Impacts(distImpact);
@@ -604,44 +612,6 @@ public class NoteHeadsBuilder
         return comps;
     }
 
-    //---------//
-    // overlap //
-    //---------//
-    /**
-     * Check whether the provided box overlaps one of the competitors.
-     *
-     * @param box         template box
-     * @param competitors sequence of competitors, sorted by abscissa
-     * @return true if overlap was detected
-     */
-    private boolean overlap (Rectangle2D box,
-                             List<Inter> competitors)
-    {
-        final double xMax = box.getMaxX();
-
-        for (Inter comp : competitors) {
-            if (comp instanceof HeadInter) {
-                continue;
-            }
-
-            if (comp.getArea() != null) {
-                if (comp.getArea().intersects(box)) {
-                    return true;
-                }
-            } else {
-                Rectangle cBox = comp.getBounds();
-
-                if (cBox.intersects(box)) {
-                    return true;
-                } else if (cBox.x > xMax) {
-                    break;
-                }
-            }
-        }
-
-        return false;
-    }
-
     //-------------//
     // overlapSeed //
     //-------------//
@@ -692,10 +662,10 @@ public class NoteHeadsBuilder
      * @param useSeeds should we stick to stem seeds or not?
      * @return the list of created notes
      */
-    private List<Inter> processStaff (Staff staff,
-                                      boolean useSeeds)
+    private List<HeadInter> processStaff (Staff staff,
+                                          boolean useSeeds)
     {
-        List<Inter> ch = new ArrayList<Inter>(); // Created heads
+        List<HeadInter> ch = new ArrayList<HeadInter>(); // Created heads
 
         // Use all staff lines
         int pitch = -5; // Current pitch
@@ -749,6 +719,77 @@ public class NoteHeadsBuilder
         return ch;
     }
 
+    //---------------//
+    // processStaves //
+    //---------------//
+    /**
+     * Retrieve notes along each of the provided staves, in parallel if possible.
+     * <p>
+     * Staves are processed independently of each other, hence the created notes are inserted
+     * in SIG only afterwards, in staff order, to keep inter ids independent of thread scheduling.
+     *
+     * @param staves   the staves to process
+     * @param useSeeds should we stick to stem seeds or not?
+     * @return for each staff, the list of created notes
+     */
+    private List<List<HeadInter>> processStaves (List<Staff> staves,
+                                                 final boolean useSeeds)
+    {
+        final List<List<HeadInter>> heads = new ArrayList<List<HeadInter>>(staves.size());
+
+        if (!constants.parallelStaves.isSet()
+            || (OmrExecutors.defaultParallelism.getValue() == false)
+            || (staves.size() < 2)) {
+            // Sequential
+            for (Staff staff : staves) {
+                heads.add(processStaff(staff, useSeeds));
+            }
+        } else {
+            // Parallel
+            final List<Callable<List<HeadInter>>> tasks = new ArrayList<Callable<List<HeadInter>>>();
+
+            for (final Staff staff : staves) {
+                tasks.add(
+                        new Callable<List<HeadInter>>()
+                {
+                    @Override
+                    public List<HeadInter> call ()
+                            throws Exception
+                    {
+                        LogUtil.start(sheet.getStub());
+
+                        try {
+                            return processStaff(staff, useSeeds);
+                        } finally {
+                            LogUtil.stopStub();
+                        }
+                    }
+                });
+            }
+
+            try {
+                for (Future<List<HeadInter>> future : OmrExecutors.getHighExecutor().invokeAll(
+                        tasks)) {
+                    heads.add(future.get());
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("processStaves got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ExecutionException ex) {
+                throw new RuntimeException(ex.getCause());
+            }
+        }
+
+        // Insert the created notes in SIG
+        for (List<HeadInter> list : heads) {
+            for (HeadInter inter : list) {
+                sig.addVertex(inter);
+            }
+        }
+
+        return heads;
+    }
+
     //-----------------//
     // purgeDuplicates //
     //-----------------//
@@ -880,6 +921,10 @@ public class NoteHeadsBuilder
                 false,
                 "Should we print out the class parameters?");
 
+        private final Constant.Boolean parallelStaves = new Constant.Boolean(
+                true,
+                "Should we process the staves of a system in parallel?");
+
         private final Constant.Boolean allowAttachments = new Constant.Boolean(
                 false,
                 "Should we allow staff attachments for created areas?");
@@ -1087,6 +1132,160 @@ public class NoteHeadsBuilder
         }
     }
 
+    //-----------//
+    // Occupancy //
+    //-----------//
+    /**
+     * Abscissa-based index of the obstacles met along a scanned line.
+     * <p>
+     * Obstacles are dispatched into buckets of fixed width in abscissa, so that the check of a
+     * template box addresses only the few obstacles located in the same abscissa range, rather
+     * than the whole sequence of obstacles.
+     */
+    private static class Occupancy
+    {
+        //~ Static fields/initializers -------------------------------------------------------------
+
+        private static final Obstacle[] NO_OBSTACLES = new Obstacle[0];
+
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Width of a bucket. */
+        private final int bucketWidth;
+
+        /** Obstacles registered so far. */
+        private final List<Obstacle> obstacles = new ArrayList<Obstacle>();
+
+        /** Abscissa of first bucket. */
+        private int left;
+
+        /** Obstacles per bucket, built on first lookup. */
+        private Obstacle[][] buckets;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        /**
+         * Create an empty Occupancy.
+         *
+         * @param bucketWidth width in pixels of each abscissa bucket
+         */
+        public Occupancy (int bucketWidth)
+        {
+            this.bucketWidth = Math.max(1, bucketWidth);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Register an obstacle.
+         *
+         * @param bounds obstacle bounds
+         * @param area   precise obstacle area, if any
+         */
+        public void add (Rectangle bounds,
+                         Area area)
+        {
+            obstacles.add(new Obstacle(bounds, area));
+            buckets = null;
+        }
+
+        /**
+         * Check whether the provided box intersects any registered obstacle.
+         *
+         * @param box the box to check
+         * @return true if an obstacle is hit
+         */
+        public boolean intersects (Rectangle box)
+        {
+            if (obstacles.isEmpty()) {
+                return false;
+            }
+
+            if (buckets == null) {
+                buildBuckets();
+            }
+
+            final int first = bucketOf(box.x);
+            final int last = bucketOf((box.x + box.width) - 1);
+
+            for (int b = first; b <= last; b++) {
+                for (Obstacle obstacle : buckets[b]) {
+                    if (obstacle.intersects(box)) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        private int bucketOf (int x)
+        {
+            return Math.max(0, Math.min(buckets.length - 1, (x - left) / bucketWidth));
+        }
+
+        private void buildBuckets ()
+        {
+            left = Integer.MAX_VALUE;
+
+            int right = Integer.MIN_VALUE;
+
+            for (Obstacle obstacle : obstacles) {
+                left = Math.min(left, obstacle.bounds.x);
+                right = Math.max(right, (obstacle.bounds.x + obstacle.bounds.width) - 1);
+            }
+
+            final int count = 1 + (Math.max(left, right) - left) / bucketWidth;
+            final List<List<Obstacle>> lists = new ArrayList<List<Obstacle>>(count);
+
+            for (int b = 0; b < count; b++) {
+                lists.add(new ArrayList<Obstacle>());
+            }
+
+            buckets = new Obstacle[count][];
+
+            for (Obstacle obstacle : obstacles) {
+                final Rectangle r = obstacle.bounds;
+                final int first = bucketOf(r.x);
+                final int last = bucketOf((r.x + r.width) - 1);
+
+                for (int b = first; b <= last; b++) {
+                    lists.get(b).add(obstacle);
+                }
+            }
+
+            for (int b = 0; b < count; b++) {
+                buckets[b] = lists.get(b).toArray(NO_OBSTACLES);
+            }
+        }
+
+        //~ Inner Classes --------------------------------------------------------------------------
+        private static class Obstacle
+        {
+            //~ Instance fields --------------------------------------------------------------------
+
+            final Rectangle bounds;
+
+            final Area area;
+
+            //~ Constructors -----------------------------------------------------------------------
+            public Obstacle (Rectangle bounds,
+                             Area area)
+            {
+                this.bounds = bounds;
+                this.area = area;
+            }
+
+            //~ Methods ----------------------------------------------------------------------------
+            public boolean intersects (Rectangle box)
+            {
+                if (area != null) {
+                    return area.intersects(box);
+                } else {
+                    return bounds.intersects(box);
+                }
+            }
+        }
+    }
+
     /**
      * DEBUG: meant to precisely measure behavior of notes retrieval.
      */
@@ -1103,8 +1302,21 @@ public class NoteHeadsBuilder
         int abandons;
 
         //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Add the counts of another Perf instance.
+         *
+         * @param that the counts to add
+         */
+        public synchronized void include (Perf that)
+        {
+            bars += that.bars;
+            overlaps += that.overlaps;
+            evals += that.evals;
+            abandons += that.abandons;
+        }
+
         @Override
-        public String toString ()
+        public synchronized String toString ()
         {
             return String.format(
                     "%7d bars, %7d overlaps, %7d evals, %7d abandons",
@@ -1143,10 +1355,22 @@ public class NoteHeadsBuilder
 
         private final List<Inter> competitors;
 
+        /** Abscissa index on (non-head) competitors. */
+        private final Occupancy competitorsOccupancy;
+
         private final List<Rectangle> barRectangles;
 
+        /** Abscissa index on bar rectangles. */
+        private final Occupancy barsOccupancy;
+
         private final List<LedgerAdapter> ledgers;
 
+        /** The <b>properly scaled</b> templates to use, based on staff. */
+        private final Catalog catalog;
+
+        /** Counts for this scanner. */
+        private final Perf perf = new Perf();
+
         private List<HeadInter> inters = new ArrayList<HeadInter>();
 
         /** Offsets tried around a given ordinate. */
@@ -1181,6 +1405,7 @@ public class NoteHeadsBuilder
             final Staff staff = line.getStaff();
             interline = staff.getSpecificInterline();
             ledgers = getLedgerAdapters(staff, pitch);
+            catalog = TemplateFactory.getInstance().getCatalog(staff.getHeadPointSize());
 
             {
                 // Horizontal slice to detect stem seeds
@@ -1206,6 +1431,11 @@ public class NoteHeadsBuilder
                 final double below = ((interline * dir) / 2) + vMargin;
                 Area barsArea = line.getArea(above, below);
                 barRectangles = getBarRectangles(barsArea);
+                barsOccupancy = new Occupancy(interline);
+
+                for (Rectangle rect : barRectangles) {
+                    barsOccupancy.add(rect, null);
+                }
             }
 
             if (constants.allowAttachments.isSet()) {
@@ -1214,12 +1444,22 @@ public class NoteHeadsBuilder
             }
 
             competitors = getCompetitorsSlice(competitorsArea);
+            competitorsOccupancy = new Occupancy(interline);
+
+            for (Inter comp : competitors) {
+                if (!(comp instanceof HeadInter)) {
+                    competitorsOccupancy.add(comp.getBounds(), comp.getArea());
+                }
+            }
         }
 
         //~ Methods --------------------------------------------------------------------------------
         public List<HeadInter> lookup ()
         {
-            return useSeeds ? lookupSeeds() : lookupRange();
+            final List<HeadInter> found = useSeeds ? lookupSeeds() : lookupRange();
+            (useSeeds ? seedsPerf : rangePerf).include(perf);
+
+            return found;
         }
 
         //-------------//
@@ -1234,19 +1474,7 @@ public class NoteHeadsBuilder
          */
         private boolean barInvolved (Rectangle rect)
         {
-            int xBreak = rect.x + rect.width;
-
-            for (Rectangle r : barRectangles) {
-                if (r.intersects(rect)) {
-                    return true;
-                }
-
-                if (r.x >= xBreak) {
-                    break; // Since barRectangles are ordered by abscissa
-                }
-            }
-
-            return false;
+            return barsOccupancy.intersects(rect);
         }
 
         //-----------------//
@@ -1310,34 +1538,21 @@ public class NoteHeadsBuilder
 
             // Skip if frozen barline/connector is too close
             if (barInvolved(symBox)) {
-                if (useSeeds) {
-                    seedsPerf.bars++;
-                } else {
-                    rangePerf.bars++;
-                }
+                perf.bars++;
 
                 return null;
             }
 
             // Skip if location already used by really good object (beam, etc)
-            if (overlap(symBox, competitors)) {
-                if (useSeeds) {
-                    seedsPerf.overlaps++;
-                } else {
-                    rangePerf.overlaps++;
-                }
+            if (competitorsOccupancy.intersects(symBox)) {
+                perf.overlaps++;
 
                 return null;
             }
 
             // Then try (all variants for) the shape and keep the best dist
             double dist = desc.evaluate(x, y, anchor, distances);
-
-            if (useSeeds) {
-                seedsPerf.evals++;
-            } else {
-                rangePerf.evals++;
-            }
+            perf.evals++;
 
             return new PixelDistance(x, y, dist);
         }
@@ -1566,7 +1781,7 @@ public class NoteHeadsBuilder
                             // This is the very first (best guess) location tried.
                             // If eval is really bad, stop immediately
                             if ((loc == null) || (loc.d >= params.reallyBadDistance)) {
-                                rangePerf.abandons++;
+                                perf.abandons++;
 
                                 continue ShapeLoop;
                             }
@@ -1588,7 +1803,8 @@ public class NoteHeadsBuilder
                                 MIDDLE_LEFT,
                                 shape,
                                 line.getStaff(),
-                                pitch);
+                                pitch,
+                                catalog);
 
                         if (inter != null) {
                             inters.add(inter);
@@ -1607,9 +1823,7 @@ public class NoteHeadsBuilder
                 HeadInter inter = it.next();
                 Glyph glyph = inter.retrieveGlyph(image);
 
-                if (glyph != null) {
-                    sig.addVertex(inter);
-                } else {
+                if (glyph == null) {
                     it.remove();
                 }
             }
@@ -1666,7 +1880,7 @@ public class NoteHeadsBuilder
                                     // This is the very first (best guess) location tried.
                                     // If eval is really bad, stop immediately
                                     if ((loc == null) || (loc.d >= params.reallyBadDistance)) {
-                                        seedsPerf.abandons++;
+                                        perf.abandons++;
 
                                         continue ShapeLoop;
                                     }
@@ -1689,13 +1903,13 @@ public class NoteHeadsBuilder
                                     anchor,
                                     shape,
                                     line.getStaff(),
-                                    pitch);
+                                    pitch,
+                                    catalog);
 
                             if (inter != null) {
                                 Glyph glyph = inter.retrieveGlyph(image);
 
                                 if (glyph != null) {
-                                    sig.addVertex(inter);
                                     inters.add(inter);
                                 }
                             }
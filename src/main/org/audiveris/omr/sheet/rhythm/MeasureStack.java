@@ -23,6 +23,7 @@ package org.audiveris.omr.sheet.rhythm;
 
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.math.GeoUtil;
+import org.audiveris.omr.math.MutableRational;
 import org.audiveris.omr.math.Rational;
 import org.audiveris.omr.score.Page;
 import org.audiveris.omr.score.Score;
@@ -974,22 +975,23 @@ public class MeasureStack
      */
     public Rational getSlotsDuration ()
     {
-        Rational measureDur = Rational.ZERO;
+        final MutableRational measureDur = new MutableRational();
+        final MutableRational chordEnd = new MutableRational();
 
         // Whole/multi rests are handled outside of slots
         for (Slot slot : slots) {
             if (slot.getTimeOffset() != null) {
                 for (AbstractChordInter chord : slot.getChords()) {
-                    Rational chordEnd = slot.getTimeOffset().plus(chord.getDuration());
+                    chordEnd.set(slot.getTimeOffset()).add(chord.getDuration());
 
                     if (chordEnd.compareTo(measureDur) > 0) {
-                        measureDur = chordEnd;
+                        measureDur.set(chordEnd);
                     }
                 }
             }
         }
 
-        return measureDur;
+        return measureDur.toRational();
     }
 
     //-----------------------//
@@ -141,6 +141,8 @@ public class MeasuresStep
             for (Page page : system.getSheet().getPages()) {
                 page.numberMeasures();
             }
+
+            seq.setPageDirty();
         }
     }
 
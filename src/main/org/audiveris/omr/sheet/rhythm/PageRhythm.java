@@ -21,6 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.rhythm;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.Histogram;
 import org.audiveris.omr.math.Rational;
 import org.audiveris.omr.score.Page;
@@ -32,14 +35,19 @@ import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.Inters;
 import org.audiveris.omr.sig.inter.RestChordInter;
 import org.audiveris.omr.sig.inter.TupletInter;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Class {@code PageRhythm} handles rhythm data on a sheet page.
@@ -64,9 +72,15 @@ import java.util.List;
  * So now we simply check the "time correctness" of each stack regarding its time slots and voices.
  * <p>
  * Processing is done system per system <b>sequentially</b> because of impact of potential
- * key-sig changes on the following systems. Hence, parallelism is NOT provided for this step.
+ * key-sig changes on the following systems.
  * Consistently, within a system, processing is done measure stack after measure stack.
  * <p>
+ * However, since key-sig changes are not yet handled and since the expected duration of every
+ * stack is known once the raw pass is completed on all stacks, both passes can optionally be
+ * run on all systems in parallel (see constant {@code parallelSystems}).
+ * The stacks of a system are still processed one after the other, since they share the system
+ * SIG.
+ * <p>
  * Time sig can be inferred from stacks actual content, but this is a chicken &amp; egg problem.
  * We check whether the page starts with a time-sig indication. If not, we'll need two passes, the
  * first pass to determine expected duration and the second pass to determine time signature and
@@ -80,6 +94,8 @@ public class PageRhythm
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(PageRhythm.class);
 
     /** Adjustable rhythm classes. (FRAT: Flag, RestChord, AugmentationDot, Tuplet) */
@@ -95,6 +111,9 @@ public class PageRhythm
     /** Sequence of time-sig ranges found in page. */
     private final List<Range> ranges = new ArrayList<Range>();
 
+    /** Expected duration for each stack, as inferred from its range. */
+    private final Map<MeasureStack, Rational> durations = new HashMap<MeasureStack, Rational>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code PageRhythm} object.
@@ -242,12 +261,7 @@ public class PageRhythm
                     }
                 }
 
-                try {
-                    logger.debug("\n--- Processing {} expDur: {} ---", stack, range.duration);
-                    new StackTuner(stack, false).process(range.duration);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
-                }
+                durations.put(stack, range.duration);
 
                 // End of range?
                 if (stack.getIdValue() == range.stopId) {
@@ -256,12 +270,99 @@ public class PageRhythm
                     }
                 }
             }
+        }
+
+        processSystems(false);
+    }
+
+    //---------------//
+    // processSystem //
+    //---------------//
+    /**
+     * Process, one after the other, all the stacks of a system.
+     *
+     * @param system the system to process
+     * @param raw    true for raw pass, false for final pass
+     */
+    private void processSystem (SystemInfo system,
+                                boolean raw)
+    {
+        for (MeasureStack stack : system.getStacks()) {
+            try {
+                if (raw) {
+                    logger.debug("\n--- Raw processing {} ---", stack);
+                    new StackTuner(stack, true).process(null);
+                } else {
+                    final Rational duration = durations.get(stack);
+                    logger.debug("\n--- Processing {} expDur: {} ---", stack, duration);
+                    new StackTuner(stack, false).process(duration);
+                }
+            } catch (Exception ex) {
+                logger.warn("Error on stack " + stack + " " + ex, ex);
+            }
+        }
 
+        if (!raw) {
             // Refine voices IDs (and thus display colors) across all measures of the system
             Voices.refineSystem(system);
         }
     }
 
+    //----------------//
+    // processSystems //
+    //----------------//
+    /**
+     * Process all systems of the page, in parallel if so desired.
+     *
+     * @param raw true for raw pass, false for final pass
+     */
+    private void processSystems (final boolean raw)
+    {
+        final List<SystemInfo> systems = page.getSystems();
+        final boolean parallel = constants.parallelSystems.isSet()
+                                 && OmrExecutors.defaultParallelism.getValue()
+                                 && (systems.size() > 1);
+
+        if (!parallel) {
+            for (SystemInfo system : systems) {
+                processSystem(system, raw);
+            }
+
+            return;
+        }
+
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(systems.size());
+
+            for (final SystemInfo system : systems) {
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        try {
+                            LogUtil.start(page.getSheet().getStub());
+                            processSystem(system, raw);
+                        } catch (Exception ex) {
+                            logger.warn(system.getLogPrefix() + ex, ex);
+                        } finally {
+                            LogUtil.stopStub();
+                        }
+
+                        return null;
+                    }
+                });
+            }
+
+            OmrExecutors.getLowExecutor().invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            logger.warn("PageRhythm got interrupted");
+            throw new ProcessingCancellationException(ex);
+        }
+    }
+
     //--------------------------//
     // retrieveExpectedDuration //
     //--------------------------//
@@ -350,18 +451,13 @@ public class PageRhythm
     {
         // Launch a raw processing to determine expected measure duration
         // on the range of first system & stacks before first time signature
+        processSystems(true);
+
         final Iterator<Range> it = ranges.iterator();
         Range range = it.next(); // Current range
 
         for (SystemInfo system : page.getSystems()) {
             for (MeasureStack stack : system.getStacks()) {
-                try {
-                    logger.debug("\n--- Raw processing {} ---", stack);
-                    new StackTuner(stack, true).process(null);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
-                }
-
                 // End of range?
                 if (stack.getIdValue() == range.stopId) {
                     // If range is governed by a manual time signature, use it!
@@ -389,6 +485,19 @@ public class PageRhythm
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean parallelSystems = new Constant.Boolean(
+                false,
+                "Should we process the rhythm of page systems in parallel?");
+    }
+
     //-------//
     // Range //
     //-------//
@@ -60,8 +60,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
+import java.awt.geom.CubicCurve2D;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -102,12 +105,19 @@ public class RhythmsStep
         forStack.add(HeadStemRelation.class);
     }
 
+    /** Classes that impact the stacks they span, unless they cross systems. */
+    private static final Set<Class> forSpan;
+
+    static {
+        forSpan = new HashSet<Class>();
+        forSpan.add(SlurInter.class); // Because of possibility of ties
+    }
+
     /** Classes that impact a whole page. */
     private static final Set<Class> forPage;
 
     static {
         forPage = new HashSet<Class>();
-        forPage.add(SlurInter.class); // Because of possibility of ties
         forPage.add(TimeNumberInter.class);
         forPage.add(TimePairInter.class);
         forPage.add(TimeWholeInter.class);
@@ -119,6 +129,7 @@ public class RhythmsStep
     static {
         impactingClasses = new HashSet<Class>();
         impactingClasses.addAll(forStack);
+        impactingClasses.addAll(forSpan);
         impactingClasses.addAll(forPage);
     }
 
@@ -169,6 +180,15 @@ public class RhythmsStep
                 if (isImpactedBy(classe, forPage)) {
                     // Reprocess the whole page
                     impact.onPage = true;
+                } else if (isImpactedBy(classe, forSpan)) {
+                    // Reprocess the spanned stacks, or the whole page if system is crossed
+                    List<MeasureStack> stacks = getSpannedStacks((SlurInter) inter, system);
+
+                    if (stacks != null) {
+                        impact.onStacks.addAll(stacks);
+                    } else {
+                        impact.onPage = true;
+                    }
                 } else if (isImpactedBy(classe, forStack)) {
                     // Reprocess just the stack
                     Point center = inter.getCenter();
@@ -212,9 +232,11 @@ public class RhythmsStep
         // Second, handle each rhythm impact
         if (impact.onPage) {
             new PageRhythm(page).process();
+            seq.setPageDirty();
         } else {
             for (MeasureStack stack : impact.onStacks) {
                 new PageRhythm(page).reprocessStack(stack);
+                seq.addDirtyStack(stack);
             }
         }
     }
@@ -228,6 +250,52 @@ public class RhythmsStep
         return isImpactedBy(classe, impactingClasses);
     }
 
+    //------------------//
+    // getSpannedStacks //
+    //------------------//
+    /**
+     * Report the sequence of stacks spanned by the provided slur.
+     * <p>
+     * A slur that may be connected to another system (it starts in system first stack or stops in
+     * system last stack) could be a tie that impacts stacks beyond its own system.
+     *
+     * @param slur   the provided slur
+     * @param system the containing system
+     * @return the spanned stacks, or null if slur may cross system limits
+     */
+    private List<MeasureStack> getSpannedStacks (SlurInter slur,
+                                                 SystemInfo system)
+    {
+        final CubicCurve2D curve = slur.getCurve();
+
+        if (curve == null) {
+            return null;
+        }
+
+        final MeasureStack firstStack = system.getStackAt(curve.getP1());
+        final MeasureStack lastStack = system.getStackAt(curve.getP2());
+
+        if ((firstStack == null) || (lastStack == null)) {
+            return null;
+        }
+
+        if ((firstStack == system.getFirstStack()) || (lastStack == system.getLastStack())) {
+            return null;
+        }
+
+        final List<MeasureStack> stacks = new ArrayList<MeasureStack>();
+
+        for (MeasureStack stack = firstStack; stack != null; stack = stack.getNextSibling()) {
+            stacks.add(stack);
+
+            if (stack == lastStack) {
+                return stacks;
+            }
+        }
+
+        return null; // Stacks found in wrong order
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //--------//
     // Impact //
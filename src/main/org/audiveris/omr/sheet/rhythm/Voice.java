@@ -22,6 +22,7 @@
 package org.audiveris.omr.sheet.rhythm;
 
 import org.audiveris.omr.math.GCD;
+import org.audiveris.omr.math.MutableRational;
 import org.audiveris.omr.math.Rational;
 import org.audiveris.omr.score.Mark;
 import org.audiveris.omr.score.TimeRational;
@@ -229,7 +230,7 @@ public class Voice
             if (isWhole()) {
                 setTermination(null); // we can't tell anything
             } else {
-                Rational timeCounter = Rational.ZERO;
+                final MutableRational timeCounter = new MutableRational();
 
                 if (slots != null) {
                     for (SlotVoice info : slots.values()) {
@@ -240,19 +241,19 @@ public class Voice
                             // Need a forward before this chord ?
                             if (timeCounter.compareTo(slot.getTimeOffset()) < 0) {
                                 insertForward(
-                                        slot.getTimeOffset().minus(timeCounter),
+                                        slot.getTimeOffset().minus(timeCounter.toRational()),
                                         Mark.Position.BEFORE,
                                         chord);
-                                timeCounter = slot.getTimeOffset();
+                                timeCounter.set(slot.getTimeOffset());
                             }
 
-                            timeCounter = timeCounter.plus(chord.getDuration());
+                            timeCounter.add(chord.getDuration());
                         }
                     }
                 }
 
                 // Need an ending forward ?
-                Rational delta = timeCounter.minus(stack.getExpectedDuration());
+                Rational delta = timeCounter.subtract(stack.getExpectedDuration()).toRational();
                 setTermination(delta);
 
                 if (delta.compareTo(Rational.ZERO) < 0) {
@@ -321,21 +322,22 @@ public class Voice
             return null;
         }
 
-        Rational voiceDur = Rational.ZERO;
+        final MutableRational voiceDur = new MutableRational();
+        final MutableRational chordEnd = new MutableRational();
 
         for (Slot slot : measure.getStack().getSlots()) {
             SlotVoice info = getSlotInfo(slot);
 
             if ((info != null) && (info.status == Status.BEGIN)) {
-                Rational chordEnd = slot.getTimeOffset().plus(info.chord.getDuration());
+                chordEnd.set(slot.getTimeOffset()).add(info.chord.getDuration());
 
                 if (chordEnd.compareTo(voiceDur) > 0) {
-                    voiceDur = chordEnd;
+                    voiceDur.set(chordEnd);
                 }
             }
         }
 
-        return voiceDur;
+        return voiceDur.toRational();
     }
 
     //---------------//
@@ -772,7 +774,8 @@ public class Voice
 
             sb.append("|W");
         } else {
-            Rational voiceDur = Rational.ZERO;
+            final MutableRational voiceDur = new MutableRational();
+            final MutableRational chordEnd = new MutableRational();
 
             for (Slot slot : measure.getStack().getSlots()) {
                 SlotVoice info = getSlotInfo(slot);
@@ -782,10 +785,10 @@ public class Voice
                     if (info.status == Status.BEGIN) {
                         sb.append("|Ch#").append(String.format("%-5s", info.chord.getId()));
 
-                        Rational chordEnd = slot.getTimeOffset().plus(info.chord.getDuration());
+                        chordEnd.set(slot.getTimeOffset()).add(info.chord.getDuration());
 
                         if (chordEnd.compareTo(voiceDur) > 0) {
-                            voiceDur = chordEnd;
+                            voiceDur.set(chordEnd);
                         }
                     } else { // CONTINUE
                         sb.append("=========");
@@ -134,11 +134,14 @@ public abstract class Voices
      * Connect voices within the same logical part across all systems of a page.
      *
      * @param page the page to process
+     * @return the count of modifications made
      */
-    public static void refinePage (Page page)
+    public static int refinePage (Page page)
     {
         logger.debug("PageStep.refinePage");
 
+        int modifs = 0;
+
         final SystemInfo firstSystem = page.getFirstSystem();
         final SlurAdapter systemSlurAdapter = new SlurAdapter()
         {
@@ -161,12 +164,15 @@ public abstract class Voices
 
                             if ((tiedId != null) && (voice.getId() != tiedId)) {
                                 part.swapVoiceId(voice.getId(), tiedId);
+                                modifs++;
                             }
                         }
                     }
                 }
             }
         }
+
+        return modifs;
     }
 
     //-------------//
@@ -21,6 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.symbol;
 
+import org.audiveris.omr.Main;
 import org.audiveris.omr.classifier.Classifier;
 import org.audiveris.omr.classifier.Evaluation;
 import org.audiveris.omr.classifier.ShapeClassifier;
@@ -32,6 +33,7 @@ import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.glyph.GlyphLink;
 import org.audiveris.omr.glyph.Glyphs;
 import org.audiveris.omr.glyph.Grades;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.GeoUtil;
 import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Sheet;
@@ -39,8 +41,10 @@ import org.audiveris.omr.sheet.Staff;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.SmallChordInter;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 
 import org.jgrapht.alg.ConnectivityInspector;
@@ -58,10 +62,18 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class {@code SymbolsBuilder} is in charge, at system level, of retrieving all
  * possible symbols interpretations.
+ * <p>
+ * Clusters of connected glyphs are decomposed and classified independently of one another, in
+ * parallel when allowed. The resulting candidates are buffered per cluster, then registered and
+ * turned into inters in cluster order, so that glyph ids and SIG content do not depend on
+ * threads scheduling.
  *
  * @author Hervé Bitteur
  */
@@ -130,13 +142,14 @@ public class SymbolsBuilder
      * - getSymbolsGlyphs()                             // Retrieve all glyphs usable for symbols
      * - buildLinks()                                   // Build graph with distances
      * - processClusters():                             // Group connected glyphs into clusters
-     *    + FOREACH cluster of connected glyphs:
+     *    + FOREACH cluster of connected glyphs:      // Perhaps in parallel
      *       + cluster.decompose()                      // Decompose cluster into all subsets
      *       + FOREACH subset process(subset):
      *          - build compound glyph                  // Build one compound glyph per subset
      *          - evaluateGlyph(compound)               // Run shape classifier on compound
-     *          - FOREACH acceptable evaluation
-     *             + symbolFactory.create(eval, glyph) // Create inter(s) related to evaluation
+     *    + FOREACH cluster, FOREACH candidate:         // In cluster order
+     *       - register glyph                           // Register glyph in sheet index
+     *       - symbolFactory.create(eval, glyph)        // Create inter related to evaluation
      * </pre>
      *
      * @param optionalsMap the optional (weak) glyphs per system
@@ -173,24 +186,23 @@ public class SymbolsBuilder
     // evaluateGlyph //
     //---------------//
     /**
-     * Evaluate a provided glyph and create all acceptable inter instances.
+     * Evaluate a provided glyph and append the resulting candidate to the provided buffer.
+     * <p>
+     * Glyph is not registered here, and no inter is created here, this is left to
+     * {@link #flushCandidates(List)}.
      *
-     * @param glyph the glyph to evaluate
+     * @param glyph      the glyph to evaluate
+     * @param candidates (output) the cluster buffer of candidates
      */
-    private void evaluateGlyph (Glyph glyph)
+    private void evaluateGlyph (Glyph glyph,
+                                List<Candidate> candidates)
     {
-        if (glyph.getId() == 0) {
-            glyph = sheet.getGlyphIndex().registerOriginal(glyph);
-        }
-
         logger.debug("evaluateGlyph on {}", glyph);
 
-        if (glyph.isVip()) {
-            logger.info("VIP evaluateGlyph on {}", glyph);
-        }
-
         final Point center = glyph.getCenter();
         final Staff closestStaff = system.getClosestStaff(center); // Just an indication!
+        final Candidate candidate = new Candidate(glyph, closestStaff);
+        candidates.add(candidate); // Even with no evaluation, glyph is to be registered
 
         if (closestStaff == null) {
             return;
@@ -224,16 +236,43 @@ public class SymbolsBuilder
             Evaluation eval = evals[0];
 
             ///if (evals2.length > 0 && eval.shape == evals2[0].shape) {
-            try {
-                factory.create(eval, glyph, closestStaff);
-            } catch (Exception ex) {
-                logger.warn("Error in glyph evaluation " + ex, ex);
-            }
+            candidate.eval = eval;
 
             ///}
         }
     }
 
+    //-----------------//
+    // flushCandidates //
+    //-----------------//
+    /**
+     * Register the glyphs of a cluster buffer and create the inters for their evaluations.
+     *
+     * @param candidates the cluster buffer of candidates, in evaluation order
+     */
+    private void flushCandidates (List<Candidate> candidates)
+    {
+        for (Candidate candidate : candidates) {
+            Glyph glyph = candidate.glyph;
+
+            if (glyph.getId() == 0) {
+                glyph = sheet.getGlyphIndex().registerOriginal(glyph);
+            }
+
+            if (glyph.isVip()) {
+                logger.info("VIP evaluateGlyph on {}", glyph);
+            }
+
+            if (candidate.eval != null) {
+                try {
+                    factory.create(candidate.eval, glyph, candidate.staff);
+                } catch (Exception ex) {
+                    logger.warn("Error in glyph evaluation " + ex, ex);
+                }
+            }
+        }
+    }
+
     //------------------//
     // getSymbolsGlyphs //
     //------------------//
@@ -310,10 +349,13 @@ public class SymbolsBuilder
     //-----------------//
     /**
      * Process all clusters of connected glyphs, based on the glyphs graph.
+     * <p>
+     * Clusters are evaluated in parallel when allowed and when systems are not already processed
+     * in parallel, then flushed in sequence.
      *
      * @param systemGraph the graph of candidate glyphs, with their mutual distances
      */
-    private void processClusters (SimpleGraph<Glyph, GlyphLink> systemGraph)
+    private void processClusters (final SimpleGraph<Glyph, GlyphLink> systemGraph)
     {
         // Retrieve all the clusters of glyphs (sets of connected glyphs)
         final ConnectivityInspector<Glyph, GlyphLink> inspector = new ConnectivityInspector<Glyph, GlyphLink>(
@@ -321,39 +363,115 @@ public class SymbolsBuilder
         final List<Set<Glyph>> sets = inspector.connectedSets();
         logger.debug("symbols sets: {}", sets.size());
 
-        final int interline = sheet.getInterline();
+        final int workerCount = (OmrExecutors.defaultParallelism.getValue()
+                                 && !Main.processSystemsInParallel())
+                ? Math.min(OmrExecutors.getNumberOfCpus(), sets.size()) : 1;
+
+        if (workerCount <= 1) {
+            for (Set<Glyph> set : sets) {
+                flushCandidates(processCluster(set, systemGraph));
+            }
+
+            return;
+        }
+
+        // Each worker picks the next cluster to process, its candidates go to cluster slot
+        final List<List<Candidate>> buffers = new ArrayList<List<Candidate>>(sets.size());
+        buffers.addAll(Collections.<List<Candidate>>nCopies(sets.size(), null));
+
+        final AtomicInteger nextCluster = new AtomicInteger(0);
+
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workerCount);
+
+            for (int w = 0; w < workerCount; w++) {
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        try {
+                            LogUtil.start(sheet.getStub());
+
+                            for (int i; (i = nextCluster.getAndIncrement()) < sets.size();) {
+                                buffers.set(i, processCluster(sets.get(i), systemGraph));
+                            }
+                        } finally {
+                            LogUtil.stopStub();
+                        }
+
+                        return null;
+                    }
+                });
+            }
+
+            for (Future<Void> future : OmrExecutors.getLowExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("processClusters got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ProcessingCancellationException pce) {
+            throw pce;
+        } catch (Throwable ex) {
+            logger.warn("Exception raised in processClusters", ex);
+            throw new RuntimeException(ex);
+        }
+
+        // Flush all cluster buffers, in cluster order
+        for (List<Candidate> candidates : buffers) {
+            flushCandidates(candidates);
+        }
+    }
+
+    //----------------//
+    // processCluster //
+    //----------------//
+    /**
+     * Decompose and evaluate one cluster of connected glyphs.
+     *
+     * @param set         the set of connected glyphs
+     * @param systemGraph the graph of candidate glyphs, with their mutual distances
+     * @return the cluster buffer of candidates, in evaluation order
+     */
+    private List<Candidate> processCluster (Set<Glyph> set,
+                                            SimpleGraph<Glyph, GlyphLink> systemGraph)
+    {
+        final List<Candidate> candidates = new ArrayList<Candidate>();
         final int maxPartCount = constants.maxPartCount.getValue();
+        final int setSize = set.size();
+        logger.debug("set size: {}", setSize);
 
-        for (Set<Glyph> set : sets) {
-            final int setSize = set.size();
-            logger.debug("set size: {}", setSize);
-
-            if (setSize > 1) {
-                final Set<Glyph> subSet; // Use an upper limit for set size
-
-                if (setSize <= maxPartCount) {
-                    subSet = set;
-                } else {
-                    List<Glyph> list = new ArrayList<Glyph>(set);
-                    Collections.sort(list, Glyphs.byReverseWeight);
-                    list = list.subList(0, Math.min(list.size(), maxPartCount));
-                    subSet = new LinkedHashSet<Glyph>(list);
-                    logger.info("Symbol parts shrunk from {} to {}", setSize, maxPartCount);
-                }
+        if (setSize > 1) {
+            final Set<Glyph> subSet; // Use an upper limit for set size
 
-                // Use just the subgraph for this (sub)set
-                final SimpleGraph<Glyph, GlyphLink> subGraph;
-                subGraph = GlyphCluster.getSubGraph(subSet, systemGraph, true);
-                new GlyphCluster(new SymbolAdapter(subGraph), GlyphGroup.SYMBOL).decompose();
+            if (setSize <= maxPartCount) {
+                subSet = set;
             } else {
-                // The set is just an isolated glyph, to be evaluated directly
-                final Glyph glyph = set.iterator().next();
+                List<Glyph> list = new ArrayList<Glyph>(set);
+                Collections.sort(list, Glyphs.byReverseWeight);
+                list = list.subList(0, Math.min(list.size(), maxPartCount));
+                subSet = new LinkedHashSet<Glyph>(list);
+                logger.info("Symbol parts shrunk from {} to {}", setSize, maxPartCount);
+            }
 
-                if (classifier.isBigEnough(glyph, interline)) {
-                    evaluateGlyph(glyph);
-                }
+            // Use just the subgraph for this (sub)set
+            final SimpleGraph<Glyph, GlyphLink> subGraph;
+            subGraph = GlyphCluster.getSubGraph(subSet, systemGraph, true);
+            new GlyphCluster(new SymbolAdapter(subGraph, candidates), GlyphGroup.SYMBOL)
+                    .decompose();
+        } else {
+            // The set is just an isolated glyph, to be evaluated directly
+            final Glyph glyph = set.iterator().next();
+
+            if (classifier.isBigEnough(glyph, sheet.getInterline())) {
+                evaluateGlyph(glyph, candidates);
             }
         }
+
+        return candidates;
     }
 
     //-------------------//
@@ -376,6 +494,32 @@ public class SymbolsBuilder
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Candidate //
+    //-----------//
+    /**
+     * An evaluated glyph, waiting for registration and inter creation.
+     */
+    private static class Candidate
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final Glyph glyph;
+
+        final Staff staff;
+
+        /** Best acceptable evaluation, if any. */
+        Evaluation eval;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Candidate (Glyph glyph,
+                          Staff staff)
+        {
+            this.glyph = glyph;
+            this.staff = staff;
+        }
+    }
+
     //-----------//
     // Constants //
     //-----------//
@@ -466,10 +610,15 @@ public class SymbolsBuilder
 
         private final Scale scale = sheet.getScale();
 
+        /** Buffer of candidates for the cluster. */
+        private final List<Candidate> candidates;
+
         //~ Constructors ---------------------------------------------------------------------------
-        public SymbolAdapter (SimpleGraph<Glyph, GlyphLink> graph)
+        public SymbolAdapter (SimpleGraph<Glyph, GlyphLink> graph,
+                              List<Candidate> candidates)
         {
             super(graph);
+            this.candidates = candidates;
         }
 
         //~ Methods --------------------------------------------------------------------------------
@@ -477,7 +626,7 @@ public class SymbolsBuilder
         public void evaluateGlyph (Glyph glyph,
                                    Set<Glyph> parts)
         {
-            SymbolsBuilder.this.evaluateGlyph(glyph);
+            SymbolsBuilder.this.evaluateGlyph(glyph, candidates);
         }
 
         @Override
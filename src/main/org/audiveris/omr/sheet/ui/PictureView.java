@@ -33,6 +33,7 @@ import org.audiveris.omr.ui.selection.MouseMovement;
 import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.ui.view.RubberPanel;
 import org.audiveris.omr.ui.view.ScrollView;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.WeakPropertyChangeListener;
 
 import org.slf4j.Logger;
@@ -55,6 +56,8 @@ import javax.swing.SwingWorker;
 /**
  * Class {@code PictureView} defines the view dedicated to the display of the picture
  * image of a music sheet.
+ * <p>
+ * The binary image and the recognized entities are painted from cached tiles.
  *
  * @author Hervé Bitteur
  */
@@ -73,6 +76,18 @@ public class PictureView
     /** Pop-up page menu. */
     private final SheetPopupMenu pageMenu;
 
+    /** Watcher of sheet modifications. */
+    private final SheetWatcher watcher;
+
+    /** Tiles of recognized entities. */
+    private final TileCache outputTiles;
+
+    /** Tiles of binary image, if any. */
+    private TileCache binaryTiles;
+
+    /** Binary table rendered by binary tiles. */
+    private RunTable binaryTable;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a new {@code PictureView} instance, dedicated to a sheet.
@@ -87,6 +102,19 @@ public class PictureView
         view.setName("Picture-View");
         view.setPreferredSize(new Dimension(sheet.getWidth(), sheet.getHeight()));
 
+        watcher = new SheetWatcher(sheet);
+        outputTiles = new TileCache(
+                "picture-output",
+                view,
+                new TileCache.Layer()
+        {
+            @Override
+            public void render (Graphics2D g)
+            {
+                renderOutput(g);
+            }
+        });
+
         // Inject dependency of pixel location
         view.setLocationService(sheet.getLocationService());
 
@@ -108,9 +136,60 @@ public class PictureView
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
+        // Output rendering depends on view parameters
+        outputTiles.invalidate(null);
         view.repaint();
     }
 
+    //----------------//
+    // getBinaryTiles //
+    //----------------//
+    /**
+     * Report the tiles of provided binary table.
+     *
+     * @param table the binary table
+     * @param color color of black pixels
+     * @return the binary tiles
+     */
+    private TileCache getBinaryTiles (final RunTable table,
+                                      Color color)
+    {
+        if (table != binaryTable) {
+            binaryTable = table;
+            binaryTiles = new TileCache(
+                    "picture-binary",
+                    view,
+                    new TileCache.Layer()
+            {
+                @Override
+                public void render (Graphics2D g)
+                {
+                    table.render(g, new Point(0, 0));
+                }
+            },
+                    color);
+        }
+
+        return binaryTiles;
+    }
+
+    //--------------//
+    // renderOutput //
+    //--------------//
+    /**
+     * Render the recognized score entities.
+     *
+     * @param g graphics context
+     */
+    private void renderOutput (Graphics2D g)
+    {
+        final ViewParameters viewParams = ViewParameters.getInstance();
+        final boolean mixed = viewParams.isInputPainting();
+        final boolean coloredVoices = mixed ? false : viewParams.isVoicePainting();
+        g.setColor(mixed ? Colors.MUSIC_PICTURE : Colors.MUSIC_ALONE);
+        new SheetResultPainter(sheet, g, coloredVoices, true, false).process();
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //--------//
     // MyView //
@@ -149,7 +228,6 @@ public class PictureView
             final ViewParameters viewParams = ViewParameters.getInstance();
             final boolean input = viewParams.isInputPainting();
             final boolean output = viewParams.isOutputPainting();
-            final boolean voice = viewParams.isVoicePainting();
 
             boolean ok = true;
 
@@ -164,7 +242,7 @@ public class PictureView
 
             if (ok) {
                 RunTable table = sheet.getPicture().getTable(Picture.TableKey.BINARY);
-                doRender(g, input, output, voice, table);
+                doRender(g, input, output, table);
             } else {
                 // Spawn
                 new SwingWorker<RunTable, Void>()
@@ -194,7 +272,6 @@ public class PictureView
         private void doRender (Graphics2D g,
                                boolean input,
                                boolean output,
-                               boolean voice,
                                RunTable table)
         {
             final Color oldColor = g.getColor();
@@ -208,16 +285,14 @@ public class PictureView
                 if (initial != null) {
                     g.drawRenderedImage(initial, null);
                 } else if (table != null) {
-                    table.render(g, new Point(0, 0));
+                    getBinaryTiles(table, g.getColor()).paint(g);
                 }
             }
 
             // Render the recognized score entities?
             if (output) {
-                final boolean mixed = input;
-                final boolean coloredVoices = mixed ? false : voice;
-                g.setColor(mixed ? Colors.MUSIC_PICTURE : Colors.MUSIC_ALONE);
-                new SheetResultPainter(sheet, g, coloredVoices, true, false).process();
+                watcher.invalidate(outputTiles);
+                outputTiles.paint(g);
             }
 
             g.setColor(oldColor);
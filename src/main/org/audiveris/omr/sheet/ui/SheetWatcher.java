@@ -0,0 +1,188 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S h e e t W a t c h e r                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet.ui;
+
+import org.audiveris.omr.lag.Lag;
+import org.audiveris.omr.sheet.Scale;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.ui.view.TileCache;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code SheetWatcher} detects, from one check to the next, which areas of a sheet
+ * may have been modified, so that the cached layers of a sheet view can be invalidated.
+ * <p>
+ * Each system is watched through a cheap stamp of its SIG (counts of inters and relations,
+ * counts of additions and removals), the whole sheet through its latest step, its systems and
+ * its lags.
+ * Modifications that keep all these counts unchanged, such as an inter edited in place, are not
+ * detected and must lead the view to invalidate its layers explicitly.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetWatcher
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Watched sheet. */
+    private final Sheet sheet;
+
+    /** Stamp of each system, as of last check. */
+    private final Map<SystemInfo, Long> systemStamps = new HashMap<SystemInfo, Long>();
+
+    /** Stamp of the whole sheet, as of last check. */
+    private Long sheetStamp;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SheetWatcher} object.
+     *
+     * @param sheet the sheet to watch
+     */
+    public SheetWatcher (Sheet sheet)
+    {
+        this.sheet = sheet;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // invalidate //
+    //------------//
+    /**
+     * Invalidate, in the provided tile caches, the areas modified since previous check.
+     *
+     * @param caches the tile caches to update
+     */
+    public void invalidate (TileCache... caches)
+    {
+        final List<Rectangle> areas = getModifiedAreas();
+
+        for (TileCache cache : caches) {
+            if (areas == null) {
+                cache.invalidate(null);
+            } else {
+                for (Rectangle area : areas) {
+                    cache.invalidate(area);
+                }
+            }
+        }
+    }
+
+    //------------------//
+    // getModifiedAreas //
+    //------------------//
+    /**
+     * Report the areas modified since previous check.
+     *
+     * @return the modified areas (perhaps empty), or null if the whole sheet is concerned
+     */
+    private List<Rectangle> getModifiedAreas ()
+    {
+        final List<SystemInfo> systems = new ArrayList<SystemInfo>(sheet.getSystems());
+        final long stamp = getSheetStamp(systems);
+
+        if ((sheetStamp == null) || (sheetStamp != stamp)) {
+            sheetStamp = stamp;
+            systemStamps.clear();
+
+            for (SystemInfo system : systems) {
+                systemStamps.put(system, getSystemStamp(system));
+            }
+
+            return null;
+        }
+
+        final List<Rectangle> areas = new ArrayList<Rectangle>();
+        boolean all = false;
+
+        for (SystemInfo system : systems) {
+            final long systemStamp = getSystemStamp(system);
+            final Long old = systemStamps.put(system, systemStamp);
+
+            if ((old == null) || (old != systemStamp)) {
+                final Rectangle bounds = system.getBounds();
+
+                if (bounds == null) {
+                    all = true;
+                } else {
+                    // Some inter drawings may slightly exceed system area
+                    final Scale scale = sheet.getScale();
+                    final int margin = (scale != null) ? scale.getInterline() : 0;
+                    bounds.grow(margin, margin);
+                    areas.add(bounds);
+                }
+            }
+        }
+
+        return all ? null : areas;
+    }
+
+    //---------------//
+    // getSheetStamp //
+    //---------------//
+    private long getSheetStamp (List<SystemInfo> systems)
+    {
+        final Step latestStep = sheet.getStub().getLatestStep();
+        long stamp = (latestStep != null) ? latestStep.ordinal() : (-1);
+
+        for (SystemInfo system : systems) {
+            stamp = (stamp * 31) + System.identityHashCode(system);
+            stamp = (stamp * 31) + System.identityHashCode(system.getSig());
+        }
+
+        for (Lag lag : sheet.getLagManager().getAllLags()) {
+            if (lag != null) {
+                stamp = (stamp * 31) + lag.getLastId();
+                stamp = (stamp * 31) + lag.getEntities().size();
+            }
+        }
+
+        return stamp;
+    }
+
+    //----------------//
+    // getSystemStamp //
+    //----------------//
+    private long getSystemStamp (SystemInfo system)
+    {
+        final SIGraph sig = system.getSig();
+
+        if (sig == null) {
+            return 0;
+        }
+
+        long stamp = sig.vertexSet().size();
+        stamp = (stamp * 31) + sig.edgeSet().size();
+        stamp = (stamp * 31) + sig.getAddedCount();
+        stamp = (stamp * 31) + sig.getRemovedCount();
+
+        return stamp;
+    }
+}
@@ -61,6 +61,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
@@ -87,6 +88,12 @@ public class SIGraph
     /** Content for differed populating after unmarshalling. */
     private SigValue sigValue;
 
+    /** Count of inters added since sig creation (not counting reloaded ones). */
+    private final AtomicInteger addedCount = new AtomicInteger();
+
+    /** Count of inters removed since sig creation. */
+    private final AtomicInteger removedCount = new AtomicInteger();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SIGraph object at system level.
@@ -146,6 +153,7 @@ public class SIGraph
         boolean added = super.addVertex(inter);
 
         if (added) {
+            addedCount.incrementAndGet();
             inter.setSig(this);
 
             // Additional actions
@@ -155,6 +163,33 @@ public class SIGraph
         return added;
     }
 
+    //---------------//
+    // getAddedCount //
+    //---------------//
+    /**
+     * Report how many inters have been added to this sig since its creation.
+     * Inters populated at reload time are not counted.
+     *
+     * @return the count of added inters
+     */
+    public int getAddedCount ()
+    {
+        return addedCount.get();
+    }
+
+    //-----------------//
+    // getRemovedCount //
+    //-----------------//
+    /**
+     * Report how many inters have been removed from this sig since its creation.
+     *
+     * @return the count of removed inters
+     */
+    public int getRemovedCount ()
+    {
+        return removedCount.get();
+    }
+
     //-------------//
     // afterReload //
     //-------------//
@@ -1123,7 +1158,13 @@ public class SIGraph
             logger.info("VIP removeVertex {}", inter);
         }
 
-        return super.removeVertex(inter);
+        if (super.removeVertex(inter)) {
+            removedCount.incrementAndGet();
+
+            return true;
+        }
+
+        return false;
     }
 
     //--------------//
@@ -519,9 +519,7 @@ public abstract class AbstractChordInter
                             dur = AbstractNoteInter.getShapeDuration(Shape.NOTEHEAD_BLACK);
                         }
 
-                        for (int i = 0; i < fbn; i++) {
-                            dur = dur.divides(2);
-                        }
+                        dur = dur.divides(1 << fbn);
                     }
                 }
             }
@@ -561,9 +559,9 @@ public abstract class AbstractChordInter
             if (!noteShape.isWholeRest()) {
                 // Apply dotaugmentation
                 if (dotsNumber == 1) {
-                    return sansDot.times(new Rational(3, 2));
+                    return new Rational(3 * sansDot.num, 2 * sansDot.den);
                 } else if (dotsNumber == 2) {
-                    return sansDot.times(new Rational(7, 4));
+                    return new Rational(7 * sansDot.num, 4 * sansDot.den);
                 }
             }
         }
@@ -383,7 +383,7 @@ public class InterController
         history.clear();
 
         if (editor != null) {
-            refreshUI();
+            refreshUI(null);
         }
     }
 
@@ -637,6 +637,8 @@ public class InterController
                         logger.debug("Impact {}", step);
                         step.impact(tempSeq, OpKind.DO);
                     }
+
+                    dirtyArea = tempSeq.getDirtyArea();
                 } catch (Throwable ex) {
                     logger.warn("Exception in reprocessRhythm {}", ex.toString(), ex);
                 }
@@ -1182,12 +1184,14 @@ public class InterController
     //-----------//
     /**
      * Refresh UI after any user action sequence.
+     *
+     * @param area the impacted sheet region, null for the whole sheet
      */
     @UIThread
-    private void refreshUI ()
+    private void refreshUI (Rectangle area)
     {
         // Update editor display
-        editor.refresh();
+        editor.refresh(area);
 
         // Update status of undo/redo actions
         final BookActions bookActions = BookActions.getInstance();
@@ -1388,6 +1392,9 @@ public class InterController
 
         protected final OpKind opKind;
 
+        /** Sheet region impacted by the action, null for the whole sheet. */
+        protected Rectangle dirtyArea;
+
         //~ Constructors ---------------------------------------------------------------------------
         public CtrlTask (OpKind opKind)
         {
@@ -1406,10 +1413,11 @@ public class InterController
                 sheet.getStub().setModified(true);
             }
 
-            // Re-process impacted steps
+            // Re-process impacted steps, recording the impacted region
             final Step latestStep = sheet.getStub().getLatestStep();
             final Step firstStep = firstImpactedStep(seq);
             logger.debug("firstStep: {}", firstStep);
+            seq.clearDirty();
 
             if ((firstStep != null) && (firstStep.compareTo(latestStep) <= 0)) {
                 final EnumSet<Step> steps = EnumSet.range(firstStep, latestStep);
@@ -1419,6 +1427,8 @@ public class InterController
                     step.impact(seq, opKind);
                 }
             }
+
+            dirtyArea = seq.getDirtyArea();
         }
 
         @Override
@@ -1433,7 +1443,7 @@ public class InterController
             }
 
             // Refresh user display
-            refreshUI();
+            refreshUI(dirtyArea);
         }
     }
 
@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.sig.ui;
 
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sheet.rhythm.MeasureStack;
 import org.audiveris.omr.sig.SIGraph;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.relation.Relation;
@@ -28,9 +30,11 @@ import org.audiveris.omr.sig.relation.Relation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
@@ -38,6 +42,10 @@ import java.util.Set;
 /**
  * Class {@code UITaskList} is a sequence of {@link UITask} instances, meant to
  * be handled as a whole.
+ * <p>
+ * While the impacted steps are re-processed, they record in the sequence the measure stacks they
+ * have updated, or flag the whole page, so that the display can be refreshed on the impacted
+ * region only (see {@link #getDirtyArea()}).
  *
  * @author Hervé Bitteur
  */
@@ -66,6 +74,12 @@ public class UITaskList
     /** Options for the actions list. */
     private final Set<Option> options = new HashSet<Option>();
 
+    /** Measure stacks updated by the impacted steps. */
+    private final Set<MeasureStack> dirtyStacks = new LinkedHashSet<MeasureStack>();
+
+    /** Has the impact gone beyond the inters and the dirty stacks? */
+    private boolean pageDirty;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code InterTaskList} object.
@@ -101,6 +115,100 @@ public class UITaskList
         list.add(task);
     }
 
+    //---------------//
+    // addDirtyStack //
+    //---------------//
+    /**
+     * Record that the provided measure stack has been updated by an impacted step.
+     *
+     * @param stack the updated stack (null is ignored)
+     */
+    public void addDirtyStack (MeasureStack stack)
+    {
+        if (stack != null) {
+            dirtyStacks.add(stack);
+        }
+    }
+
+    //------------//
+    // clearDirty //
+    //------------//
+    /**
+     * Forget the impact recorded so far, before the impacted steps are re-processed.
+     */
+    public void clearDirty ()
+    {
+        dirtyStacks.clear();
+        pageDirty = false;
+    }
+
+    //--------------//
+    // getDirtyArea //
+    //--------------//
+    /**
+     * Report the sheet region impacted by this sequence, that is the bounds of the inters
+     * involved and of the dirty stacks.
+     *
+     * @return the impacted region, or null if impact is not limited to a region
+     */
+    public Rectangle getDirtyArea ()
+    {
+        if (pageDirty) {
+            return null;
+        }
+
+        Rectangle area = null;
+
+        for (UITask task : list) {
+            final Rectangle box;
+
+            if (task instanceof InterTask) {
+                box = ((InterTask) task).getInter().getBounds();
+            } else if (task instanceof RelationTask) {
+                RelationTask relationTask = (RelationTask) task;
+                box = relationTask.getSource().getBounds();
+
+                final Rectangle targetBox = relationTask.getTarget().getBounds();
+
+                if ((box == null) || (targetBox == null)) {
+                    return null;
+                }
+
+                box.add(targetBox);
+            } else if (task instanceof StackTask) {
+                box = getBounds(((StackTask) task).getStack());
+            } else {
+                return null;
+            }
+
+            if (box == null) {
+                return null;
+            }
+
+            if (area == null) {
+                area = box;
+            } else {
+                area.add(box);
+            }
+        }
+
+        for (MeasureStack stack : dirtyStacks) {
+            final Rectangle box = getBounds(stack);
+
+            if (box == null) {
+                return null;
+            }
+
+            if (area == null) {
+                area = box;
+            } else {
+                area.add(box);
+            }
+        }
+
+        return area;
+    }
+
     //-----------//
     // getInters //
     //-----------//
@@ -223,6 +331,17 @@ public class UITaskList
         }
     }
 
+    //--------------//
+    // setPageDirty //
+    //--------------//
+    /**
+     * Record that an impacted step has updated more than the dirty stacks.
+     */
+    public void setPageDirty ()
+    {
+        pageDirty = true;
+    }
+
     //------------//
     // setOptions //
     //------------//
@@ -255,4 +374,27 @@ public class UITaskList
     {
         options.removeAll(Arrays.asList(keys));
     }
+
+    //-----------//
+    // getBounds //
+    //-----------//
+    /**
+     * Report the bounds of a measure stack, using the height of its containing system.
+     *
+     * @param stack the measure stack
+     * @return the stack bounds, or null if not available
+     */
+    private Rectangle getBounds (MeasureStack stack)
+    {
+        final SystemInfo system = stack.getSystem();
+        final Rectangle systemBox = (system != null) ? system.getBounds() : null;
+
+        if (systemBox == null) {
+            return null;
+        }
+
+        final int left = stack.getLeft();
+
+        return new Rectangle(left, systemBox.y, stack.getRight() - left + 1, systemBox.height);
+    }
 }
@@ -23,6 +23,7 @@ package org.audiveris.omr.step;
 
 import org.audiveris.omr.Main;
 import org.audiveris.omr.OMR;
+import org.audiveris.omr.glyph.GlyphIndex;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
@@ -33,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
@@ -172,11 +174,19 @@ public abstract class AbstractSystemStep<C>
     private void doitPerSystem (final Sheet sheet,
                                 final C context)
     {
+        final boolean parallel = Main.processSystemsInParallel();
+        final List<SystemInfo> systems = sheet.getSystems();
+
+        // In parallel, each system gets its own block of glyph ids
+        final GlyphIndex.IdBlocks idBlocks = parallel
+                ? sheet.getGlyphIndex().reserveIdBlocks(systems.size()) : null;
+
         try {
-            final boolean parallel = Main.processSystemsInParallel();
             final Collection<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
 
-            for (final SystemInfo system : sheet.getSystems()) {
+            for (int i = 0; i < systems.size(); i++) {
+                final SystemInfo system = systems.get(i);
+                final int index = i;
                 tasks.add(
                         new Callable<Void>()
                 {
@@ -189,6 +199,7 @@ public abstract class AbstractSystemStep<C>
                         try {
                             if (parallel) {
                                 LogUtil.start(sheet.getStub());
+                                idBlocks.enter(index);
                             }
 
                             logger.debug(
@@ -196,11 +207,17 @@ public abstract class AbstractSystemStep<C>
                                     AbstractSystemStep.this,
                                     system.getId());
 
+                            final StepMetrics.Probe probe = StepMetrics.startSystem(system);
                             doSystem(system, context);
+
+                            if (probe != null) {
+                                probe.stop();
+                            }
                         } catch (Exception ex) {
                             logger.warn(system.getLogPrefix() + ex, ex);
                         } finally {
                             if (parallel) {
+                                idBlocks.exit();
                                 LogUtil.stopStub();
                             }
                         }
@@ -225,6 +242,10 @@ public abstract class AbstractSystemStep<C>
             throw new ProcessingCancellationException(ex);
         } catch (Exception ex) {
             throw new RuntimeException(ex);
+        } finally {
+            if (idBlocks != null) {
+                idBlocks.close();
+            }
         }
     }
 }
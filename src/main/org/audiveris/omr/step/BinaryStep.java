@@ -26,6 +26,8 @@ import ij.process.ByteProcessor;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.FilterDescriptor;
+import org.audiveris.omr.image.ImageUtil;
+import org.audiveris.omr.image.PackedBitmap;
 import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.run.RunTable;
@@ -40,9 +42,14 @@ import org.audiveris.omr.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.image.BufferedImage;
+
 /**
  * Class {@code BinaryStep} implements <b>BINARY</b> step, which binarizes the initial
  * sheet image, using proper filter, to come up with a black-and-white image.
+ * <p>
+ * An initial image made of pure black and pure white 1-bit pixels is already binarized, whatever
+ * the filter, and is thus used as is.
  *
  * @author Hervé Bitteur
  */
@@ -84,27 +91,48 @@ public class BinaryStep
             throws StepException
     {
         StopWatch watch = new StopWatch("Binary step for " + sheet.getId());
-        watch.start("Getting initial source");
-
         Picture picture = sheet.getPicture();
-        ByteProcessor initial = picture.getSource(SourceKey.INITIAL);
+        RunTable wholeVertTable = null;
+
+        if (constants.useBiLevelImage.isSet()) {
+            BufferedImage initialImage = picture.getInitialImage();
+
+            if (initialImage != null) {
+                watch.start("Bi-level bitmap");
 
-        //
-        //        boolean hasGray = hasGray(initial);
-        //        logger.info("hasGray: {}", hasGray);
-        //
-        FilterDescriptor desc = sheet.getStub().getBinarizationFilter().getValue();
-        logger.debug("{}", "Binarization");
+                PackedBitmap bitmap = ImageUtil.toBitmap(initialImage);
+
+                if (bitmap != null) {
+                    logger.debug("Using bi-level image as binary");
+                    watch.start("Create binary RunTable");
+                    wholeVertTable = bitmap.getRunTable(Orientation.VERTICAL);
+                }
+            }
+        }
 
-        PixelFilter filter = desc.getFilter(initial);
-        watch.start("Binarize source");
+        if (wholeVertTable == null) {
+            watch.start("Getting initial source");
 
-        ByteProcessor binary = filter.filteredImage();
+            ByteProcessor initial = picture.getSource(SourceKey.INITIAL);
 
-        watch.start("Create binary RunTable");
+            //
+            //        boolean hasGray = hasGray(initial);
+            //        logger.info("hasGray: {}", hasGray);
+            //
+            FilterDescriptor desc = sheet.getStub().getBinarizationFilter().getValue();
+            logger.debug("{}", "Binarization");
+
+            PixelFilter filter = desc.getFilter(initial);
+            watch.start("Binarize source");
+
+            ByteProcessor binary = filter.filteredImage();
+
+            watch.start("Create binary RunTable");
+
+            RunTableFactory vertFactory = new RunTableFactory(Orientation.VERTICAL);
+            wholeVertTable = vertFactory.createTable(binary);
+        }
 
-        RunTableFactory vertFactory = new RunTableFactory(Orientation.VERTICAL);
-        RunTable wholeVertTable = vertFactory.createTable(binary);
         picture.setTable(Picture.TableKey.BINARY, wholeVertTable, true);
 
         // To discard image
@@ -158,5 +186,9 @@ public class BinaryStep
         private final Constant.Boolean printWatch = new Constant.Boolean(
                 false,
                 "Should we print out the stop watch?");
+
+        private final Constant.Boolean useBiLevelImage = new Constant.Boolean(
+                true,
+                "Should we use a black and white 1-bit image directly as binary image?");
     }
 }
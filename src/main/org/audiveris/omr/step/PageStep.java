@@ -265,22 +265,28 @@ public class PageStep
 
             if (impact.onParts) {
                 new PageReduction(page).reduce();
+                seq.setPageDirty();
             }
 
             if (impact.onMeasures) {
                 new MeasureFixer().process(page);
+                seq.setPageDirty();
             }
 
             if (impact.onSlurs) {
                 page.connectOrphanSlurs(true); // True for tie checking
+                seq.setPageDirty();
             }
 
             if (impact.onLyrics) {
                 refineLyrics(page);
+                seq.setPageDirty();
             }
 
             if (impact.onVoices) {
-                Voices.refinePage(page);
+                if (Voices.refinePage(page) > 0) {
+                    seq.setPageDirty(); // Voice IDs (and colors) swapped in whole parts
+                }
             }
         }
     }
@@ -0,0 +1,763 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     S t e p M e t r i c s                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.GlyphIndex;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetDiff;
+import org.audiveris.omr.sheet.SheetDiff.DiffKind;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sig.SIGraph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class {@code StepMetrics} gathers structured measurements on OMR processing, at sheet,
+ * step and system levels.
+ * <p>
+ * Each measurement ({@link Probe}) records wall time, CPU time and allocated bytes (as provided by
+ * the JVM {@link ThreadMXBean}), the number of inters created and deleted in the systems SIGs, and
+ * the number of hits and misses in the sheet glyph index.
+ * <p>
+ * When a probe is stopped, its measurement is appended as a JSON line to the book
+ * {@code <radix>-metrics.jsonl} file, located in the book folder.
+ * Step measurements are also aggregated in memory, and can be exported in Prometheus text format
+ * via {@link #toPrometheus()}.
+ * <p>
+ * Metrics are recorded only when the {@code recordMetrics} constant is set, or when they have been
+ * forced on (typically by service mode).
+ * <p>
+ * Once a sheet has been fully transcribed, its recognition quality can also be recorded, as
+ * {@link SheetDiff} ratios for the sheet and for each of its systems (see {@link #recordDiff}).
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class StepMetrics
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(StepMetrics.class);
+
+    /** Suffix for book metrics file. */
+    public static final String METRICS_SUFFIX = "-metrics.jsonl";
+
+    /** JVM thread bean. */
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /** Extended thread bean, if available, for allocated bytes. */
+    private static final com.sun.management.ThreadMXBean allocBean = getAllocBean();
+
+    /** Metrics forced on, regardless of constant value. */
+    private static volatile boolean forced;
+
+    /** Current step probe, per sheet stub. */
+    private static final ConcurrentMap<SheetStub, Probe> stepProbes =
+            new ConcurrentHashMap<SheetStub, Probe>();
+
+    /** Current sheet probe, per sheet stub. */
+    private static final ConcurrentMap<SheetStub, Probe> sheetProbes =
+            new ConcurrentHashMap<SheetStub, Probe>();
+
+    /** Aggregated totals, per step. */
+    private static final Map<Step, Totals> totals = new EnumMap<Step, Totals>(Step.class);
+
+    static {
+        for (Step step : Step.values()) {
+            totals.put(step, new Totals());
+        }
+    }
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private StepMetrics ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether metrics are being recorded.
+     *
+     * @return true if so
+     */
+    public static boolean isEnabled ()
+    {
+        return forced || constants.recordMetrics.isSet();
+    }
+
+    //------------//
+    // recordDiff //
+    //------------//
+    /**
+     * Record the pixel differences between input and recognized entities, for the provided
+     * sheet as a whole and for each of its systems.
+     *
+     * @param sheet the transcribed sheet
+     */
+    public static void recordDiff (Sheet sheet)
+    {
+        if (!isEnabled() || !constants.recordDiff.isSet()) {
+            return;
+        }
+
+        final SheetStub stub = sheet.getStub();
+        final Book book = stub.getBook();
+
+        try {
+            final SheetDiff diff = new SheetDiff(sheet);
+            append(book, diffJson(stub, null, diff.computeCounts()));
+
+            for (SystemInfo system : sheet.getSystems()) {
+                final SheetDiff.Counts counts = diff.getCounts(system);
+
+                if (counts != null) {
+                    append(book, diffJson(stub, system, counts));
+                }
+            }
+        } catch (ProcessingCancellationException pce) {
+            throw pce;
+        } catch (Exception ex) {
+            logger.warn("Error computing diff of {} {}", sheet.getId(), ex.toString(), ex);
+        }
+    }
+
+    //-----------//
+    // setForced //
+    //-----------//
+    /**
+     * Force metrics recording on (or back to constant value).
+     *
+     * @param bool true to force recording
+     */
+    public static void setForced (boolean bool)
+    {
+        forced = bool;
+    }
+
+    //------------//
+    // startSheet //
+    //------------//
+    /**
+     * Start measuring the processing of a sheet, towards a target step.
+     *
+     * @param stub   the sheet stub
+     * @param target the target step
+     * @return the started probe, or null if metrics are disabled
+     */
+    public static Probe startSheet (SheetStub stub,
+                                    Step target)
+    {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final Probe probe = new Probe(Scope.sheet, stub, target, null, null);
+        sheetProbes.put(stub, probe);
+
+        return probe;
+    }
+
+    //-----------//
+    // startStep //
+    //-----------//
+    /**
+     * Start measuring the processing of a step on a sheet.
+     *
+     * @param sheet the sheet being processed
+     * @param step  the step being performed
+     * @return the started probe, or null if metrics are disabled
+     */
+    public static Probe startStep (Sheet sheet,
+                                   Step step)
+    {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final SheetStub stub = sheet.getStub();
+        final Probe probe = new Probe(Scope.step, stub, step, null, sheetProbes.get(stub));
+        probe.startCounters(sheet);
+        stepProbes.put(stub, probe);
+
+        return probe;
+    }
+
+    //-------------//
+    // startSystem //
+    //-------------//
+    /**
+     * Start measuring the processing of a system by the current step.
+     *
+     * @param system the system being processed
+     * @return the started probe, or null if metrics are disabled
+     */
+    public static Probe startSystem (SystemInfo system)
+    {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final SheetStub stub = system.getSheet().getStub();
+        final Probe parent = stepProbes.get(stub);
+        final Step step = (parent != null) ? parent.step : stub.getCurrentStep();
+        final Probe probe = new Probe(Scope.system, stub, step, system, parent);
+        probe.startCounters(system.getSig());
+
+        return probe;
+    }
+
+    //--------------//
+    // toPrometheus //
+    //--------------//
+    /**
+     * Export the aggregated step metrics in Prometheus text exposition format.
+     *
+     * @return the metrics text
+     */
+    public static String toPrometheus ()
+    {
+        final StringBuilder sb = new StringBuilder();
+        family(sb, "audiveris_step_runs_total", "counter", "Number of step runs");
+        family(sb, "audiveris_step_seconds_total", "counter", "Wall time spent in step");
+        family(sb, "audiveris_step_cpu_seconds_total", "counter", "CPU time spent in step");
+        family(sb, "audiveris_step_allocated_bytes_total", "counter", "Bytes allocated by step");
+        family(sb, "audiveris_step_inters_created_total", "counter", "Inters created by step");
+        family(sb, "audiveris_step_inters_deleted_total", "counter", "Inters deleted by step");
+        family(sb, "audiveris_step_glyph_hits_total", "counter", "Glyph index hits in step");
+        family(sb, "audiveris_step_glyph_misses_total", "counter", "Glyph index misses in step");
+
+        synchronized (totals) {
+            for (Map.Entry<Step, Totals> entry : totals.entrySet()) {
+                final Totals t = entry.getValue();
+
+                if (t.runs == 0) {
+                    continue;
+                }
+
+                final String label = "{step=\"" + entry.getKey().name() + "\"} ";
+                line(sb, "audiveris_step_runs_total", label, t.runs);
+                line(sb, "audiveris_step_seconds_total", label, t.wallNanos / 1e9);
+                line(sb, "audiveris_step_cpu_seconds_total", label, t.cpuNanos / 1e9);
+                line(sb, "audiveris_step_allocated_bytes_total", label, t.allocBytes);
+                line(sb, "audiveris_step_inters_created_total", label, t.intersCreated);
+                line(sb, "audiveris_step_inters_deleted_total", label, t.intersDeleted);
+                line(sb, "audiveris_step_glyph_hits_total", label, t.glyphHits);
+                line(sb, "audiveris_step_glyph_misses_total", label, t.glyphMisses);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    //--------//
+    // append //
+    //--------//
+    /**
+     * Append a JSON line to the metrics file of the provided book.
+     *
+     * @param book the containing book
+     * @param json the JSON line
+     */
+    private static void append (Book book,
+                                String json)
+    {
+        final Path folder = BookManager.getDefaultBookFolder(book);
+
+        if (folder == null) {
+            return;
+        }
+
+        final Path path = folder.resolve(book.getRadix() + METRICS_SUFFIX);
+
+        synchronized (book) {
+            Writer writer = null;
+
+            try {
+                Files.createDirectories(folder);
+                writer = Files.newBufferedWriter(
+                        path,
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+                writer.write(json);
+                writer.write('\n');
+            } catch (IOException ex) {
+                logger.warn("Error writing metrics {} {}", path, ex.toString(), ex);
+            } finally {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+    }
+
+    //----------//
+    // diffJson //
+    //----------//
+    private static String diffJson (SheetStub stub,
+                                    SystemInfo system,
+                                    SheetDiff.Counts counts)
+    {
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"time\":").append(System.currentTimeMillis());
+        sb.append(",\"scope\":\"").append(Scope.diff).append('"');
+        sb.append(",\"book\":\"").append(Probe.escape(stub.getBook().getRadix())).append('"');
+        sb.append(",\"sheet\":").append(stub.getNumber());
+
+        if (system != null) {
+            sb.append(",\"system\":").append(system.getId());
+        }
+
+        sb.append(",\"inputPixels\":").append(counts.getInput());
+        sb.append(",\"positives\":").append(counts.getCount(DiffKind.POSITIVES));
+        sb.append(",\"negatives\":").append(counts.getCount(DiffKind.NEGATIVES));
+        sb.append(",\"falsePositives\":").append(counts.getCount(DiffKind.FALSE_POSITIVES));
+
+        for (DiffKind kind : DiffKind.values()) {
+            sb.append(",\"").append(ratioName(kind)).append("\":");
+            sb.append(String.format(Locale.US, "%.4f", counts.getRatio(kind)));
+        }
+
+        sb.append('}');
+
+        return sb.toString();
+    }
+
+    //--------//
+    // family //
+    //--------//
+    private static void family (StringBuilder sb,
+                                String name,
+                                String type,
+                                String help)
+    {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    //--------------//
+    // getAllocBean //
+    //--------------//
+    private static com.sun.management.ThreadMXBean getAllocBean ()
+    {
+        try {
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean bean =
+                        (com.sun.management.ThreadMXBean) threadBean;
+
+                if (bean.isThreadAllocatedMemorySupported()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+
+                    return bean;
+                }
+            }
+        } catch (Throwable ex) {
+            logger.debug("No allocated memory measurement {}", ex.toString());
+        }
+
+        return null;
+    }
+
+    //-----------//
+    // ratioName //
+    //-----------//
+    private static String ratioName (DiffKind kind)
+    {
+        switch (kind) {
+        case POSITIVES:
+            return "positiveRatio";
+
+        case NEGATIVES:
+            return "negativeRatio";
+
+        default:
+            return "falsePositiveRatio";
+        }
+    }
+
+    //-----------//
+    // threadCpu //
+    //-----------//
+    private static long threadCpu ()
+    {
+        try {
+            return threadBean.isCurrentThreadCpuTimeSupported()
+                    ? threadBean.getCurrentThreadCpuTime() : 0;
+        } catch (UnsupportedOperationException ex) {
+            return 0;
+        }
+    }
+
+    //-------------//
+    // threadAlloc //
+    //-------------//
+    private static long threadAlloc ()
+    {
+        return (allocBean != null)
+                ? allocBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    //------//
+    // line //
+    //------//
+    private static void line (StringBuilder sb,
+                              String name,
+                              String label,
+                              Object value)
+    {
+        sb.append(name).append(label);
+
+        if (value instanceof Double) {
+            sb.append(String.format(Locale.US, "%.6f", (Double) value));
+        } else {
+            sb.append(value);
+        }
+
+        sb.append('\n');
+    }
+
+    //~ Enumerations -------------------------------------------------------------------------------
+    /** Scope of a measurement. */
+    public static enum Scope
+    {
+        //~ Enumeration constant initializers ------------------------------------------------------
+
+        sheet,
+        step,
+        system,
+        diff;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Probe //
+    //-------//
+    /**
+     * One on-going measurement.
+     */
+    public static class Probe
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Scope scope;
+
+        private final SheetStub stub;
+
+        private final Step step;
+
+        private final SystemInfo system;
+
+        /** Enclosing probe, if any. */
+        private final Probe parent;
+
+        /** Thread that started this probe. */
+        private final Thread thread = Thread.currentThread();
+
+        private final long wallStart = System.nanoTime();
+
+        private final long cpuStart = threadCpu();
+
+        private final long allocStart = threadAlloc();
+
+        /** CPU consumed by sub-probes run on other threads. */
+        private final AtomicLong subCpu = new AtomicLong();
+
+        /** Allocation performed by sub-probes run on other threads. */
+        private final AtomicLong subAlloc = new AtomicLong();
+
+        /** Counters from sub-probes, when no counter source is available. */
+        private final AtomicLong[] subCounts = new AtomicLong[]{
+            new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong()
+        };
+
+        private Sheet sheet;
+
+        private SIGraph sig;
+
+        private final long[] countStart = new long[4];
+
+        //~ Constructors ---------------------------------------------------------------------------
+        private Probe (Scope scope,
+                       SheetStub stub,
+                       Step step,
+                       SystemInfo system,
+                       Probe parent)
+        {
+            this.scope = scope;
+            this.stub = stub;
+            this.step = step;
+            this.system = system;
+            this.parent = parent;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        //------//
+        // stop //
+        //------//
+        /**
+         * Stop this measurement, record it to the book metrics file and aggregate it.
+         */
+        public void stop ()
+        {
+            final long wall = System.nanoTime() - wallStart;
+            final long cpu = (threadCpu() - cpuStart) + subCpu.get();
+            final long alloc = (threadAlloc() - allocStart) + subAlloc.get();
+            final long[] counts = getCounts();
+
+            if (scope == Scope.step) {
+                stepProbes.remove(stub, this);
+            } else if (scope == Scope.sheet) {
+                sheetProbes.remove(stub, this);
+            }
+
+            if (parent != null) {
+                if (parent.thread != thread) {
+                    parent.subCpu.addAndGet(cpu);
+                    parent.subAlloc.addAndGet(alloc);
+                }
+
+                if (!parent.hasCounters()) {
+                    for (int i = 0; i < counts.length; i++) {
+                        parent.subCounts[i].addAndGet(counts[i]);
+                    }
+                }
+            }
+
+            if (scope == Scope.step && step != null) {
+                final Totals t = totals.get(step);
+
+                synchronized (totals) {
+                    t.runs++;
+                    t.wallNanos += wall;
+                    t.cpuNanos += cpu;
+                    t.allocBytes += alloc;
+                    t.intersCreated += counts[0];
+                    t.intersDeleted += counts[1];
+                    t.glyphHits += counts[2];
+                    t.glyphMisses += counts[3];
+                }
+            }
+
+            final Book book = stub.getBook();
+
+            if (book != null) {
+                append(book, toJson(wall, cpu, alloc, counts));
+            }
+        }
+
+        //---------------//
+        // startCounters //
+        //---------------//
+        private void startCounters (Sheet sheet)
+        {
+            this.sheet = sheet;
+            readCounters(countStart);
+        }
+
+        //---------------//
+        // startCounters //
+        //---------------//
+        private void startCounters (SIGraph sig)
+        {
+            this.sig = sig;
+            readCounters(countStart);
+        }
+
+        //-----------//
+        // getCounts //
+        //-----------//
+        private long[] getCounts ()
+        {
+            final long[] counts = new long[4];
+
+            if (hasCounters()) {
+                readCounters(counts);
+
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = Math.max(0, counts[i] - countStart[i]);
+                }
+            } else {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = subCounts[i].get();
+                }
+            }
+
+            return counts;
+        }
+
+        //-------------//
+        // hasCounters //
+        //-------------//
+        private boolean hasCounters ()
+        {
+            return (sheet != null) || (sig != null);
+        }
+
+        //--------------//
+        // readCounters //
+        //--------------//
+        private void readCounters (long[] counts)
+        {
+            if (sig != null) {
+                counts[0] = sig.getAddedCount();
+                counts[1] = sig.getRemovedCount();
+            } else if (sheet != null) {
+                long added = 0;
+                long removed = 0;
+
+                for (SystemInfo s : sheet.getSystems()) {
+                    final SIGraph g = s.getSig();
+
+                    if (g != null) {
+                        added += g.getAddedCount();
+                        removed += g.getRemovedCount();
+                    }
+                }
+
+                counts[0] = added;
+                counts[1] = removed;
+            }
+
+            final Sheet theSheet = (sheet != null) ? sheet
+                    : ((system != null) ? system.getSheet() : null);
+
+            if (theSheet != null) {
+                final GlyphIndex index = theSheet.getGlyphIndex();
+                counts[2] = index.getHitCount();
+                counts[3] = index.getMissCount();
+            }
+        }
+
+        //--------//
+        // toJson //
+        //--------//
+        private String toJson (long wall,
+                               long cpu,
+                               long alloc,
+                               long[] counts)
+        {
+            final StringBuilder sb = new StringBuilder("{");
+            sb.append("\"time\":").append(System.currentTimeMillis());
+            sb.append(",\"scope\":\"").append(scope).append('"');
+            sb.append(",\"book\":\"").append(escape(stub.getBook().getRadix())).append('"');
+            sb.append(",\"sheet\":").append(stub.getNumber());
+
+            if (step != null) {
+                sb.append(",\"step\":\"").append(step.name()).append('"');
+            }
+
+            if (system != null) {
+                sb.append(",\"system\":").append(system.getId());
+            }
+
+            sb.append(",\"wallMs\":").append(wall / 1_000_000);
+            sb.append(",\"cpuMs\":").append(cpu / 1_000_000);
+            sb.append(",\"allocBytes\":").append(alloc);
+            sb.append(",\"intersCreated\":").append(counts[0]);
+            sb.append(",\"intersDeleted\":").append(counts[1]);
+            sb.append(",\"glyphHits\":").append(counts[2]);
+            sb.append(",\"glyphMisses\":").append(counts[3]);
+            sb.append('}');
+
+            return sb.toString();
+        }
+
+        //--------//
+        // escape //
+        //--------//
+        private static String escape (String str)
+        {
+            return str.replace("\\", "\\\\").replace("\"", "\\\"");
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean recordMetrics = new Constant.Boolean(
+                false,
+                "Should we record step metrics into book metrics file?");
+
+        private final Constant.Boolean recordDiff = new Constant.Boolean(
+                true,
+                "Should we record sheet diff ratios with metrics of transcribed sheets?");
+    }
+
+    //--------//
+    // Totals //
+    //--------//
+    /**
+     * Aggregated values for one step.
+     */
+    private static class Totals
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        long runs;
+
+        long wallNanos;
+
+        long cpuNanos;
+
+        long allocBytes;
+
+        long intersCreated;
+
+        long intersDeleted;
+
+        long glyphHits;
+
+        long glyphMisses;
+    }
+}
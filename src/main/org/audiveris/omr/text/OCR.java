@@ -69,6 +69,14 @@ public interface OCR
      */
     String identify();
 
+    /**
+     * Prepare the OCR engine for the provided language, so that the first recognition
+     * does not have to pay for engine initialization.
+     *
+     * @param languageCode language specification
+     */
+    void warmUp (String languageCode);
+
     /**
      * Launch the recognition of the provided image, whose language is specified.
      *
@@ -46,6 +46,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -53,6 +56,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * <p>
  * It relies on <b>tesseract3</b> C++ program, accessed through a <b>JavaCPP</b>-based bridge.</p>
+ * <p>
+ * Since initializing a Tesseract API for a language is costly, initialized APIs are kept in a pool
+ * per language specification and reused by subsequent orders.</p>
  *
  * @author Hervé Bitteur
  */
@@ -71,6 +77,10 @@ public class TesseractOCR
     /** Latin encoder, to check character validity. (not used yet) */
     private static final CharsetEncoder encoder = Charset.forName("iso-8859-1").newEncoder();
 
+    /** Pools of initialized APIs, per language specification. */
+    private static final ConcurrentMap<String, ConcurrentLinkedQueue<TessBaseAPI>> apiPools
+            = new ConcurrentHashMap<String, ConcurrentLinkedQueue<TessBaseAPI>>();
+
     //~ Instance fields ----------------------------------------------------------------------------
     //
     /** To assign a serial number to each image processing order. */
@@ -86,6 +96,69 @@ public class TesseractOCR
 
     //~ Methods ------------------------------------------------------------------------------------
     //
+    //-----------//
+    // borrowApi //
+    //-----------//
+    /**
+     * Get an API initialized for the provided language, from the pool if possible.
+     * <p>
+     * The API must be given back via {@link #releaseApi(String, TessBaseAPI)}.
+     *
+     * @param lang the language specification
+     * @return the initialized API, or null if initialization failed
+     */
+    static TessBaseAPI borrowApi (String lang)
+    {
+        final ConcurrentLinkedQueue<TessBaseAPI> pool = apiPools.get(lang);
+
+        if (pool != null) {
+            final TessBaseAPI api = pool.poll();
+
+            if (api != null) {
+                return api;
+            }
+        }
+
+        final TessBaseAPI api = new TessBaseAPI();
+
+        if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
+            logger.warn("Could not initialize Tesseract with lang {}", lang);
+            api.End();
+
+            return null;
+        }
+
+        return api;
+    }
+
+    //------------//
+    // releaseApi //
+    //------------//
+    /**
+     * Give back an API obtained via {@link #borrowApi(String)}.
+     *
+     * @param lang the language specification used for API initialization
+     * @param api  the API to release
+     */
+    static void releaseApi (String lang,
+                            TessBaseAPI api)
+    {
+        if (constants.reuseApis.isSet()) {
+            api.Clear(); // Free recognition results, but keep language data
+
+            ConcurrentLinkedQueue<TessBaseAPI> pool = apiPools.get(lang);
+
+            if (pool == null) {
+                apiPools.putIfAbsent(lang, new ConcurrentLinkedQueue<TessBaseAPI>());
+                pool = apiPools.get(lang);
+            }
+
+            pool.offer(api);
+        } else {
+            api.End();
+        }
+    }
+
     //-------------//
     // getInstance //
     //-------------//
@@ -154,6 +227,25 @@ public class TesseractOCR
         }
     }
 
+    //--------//
+    // warmUp //
+    //--------//
+    @Override
+    public void warmUp (String languageCode)
+    {
+        if (isAvailable() && constants.reuseApis.isSet()) {
+            try {
+                final TessBaseAPI api = borrowApi(languageCode);
+
+                if (api != null) {
+                    releaseApi(languageCode, api);
+                }
+            } catch (Throwable ex) {
+                logger.warn("Could not warm up Tesseract for {} {}", languageCode, ex.toString());
+            }
+        }
+    }
+
     //-----------//
     // recognize //
     //-----------//
@@ -263,6 +355,10 @@ public class TesseractOCR
                 false,
                 "Should we keep the images sent to Tesseract?");
 
+        private final Constant.Boolean reuseApis = new Constant.Boolean(
+                true,
+                "Should we keep initialized Tesseract APIs for reuse?");
+
         private final Scale.Fraction maxDashWidth = new Scale.Fraction(
                 1.0,
                 "Maximum width for a dash character");
@@ -157,13 +157,10 @@ public class TesseractOrder
     public List<TextLine> process ()
     {
         try {
-            //api = new TessBaseAPI(WellKnowns.OCR_FOLDER.toString());
-            api = new TessBaseAPI();
-
-            // Init API with proper language
-            if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
-                logger.warn("Could not initialize Tesseract with lang {}", lang);
+            // Get an API initialized with proper language
+            api = TesseractOCR.borrowApi(lang);
 
+            if (api == null) {
                 return finish(null);
             }
 
@@ -246,7 +243,8 @@ public class TesseractOrder
         }
 
         if (api != null) {
-            api.End();
+            TesseractOCR.releaseApi(lang, api);
+            api = null;
         }
 
         return lines;
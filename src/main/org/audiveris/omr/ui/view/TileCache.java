@@ -0,0 +1,605 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                       T i l e C a c h e                                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.ui.view;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.swing.JComponent;
+
+/**
+ * Class {@code TileCache} keeps pre-rendered image tiles of one layer of a zoomable view.
+ * <p>
+ * Tiles are organized as a resolution pyramid: tiles of level k are rendered at scale
+ * 2<sup>k</sup>, and the level used for a given zoom ratio is the finest level not beyond
+ * this ratio, so that a tile is drawn at most twice smaller than rendered.
+ * Missing tiles are rendered in background, off the EDT, and meanwhile any coarser tile
+ * already available for the same area is drawn instead.
+ * <p>
+ * Memory used by tiles is bounded, the least recently drawn tiles being discarded first.
+ * It is up to the view to {@link #invalidate(Rectangle) invalidate} the areas whose content has
+ * changed.
+ * <p>
+ * A bi-level cache, meant for binary images, uses 1-bit tiles of a single color and no tile
+ * finer than scale 1, since magnifying them is exact.
+ *
+ * @author Hervé Bitteur
+ */
+public class TileCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(TileCache.class);
+
+    /** Coarsest pyramid level (scale 1/32). */
+    private static final int MIN_LEVEL = -5;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Layer name. */
+    private final String name;
+
+    /** View to repaint when tiles get ready. */
+    private final JComponent view;
+
+    /** Layer to render. */
+    private final Layer layer;
+
+    /** Color of bi-level tiles, null for full color tiles. */
+    private final Color color;
+
+    /** Finest pyramid level. */
+    private final int maxLevel;
+
+    /** Tile side, in pixels. */
+    private final int tileSize;
+
+    /** Memory budget, in bytes. */
+    private final long budget;
+
+    /** Available tile images, by access order. */
+    private final LinkedHashMap<Tile, BufferedImage> images;
+
+    /** Tiles being rendered. */
+    private final Set<Tile> pendings = new HashSet<Tile>();
+
+    /** Tiles whose rendering failed, painted directly instead. */
+    private final Set<Tile> failures = new HashSet<Tile>();
+
+    /** Tiles needed by latest painting. */
+    private Set<Tile> wanted = new HashSet<Tile>();
+
+    /** Memory used by available tiles, in bytes. */
+    private long used;
+
+    /** Incremented by any invalidation. */
+    private int generation;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a {@code TileCache} of full color tiles.
+     *
+     * @param name  layer name
+     * @param view  the view to repaint when tiles get ready
+     * @param layer the layer to render
+     */
+    public TileCache (String name,
+                      JComponent view,
+                      Layer layer)
+    {
+        this(name, view, layer, null);
+    }
+
+    /**
+     * Creates a {@code TileCache}, of bi-level tiles if a color is provided.
+     *
+     * @param name  layer name
+     * @param view  the view to repaint when tiles get ready
+     * @param layer the layer to render
+     * @param color the single color of bi-level tiles, or null for full color tiles
+     */
+    public TileCache (String name,
+                      JComponent view,
+                      Layer layer,
+                      Color color)
+    {
+        this.name = name;
+        this.view = view;
+        this.layer = layer;
+        this.color = color;
+
+        images = new LinkedHashMap<Tile, BufferedImage>(64, 0.75f, true); // Access order
+        maxLevel = (color != null) ? 0 : constants.maxLevel.getValue();
+        tileSize = constants.tileSize.getValue();
+        budget = constants.tileBudget.getValue() * 1024L * 1024L;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // invalidate //
+    //------------//
+    /**
+     * Discard the tiles that intersect the provided area, at every level.
+     *
+     * @param area the modified area (in model coordinates), or null for the whole layer
+     */
+    public synchronized void invalidate (Rectangle area)
+    {
+        generation++;
+        failures.clear();
+
+        if (area == null) {
+            images.clear();
+            used = 0;
+
+            return;
+        }
+
+        for (Iterator<Entry<Tile, BufferedImage>> it = images.entrySet().iterator();
+                it.hasNext();) {
+            Entry<Tile, BufferedImage> entry = it.next();
+
+            if (entry.getKey().getBounds(tileSize).intersects(area)) {
+                used -= byteSize(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    //-------//
+    // paint //
+    //-------//
+    /**
+     * Paint the layer on the provided graphics, using available tiles.
+     * <p>
+     * The graphics is expected to be in model coordinates, just scaled by the zoom ratio.
+     *
+     * @param g the graphics context
+     */
+    public void paint (Graphics2D g)
+    {
+        final AffineTransform at = g.getTransform();
+        final Rectangle clip = g.getClipBounds();
+
+        if (!constants.useTiles.isSet()
+            || (clip == null)
+            || (at.getShearX() != 0)
+            || (at.getShearY() != 0)
+            || (at.getScaleX() <= 0)
+            || (at.getScaleX() != at.getScaleY())) {
+            layer.render(g);
+
+            return;
+        }
+
+        final double scale = at.getScaleX();
+        final int level = levelOf(scale);
+        final double levelScale = Math.scalb(1.0, level);
+        final int colMin = (int) Math.floor((clip.x * levelScale) / tileSize);
+        final int colMax = (int) Math.ceil(((clip.x + clip.width) * levelScale) / tileSize);
+        final int rowMin = (int) Math.floor((clip.y * levelScale) / tileSize);
+        final int rowMax = (int) Math.ceil(((clip.y + clip.height) * levelScale) / tileSize);
+        final List<Tile> tiles = new ArrayList<Tile>();
+
+        for (int row = rowMin; row < rowMax; row++) {
+            for (int col = colMin; col < colMax; col++) {
+                tiles.add(new Tile(level, col, row));
+            }
+        }
+
+        synchronized (this) {
+            wanted = new HashSet<Tile>(tiles);
+        }
+
+        final Shape oldClip = g.getClip();
+        final Object oldInterpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION,
+                (scale > levelScale) ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+                        : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        try {
+            for (Tile tile : tiles) {
+                final BufferedImage image = getImage(tile);
+
+                if (image != null) {
+                    draw(g, tile, image);
+                } else {
+                    g.clip(tile.getBounds(tileSize));
+
+                    if (isFailed(tile)) {
+                        layer.render(g);
+                    } else {
+                        request(tile);
+
+                        // Meanwhile, use a coarser tile if any
+                        for (int l = level - 1; l >= MIN_LEVEL; l--) {
+                            final Tile coarse = tile.getAncestor(l);
+                            final BufferedImage coarseImage = getImage(coarse);
+
+                            if (coarseImage != null) {
+                                draw(g, coarse, coarseImage);
+
+                                break;
+                            }
+                        }
+                    }
+
+                    g.setClip(oldClip);
+                }
+            }
+        } finally {
+            g.setClip(oldClip);
+            g.setRenderingHint(
+                    RenderingHints.KEY_INTERPOLATION,
+                    (oldInterpolation != null) ? oldInterpolation
+                            : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return "TileCache{" + name + "}";
+    }
+
+    //----------//
+    // byteSize //
+    //----------//
+    private long byteSize (BufferedImage image)
+    {
+        return ((long) image.getWidth() * image.getHeight() * image.getColorModel()
+                .getPixelSize()) / 8;
+    }
+
+    //-------------//
+    // createImage //
+    //-------------//
+    private BufferedImage createImage ()
+    {
+        if (color == null) {
+            return new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        // Index 0 is transparent, with a color far from the layer color
+        final byte[] r = new byte[]{(byte) (255 - color.getRed()), (byte) color.getRed()};
+        final byte[] gr = new byte[]{(byte) (255 - color.getGreen()), (byte) color.getGreen()};
+        final byte[] b = new byte[]{(byte) (255 - color.getBlue()), (byte) color.getBlue()};
+
+        return new BufferedImage(
+                tileSize,
+                tileSize,
+                BufferedImage.TYPE_BYTE_BINARY,
+                new IndexColorModel(1, 2, r, gr, b, 0));
+    }
+
+    //------//
+    // draw //
+    //------//
+    private void draw (Graphics2D g,
+                       Tile tile,
+                       BufferedImage image)
+    {
+        final double ratio = 1 / tile.getScale();
+        g.drawImage(
+                image,
+                new AffineTransform(
+                        ratio,
+                        0,
+                        0,
+                        ratio,
+                        tile.col * tileSize * ratio,
+                        tile.row * tileSize * ratio),
+                null);
+    }
+
+    //----------//
+    // getImage //
+    //----------//
+    private synchronized BufferedImage getImage (Tile tile)
+    {
+        return images.get(tile);
+    }
+
+    //----------//
+    // isFailed //
+    //----------//
+    private synchronized boolean isFailed (Tile tile)
+    {
+        return failures.contains(tile);
+    }
+
+    //---------//
+    // levelOf //
+    //---------//
+    /**
+     * Report the pyramid level to use for the provided zoom ratio.
+     *
+     * @param scale zoom ratio
+     * @return the finest level whose scale does not exceed twice the ratio
+     */
+    private int levelOf (double scale)
+    {
+        int level = Math.getExponent(scale);
+
+        if (scale > Math.scalb(1.0, level)) {
+            level++;
+        }
+
+        return Math.max(MIN_LEVEL, Math.min(maxLevel, level));
+    }
+
+    //-------//
+    // store //
+    //-------//
+    private synchronized void store (Tile tile,
+                                     BufferedImage image,
+                                     int gen)
+    {
+        pendings.remove(tile);
+
+        if ((image == null) || (gen != generation)) {
+            return;
+        }
+
+        images.put(tile, image);
+        used += byteSize(image);
+
+        // Discard least recently drawn tiles beyond budget
+        for (Iterator<BufferedImage> it = images.values().iterator();
+                (used > budget) && it.hasNext();) {
+            used -= byteSize(it.next());
+            it.remove();
+        }
+    }
+
+    //--------//
+    // render //
+    //--------//
+    private BufferedImage render (Tile tile)
+    {
+        final BufferedImage image = createImage();
+        final Graphics2D g = image.createGraphics();
+
+        try {
+            final double scale = tile.getScale();
+            g.translate(-tile.col * tileSize, -tile.row * tileSize);
+            g.scale(scale, scale);
+            g.clip(tile.getBounds(tileSize));
+            g.setColor((color != null) ? color : view.getForeground());
+            g.setFont(view.getFont());
+            layer.render(g);
+        } finally {
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    //---------//
+    // request //
+    //---------//
+    /**
+     * Launch the background rendering of a tile, unless already launched.
+     *
+     * @param tile the missing tile
+     */
+    private synchronized void request (final Tile tile)
+    {
+        if (!pendings.add(tile)) {
+            return;
+        }
+
+        final int gen = generation;
+
+        OmrExecutors.getTileExecutor().submit(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                synchronized (TileCache.this) {
+                    if ((gen != generation) || !wanted.contains(tile)) {
+                        pendings.remove(tile); // No longer needed as such
+
+                        return;
+                    }
+                }
+
+                BufferedImage image = null;
+
+                try {
+                    image = render(tile);
+                } catch (ConcurrentModificationException ex) {
+                    // Model modified meanwhile, tile will be requested again
+                } catch (Throwable ex) {
+                    logger.warn("Error rendering {} {}", TileCache.this, tile, ex);
+
+                    synchronized (TileCache.this) {
+                        failures.add(tile);
+                    }
+                }
+
+                store(tile, image, gen);
+                view.repaint();
+            }
+        });
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //-------//
+    // Layer //
+    //-------//
+    /**
+     * A layer of the view.
+     */
+    public static interface Layer
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Render the layer content on the provided graphics, at least within its clip.
+         * This may be called off the EDT.
+         *
+         * @param g the graphics context, in model coordinates
+         */
+        void render (Graphics2D g);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useTiles = new Constant.Boolean(
+                true,
+                "Should we paint sheet views from cached image tiles?");
+
+        private final Constant.Integer tileSize = new Constant.Integer(
+                "pixels",
+                256,
+                "Side of a view tile");
+
+        private final Constant.Integer maxLevel = new Constant.Integer(
+                "level",
+                2,
+                "Finest level of color tiles (scale is 2 power level)");
+
+        private final Constant.Integer tileBudget = new Constant.Integer(
+                "MB",
+                32,
+                "Maximum memory for the tiles of one view layer");
+    }
+
+    //------//
+    // Tile //
+    //------//
+    /**
+     * Identification of a tile, by its level and its position in level grid.
+     */
+    private static final class Tile
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int level;
+
+        final int col;
+
+        final int row;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Tile (int level,
+              int col,
+              int row)
+        {
+            this.level = level;
+            this.col = col;
+            this.row = row;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (!(obj instanceof Tile)) {
+                return false;
+            }
+
+            final Tile that = (Tile) obj;
+
+            return (level == that.level) && (col == that.col) && (row == that.row);
+        }
+
+        /**
+         * Report the tile of a coarser level which contains this tile.
+         *
+         * @param coarserLevel the coarser level
+         * @return the containing tile
+         */
+        Tile getAncestor (int coarserLevel)
+        {
+            final int shift = level - coarserLevel;
+
+            return new Tile(coarserLevel, col >> shift, row >> shift);
+        }
+
+        /**
+         * Report the tile bounds, in model coordinates.
+         *
+         * @param tileSize tile side
+         * @return tile bounds
+         */
+        Rectangle2D getBounds (int tileSize)
+        {
+            final double side = tileSize / getScale();
+
+            return new Rectangle2D.Double(col * side, row * side, side, side);
+        }
+
+        double getScale ()
+        {
+            return Math.scalb(1.0, level);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return (((level * 31) + col) * 31) + row;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Tile{" + level + ":" + col + "," + row + "}";
+        }
+    }
+}
@@ -43,6 +43,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>sheetExecutor: a fixed nb (#cpu) of threads, shared by the sheets of all books in batch</li>
+ * <li>prefetchExecutor: a single thread, for reading input images ahead of their processing</li>
  * </ul>
  *
  * @author Hervé Bitteur
@@ -77,8 +79,20 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
+    private static final Pool sheets = new Sheets();
+
+    private static final Pool prefetches = new Prefetches();
+
+    private static final Pool tiles = new Tiles();
+
     /** To handle all the pools as a whole. */
-    private static final Collection<Pool> allPools = Arrays.asList(cachedLows, lows, highs);
+    private static final Collection<Pool> allPools = Arrays.asList(
+            tiles,
+            prefetches,
+            sheets,
+            cachedLows,
+            lows,
+            highs);
 
     /** To prevent parallel creation of pools when closing. */
     private static volatile boolean creationAllowed = true;
@@ -131,6 +145,47 @@ public class OmrExecutors
         return lows.getPool();
     }
 
+    //---------------------//
+    // getPrefetchExecutor //
+    //---------------------//
+    /**
+     * Return the (single) pool dedicated to the reading of input images in advance.
+     *
+     * @return the prefetch pool, allocated if needed
+     */
+    public static ExecutorService getPrefetchExecutor ()
+    {
+        return prefetches.getPool();
+    }
+
+    //------------------//
+    // getSheetExecutor //
+    //------------------//
+    /**
+     * Return the (single) pool of threads shared by the sheets of all books in batch.
+     *
+     * @return the sheet pool, allocated if needed
+     */
+    public static ExecutorService getSheetExecutor ()
+    {
+        return sheets.getPool();
+    }
+
+    //---------------------//
+    // getSheetThreadCount //
+    //---------------------//
+    /**
+     * Report the count of threads in the sheet pool.
+     *
+     * @return the count of sheet threads
+     */
+    public static int getSheetThreadCount ()
+    {
+        final int count = constants.sheetThreads.getValue();
+
+        return (count > 0) ? count : cpuCount;
+    }
+
     //-----------------//
     // getNumberOfCpus //
     //-----------------//
@@ -144,6 +199,19 @@ public class OmrExecutors
         return cpuCount;
     }
 
+    //-----------------//
+    // getTileExecutor //
+    //-----------------//
+    /**
+     * Return the (single) pool dedicated to the background rendering of view tiles.
+     *
+     * @return the tile pool, allocated if needed
+     */
+    public static ExecutorService getTileExecutor ()
+    {
+        return tiles.getPool();
+    }
+
     //---------//
     // restart //
     //---------//
@@ -303,6 +371,11 @@ public class OmrExecutors
                 "seconds",
                 60,
                 "Time to wait for terminating tasks");
+
+        private final Constant.Integer sheetThreads = new Constant.Integer(
+                "threads",
+                0,
+                "Count of threads shared by sheets in batch (0 for CPU count)");
     }
 
     //------------//
@@ -471,4 +544,74 @@ public class OmrExecutors
                     new Factory(getName(), Thread.MIN_PRIORITY, 0));
         }
     }
+
+    //------------//
+    // Prefetches //
+    //------------//
+    /** Single-thread pool for input reading ahead. */
+    private static class Prefetches
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "prefetch";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return Executors.newSingleThreadExecutor(
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0));
+        }
+    }
+
+    //--------//
+    // Sheets //
+    //--------//
+    /** Fixed pool shared by the sheets of all books. */
+    private static class Sheets
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "sheet";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return Executors.newFixedThreadPool(
+                    getSheetThreadCount(),
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0));
+        }
+    }
+
+    //-------//
+    // Tiles //
+    //-------//
+    /** Single-thread pool for background rendering of view tiles. */
+    private static class Tiles
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "tile";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return Executors.newSingleThreadExecutor(
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0));
+        }
+    }
 }
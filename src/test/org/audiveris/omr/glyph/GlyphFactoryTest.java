@@ -6,13 +6,18 @@
 package org.audiveris.omr.glyph;
 
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
 
+import static org.junit.Assert.*;
 import org.junit.Test;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.util.List;
+import java.util.Random;
 
 /**
  *
@@ -46,6 +51,26 @@ public class GlyphFactoryTest
         GlyphFactory.buildGlyphs(runTable, offset);
     }
 
+    /**
+     * Check that labeling by bands gives the same glyphs as a single scan.
+     */
+    @Test
+    public void testBands ()
+    {
+        System.out.println("bands");
+
+        for (Orientation orientation : new Orientation[]{HORIZONTAL, VERTICAL}) {
+            RunTable runTable = createRandomInstance(orientation);
+            Point offset = new Point(10, 20);
+            List<Glyph> expected = GlyphFactory.buildGlyphs(runTable, offset, null, 1);
+
+            for (int bandCount : new int[]{2, 3, 7, 50}) {
+                List<Glyph> glyphs = GlyphFactory.buildGlyphs(runTable, offset, null, bandCount);
+                assertEquals("bandCount:" + bandCount, expected, glyphs);
+            }
+        }
+    }
+
     //--------------------------//
     // createHorizontalInstance //
     //--------------------------//
@@ -100,4 +125,26 @@ public class GlyphFactoryTest
         ///System.out.println("createHorizontalInstance:\n" + instance.dumpOf());
         return instance;
     }
+
+    //----------------------//
+    // createRandomInstance //
+    //----------------------//
+    private RunTable createRandomInstance (Orientation orientation)
+    {
+        final int width = 300;
+        final int height = 200;
+        final RunTable instance = new RunTable(orientation, width, height);
+        final int length = (orientation == HORIZONTAL) ? width : height;
+        final Random random = new Random(456);
+
+        for (int iSeq = 0; iSeq < instance.getSize(); iSeq++) {
+            for (int start = random.nextInt(8); start < length;) {
+                int runLength = Math.min(1 + random.nextInt(6), length - start);
+                instance.addRun(iSeq, new Run(start, runLength));
+                start += (runLength + 1 + random.nextInt(8));
+            }
+        }
+
+        return instance;
+    }
 }
@@ -0,0 +1,165 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                P a c k e d B i t m a p T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PackedBitmap}.
+ *
+ * @author Hervé Bitteur
+ */
+public class PackedBitmapTest
+{
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new PackedBitmapTest object.
+     */
+    public PackedBitmapTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of count method, across word boundaries.
+     */
+    @Test
+    public void testCount ()
+    {
+        System.out.println("count");
+
+        PackedBitmap bitmap = createInstance();
+        assertEquals(3, bitmap.count(0, 0, 199));
+        assertEquals(2, bitmap.count(0, 63, 64));
+        assertEquals(1, bitmap.count(0, 64, 126));
+        assertEquals(0, bitmap.count(0, 1, 62));
+        assertEquals(130, bitmap.count(2, 0, 199));
+        assertEquals(0, bitmap.count(3, 0, 199));
+        assertArrayEquals(new int[]{3, 0, 130, 0}, bitmap.getRowCounts());
+    }
+
+    /**
+     * Test of and / andNot / countAnd methods.
+     */
+    @Test
+    public void testMasks ()
+    {
+        System.out.println("masks");
+
+        PackedBitmap bitmap = createInstance();
+        PackedBitmap mask = new PackedBitmap(bitmap.getWidth(), bitmap.getHeight());
+        mask.set(63, 0, true);
+        mask.set(100, 2, true);
+
+        assertEquals(1, bitmap.countAnd(mask, 0, 0, 199));
+        assertEquals(0, bitmap.countAnd(mask, 0, 64, 199));
+        assertEquals(1, bitmap.countAnd(mask, 2, 100, 100));
+        assertEquals(0, bitmap.countAnd(mask, 3, 0, 199));
+
+        PackedBitmap kept = new PackedBitmap(bitmap);
+        kept.and(mask);
+        assertArrayEquals(new int[]{1, 0, 1, 0}, kept.getRowCounts());
+
+        bitmap.andNot(mask);
+        assertArrayEquals(new int[]{2, 0, 129, 0}, bitmap.getRowCounts());
+        assertFalse(bitmap.isFore(100, 2));
+        assertTrue(bitmap.isFore(101, 2));
+    }
+
+    /**
+     * Test of nextFore and nextBack methods.
+     */
+    @Test
+    public void testNext ()
+    {
+        System.out.println("next");
+
+        PackedBitmap bitmap = createInstance();
+        assertEquals(0, bitmap.nextFore(0, 0));
+        assertEquals(63, bitmap.nextFore(1, 0));
+        assertEquals(64, bitmap.nextFore(64, 0));
+        assertEquals(-1, bitmap.nextFore(65, 0));
+        assertEquals(-1, bitmap.nextFore(0, 1));
+        assertEquals(10, bitmap.nextFore(0, 2));
+        assertEquals(140, bitmap.nextBack(10, 2));
+        assertEquals(1, bitmap.nextBack(0, 0));
+        assertEquals(PixelSource.FOREGROUND, bitmap.get(139, 2));
+        assertEquals(PixelSource.BACKGROUND, bitmap.get(140, 2));
+    }
+
+    /**
+     * Test of conversions with RunTable and ByteProcessor.
+     */
+    @Test
+    public void testRoundTrip ()
+    {
+        System.out.println("roundTrip");
+
+        PackedBitmap bitmap = createInstance();
+
+        for (Orientation orientation : Orientation.values()) {
+            RunTable table = bitmap.getRunTable(orientation);
+            assertEquals(133, table.getWeight());
+
+            PackedBitmap copy = new PackedBitmap(table);
+            assertArrayEquals(bitmap.getRowCounts(), copy.getRowCounts());
+
+            for (int y = 0; y < bitmap.getHeight(); y++) {
+                for (int x = 0; x < bitmap.getWidth(); x++) {
+                    assertEquals(bitmap.get(x, y), table.get(x, y));
+                    assertEquals(bitmap.get(x, y), copy.get(x, y));
+                }
+            }
+        }
+
+        PackedBitmap copy = new PackedBitmap(bitmap.getBuffer());
+
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            assertEquals(bitmap.count(y, 0, 199), copy.count(y, 0, 199));
+            assertEquals(bitmap.nextFore(0, y), copy.nextFore(0, y));
+        }
+    }
+
+    //----------------//
+    // createInstance //
+    //----------------//
+    /**
+     * 200 x 4 bitmap, with pixels 0, 63 and 64 in row 0 and segment [10..139] in row 2.
+     */
+    private static PackedBitmap createInstance ()
+    {
+        PackedBitmap bitmap = new PackedBitmap(200, 4);
+        bitmap.set(0, 0, true);
+        bitmap.set(63, 0, true);
+        bitmap.set(64, 0, true);
+
+        for (int x = 10; x < 140; x++) {
+            bitmap.set(x, 2, true);
+        }
+
+        return bitmap;
+    }
+}
@@ -0,0 +1,91 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                S k e l e t o n i z e r T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link Skeletonizer}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SkeletonizerTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Check that skeleton is identical to the one provided by ImageJ.
+     */
+    @Test
+    public void testSkeletonize ()
+    {
+        System.out.println("skeletonize");
+
+        final Random random = new Random(123);
+
+        for (int i = 0; i < 3; i++) {
+            final ByteProcessor buffer = createBuffer(random, 301 + i, 257);
+            final ByteProcessor expected = (ByteProcessor) buffer.duplicate();
+            expected.skeletonize();
+
+            new Skeletonizer(buffer).skeletonize();
+            assertTrue(Arrays.equals((byte[]) expected.getPixels(), (byte[]) buffer.getPixels()));
+        }
+    }
+
+    //--------------//
+    // createBuffer //
+    //--------------//
+    /**
+     * Create a binary buffer, with black noise and black rectangles on white background.
+     */
+    private static ByteProcessor createBuffer (Random random,
+                                               int width,
+                                               int height)
+    {
+        final ByteProcessor buffer = new ByteProcessor(width, height);
+
+        for (int i = 0; i < buffer.getPixelCount(); i++) {
+            buffer.set(i, (random.nextInt(100) < 40) ? 0 : 255);
+        }
+
+        for (int n = 0; n < 30; n++) {
+            final int x0 = random.nextInt(width - 20);
+            final int y0 = random.nextInt(height - 25);
+            final int w = random.nextInt(20);
+            final int h = random.nextInt(25);
+
+            for (int y = y0; y < (y0 + h); y++) {
+                for (int x = x0; x < (x0 + w); x++) {
+                    buffer.set(x, y, 0);
+                }
+            }
+        }
+
+        return buffer;
+    }
+}
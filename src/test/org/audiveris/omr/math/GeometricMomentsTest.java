@@ -23,10 +23,13 @@ package org.audiveris.omr.math;
 
 //import org.testng.annotations.*;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.GeometricSums;
 import org.audiveris.omr.util.BaseTestCase;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 /**
  * Class <code>GeometricMomentsTest</code> performs unit tests on
  * GeometricMoments class.
@@ -77,6 +80,38 @@ public class GeometricMomentsTest
         }
     }
 
+    @Test
+    public void testSums ()
+    {
+        GeometricMoments whole = new GeometricMoments(xx, yy, xx.length, 1);
+
+        // Sums of two disjoint subsets, combined
+        GeometricSums sums = new GeometricSums(
+                new int[]{1, 2},
+                new int[]{4, 5},
+                2);
+        sums.include(new GeometricSums(new int[]{3, 4, 5}, new int[]{24, 9, 0}, 3));
+
+        GeometricMoments combined = new GeometricMoments(sums, 1);
+        assertTrue("combined", Arrays.equals(whole.getValues(), combined.getValues()));
+
+        // Central moments are invariant by translation
+        int[] xs = new int[xx.length];
+        int[] ys = new int[yy.length];
+
+        for (int i = 0; i < xx.length; i++) {
+            xs[i] = xx[i] + 1000;
+            ys[i] = yy[i] + 2000;
+        }
+
+        double[] k = whole.getValues();
+        double[] ks = new GeometricMoments(xs, ys, xs.length, 1).getValues();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(GeometricMoments.getLabel(i), k[i], ks[i], 0.0);
+        }
+    }
+
     @Test
     public void testDefaultConstructor ()
     {
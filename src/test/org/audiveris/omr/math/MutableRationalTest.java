@@ -0,0 +1,86 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             M u t a b l e R a t i o n a l T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Hervé Bitteur
+ */
+public class MutableRationalTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of add method, of class MutableRational.
+     */
+    @Test
+    public void testAdd ()
+    {
+        System.out.println("add");
+
+        MutableRational instance = new MutableRational();
+        instance.add(new Rational(1, 4)).add(new Rational(1, 8)).add(new Rational(1, 12));
+        assertEquals(new Rational(11, 24), instance.toRational());
+
+        instance.add(new Rational(13, 24));
+        assertEquals(Rational.ONE, instance.toRational());
+    }
+
+    /**
+     * Test of compareTo method, of class MutableRational.
+     */
+    @Test
+    public void testCompareTo ()
+    {
+        System.out.println("compareTo");
+
+        MutableRational instance = new MutableRational(new Rational(1, 3));
+        assertEquals(-1, instance.compareTo(Rational.HALF));
+        assertEquals(0, instance.compareTo(new Rational(2, 6)));
+        assertEquals(1, instance.compareTo(Rational.ZERO));
+
+        MutableRational that = new MutableRational(new Rational(1, 6));
+        that.add(new Rational(1, 6));
+        assertEquals(0, instance.compareTo(that));
+        assertEquals(1, instance.compareTo(new MutableRational()));
+    }
+
+    /**
+     * Test of subtract method, of class MutableRational.
+     */
+    @Test
+    public void testSubtract ()
+    {
+        System.out.println("subtract");
+
+        MutableRational instance = new MutableRational(new Rational(3, 4));
+        instance.subtract(Rational.ONE);
+        assertEquals(-1, instance.signum());
+        assertEquals(new Rational(-1, 4), instance.toRational());
+
+        instance.set(new Rational(1, 3)).subtract(new Rational(1, 3));
+        assertEquals(0, instance.signum());
+        assertEquals(Rational.ZERO, instance.toRational());
+    }
+}
@@ -24,6 +24,9 @@ package org.audiveris.omr.run;
 import ij.process.ByteProcessor;
 
 import org.audiveris.omr.image.GlobalFilter;
+import org.audiveris.omr.image.PixelSource;
+import org.audiveris.omr.math.PointsCollector;
+import org.audiveris.omr.moments.GeometricSums;
 import static org.audiveris.omr.run.Orientation.*;
 import org.audiveris.omr.run.RunTable.RunSequence;
 import org.audiveris.omr.util.Predicate;
@@ -52,6 +55,37 @@ public class RunTableTest
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of computeGeometricSums method, of class RunTable, against point-based sums.
+     */
+    @Test
+    public void testComputeGeometricSums ()
+    {
+        System.out.println("\n+++ computeGeometricSums");
+
+        for (RunTable instance : new RunTable[]{
+            createHorizontalInstance(), createVerticalInstance()
+        }) {
+            PointsCollector collector = new PointsCollector(null, instance.getWeight());
+            instance.cumulate(collector, new Point(100, 200));
+
+            GeometricSums expResult = new GeometricSums(
+                    collector.getXValues(),
+                    collector.getYValues(),
+                    collector.getSize());
+            GeometricSums result = instance.computeGeometricSums(100, 200);
+            assertEquals(expResult.getWeight(), result.getWeight());
+            assertEquals(expResult.getWidth(), result.getWidth());
+            assertEquals(expResult.getHeight(), result.getHeight());
+            assertEquals(expResult.getXBar(), result.getXBar(), 0);
+            assertEquals(expResult.getYBar(), result.getYBar(), 0);
+
+            for (int[] pq : new int[][]{{2, 0}, {1, 1}, {0, 2}, {3, 0}, {2, 1}, {1, 2}, {0, 3}}) {
+                assertEquals(expResult.getCentral(pq[0], pq[1]), result.getCentral(pq[0], pq[1]));
+            }
+        }
+    }
+
     /**
      * Test of copy method, of class RunTable.
      */
@@ -322,6 +356,33 @@ public class RunTableTest
         assertEquals(5, instance.getTotalRunCount());
     }
 
+    /**
+     * Test of intern method, of class RunTable.
+     */
+    @Test
+    public void testIntern ()
+    {
+        System.out.println("\n+++ intern");
+
+        // Columns 3, 5, 8 and 9 contain a single run
+        RunTable one = createVerticalInstance().intern();
+        RunTable two = createVerticalInstance().intern();
+        assertEquals(createVerticalInstance(), one);
+        assertSame(one.getSequence(5), two.getSequence(5));
+        assertSame(one.getSequence(8), two.getSequence(9));
+        assertNotSame(one.getSequence(0), two.getSequence(0));
+
+        // Modifying a shared sequence must not impact the other table
+        one.removeRun(5, new Run(0, 2));
+        assertNull(one.getSequence(5));
+        assertEquals(createVerticalInstance(), two);
+
+        two.addRun(8, new Run(0, 1));
+        assertEquals(PixelSource.FOREGROUND, two.get(8, 0));
+        assertEquals(PixelSource.BACKGROUND, one.get(8, 0));
+        assertEquals(PixelSource.BACKGROUND, two.get(9, 0));
+    }
+
     /**
      * Test of purge method, of class RunTable.
      */
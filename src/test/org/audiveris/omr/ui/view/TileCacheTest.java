@@ -0,0 +1,195 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   T i l e C a c h e T e s t                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.ui.view;
+
+import org.audiveris.omr.util.OmrExecutors;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.JPanel;
+
+/**
+ * Unit tests for {@link TileCache}.
+ *
+ * @author Hervé Bitteur
+ */
+public class TileCacheTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int WIDTH = 700;
+
+    private static final int HEIGHT = 600;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Rectangles of the layer. */
+    private final List<Rectangle> rects = new ArrayList<Rectangle>();
+
+    /** Layer which fills all the rectangles. */
+    private final TileCache.Layer layer = new TileCache.Layer()
+    {
+        @Override
+        public void render (Graphics2D g)
+        {
+            for (Rectangle rect : rects) {
+                g.fillRect(rect.x, rect.y, rect.width, rect.height);
+            }
+        }
+    };
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new TileCacheTest object.
+     */
+    public TileCacheTest ()
+    {
+        Random random = new Random(123);
+
+        // Edges on multiples of 4, so that no edge falls on half a pixel at tested scales
+        for (int i = 0; i < 300; i++) {
+            rects.add(
+                    new Rectangle(
+                            4 * random.nextInt(WIDTH / 4),
+                            4 * random.nextInt(HEIGHT / 4),
+                            4 * (1 + random.nextInt(10)),
+                            4 * (1 + random.nextInt(10))));
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test invalidation of a modified area.
+     */
+    @Test
+    public void testInvalidate ()
+            throws Exception
+    {
+        System.out.println("invalidate");
+
+        TileCache cache = new TileCache("test", new JPanel(), layer, Color.BLACK);
+        assertSameImages(paintDirect(1), paintTiles(cache, 1));
+
+        Rectangle rect = new Rectangle(300, 280, 50, 30);
+        rects.add(rect);
+        cache.invalidate(rect);
+        assertSameImages(paintDirect(1), paintTiles(cache, 1));
+    }
+
+    /**
+     * Test painting at scales where tiles are drawn pixel for pixel.
+     */
+    @Test
+    public void testPaint ()
+            throws Exception
+    {
+        System.out.println("paint");
+
+        TileCache cache = new TileCache("test", new JPanel(), layer, Color.BLACK);
+
+        for (double scale : new double[]{1, 0.5, 0.25, 2}) {
+            assertSameImages(paintDirect(scale), paintTiles(cache, scale));
+        }
+    }
+
+    private void assertSameImages (BufferedImage expected,
+                                   BufferedImage actual)
+    {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("x:" + x + " y:" + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    private BufferedImage createImage (double scale)
+    {
+        BufferedImage img = new BufferedImage(
+                (int) Math.ceil(WIDTH * scale),
+                (int) Math.ceil(HEIGHT * scale),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, img.getWidth(), img.getHeight());
+        g.dispose();
+
+        return img;
+    }
+
+    private Graphics2D createGraphics (BufferedImage img,
+                                       double scale)
+    {
+        Graphics2D g = img.createGraphics();
+        g.scale(scale, scale);
+        g.setClip(0, 0, WIDTH, HEIGHT);
+        g.setColor(Color.BLACK);
+
+        return g;
+    }
+
+    private BufferedImage paintDirect (double scale)
+    {
+        BufferedImage img = createImage(scale);
+        Graphics2D g = createGraphics(img, scale);
+        layer.render(g);
+        g.dispose();
+
+        return img;
+    }
+
+    private BufferedImage paintTiles (TileCache cache,
+                                      double scale)
+            throws Exception
+    {
+        // First painting requests the missing tiles, wait for their rendering
+        BufferedImage img = createImage(scale);
+        Graphics2D g = createGraphics(img, scale);
+        cache.paint(g);
+        g.dispose();
+        OmrExecutors.getTileExecutor().submit(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+            }
+        }).get();
+
+        img = createImage(scale);
+        g = createGraphics(img, scale);
+        cache.paint(g);
+        g.dispose();
+
+        return img;
+    }
+}